@@ -0,0 +1,369 @@
+/*
+ * Copyright 2003-2009 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package groovy.io;
+
+import groovy.lang.Closure;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.CharBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.util.AbstractList;
+import java.util.List;
+
+/**
+ * Reads lines of delimiter separated fields without creating a String per line or field.
+ * <p/>
+ * Characters are scanned in a buffer, and the fields of the current line are exposed
+ * as {@link CharSequence} views into that buffer. The views and the list returned by
+ * {@link #getFields()} are reused for every line, so they are only valid until the next
+ * call to {@link #next()}; use <code>toString()</code> to keep a value.
+ * <pre>
+ * new DelimitedReader(new File('feed.txt'), 'UTF-8', '|' as char).eachLine { fields ->
+ *     totals[fields[0].toString()] += fields[3].toString().toLong()
+ * }
+ * </pre>
+ * Lines end with '\n', '\r' or "\r\n". Unlike <code>String.split</code> every field is
+ * reported, including trailing empty ones, and there is no support for quoting.
+ * Readers created for a <code>File</code> memory-map it and decode the characters
+ * straight from the mapped bytes, one window of the file at a time.
+ */
+public class DelimitedReader implements Closeable {
+    private static final int DEFAULT_BUFFER_SIZE = 8192;
+    private static final long MAPPED_WINDOW_SIZE = 64L * 1024 * 1024;
+
+    private final char delimiter;
+    private Reader reader;
+
+    // memory mapped input
+    private FileInputStream input;
+    private FileChannel channel;
+    private CharsetDecoder decoder;
+    private MappedByteBuffer window;
+    private long windowStart;
+    private boolean flushed;
+
+    private char[] chars;
+    private int end;
+    private int lineStart;
+    private int nextLineStart;
+    private boolean skipLineFeed;
+    private boolean eof;
+
+    private int fieldCount;
+    private int[] fieldStarts = new int[16];
+    private int[] fieldEnds = new int[16];
+    private Field[] fieldViews = new Field[0];
+    private final List fields = new FieldList();
+
+    public DelimitedReader(Reader reader, char delimiter) {
+        this(reader, delimiter, DEFAULT_BUFFER_SIZE);
+    }
+
+    public DelimitedReader(Reader reader, char delimiter, int bufferSize) {
+        if (bufferSize <= 0) throw new IllegalArgumentException("Buffer size <= 0");
+        this.reader = reader;
+        this.delimiter = delimiter;
+        this.chars = new char[bufferSize];
+    }
+
+    /**
+     * Creates a reader for the memory-mapped file, using the platform default charset.
+     */
+    public DelimitedReader(File file, char delimiter) throws IOException {
+        this(file, Charset.defaultCharset().name(), delimiter);
+    }
+
+    /**
+     * Creates a reader for the memory-mapped file.
+     */
+    public DelimitedReader(File file, String charset, char delimiter) throws IOException {
+        this.delimiter = delimiter;
+        this.chars = new char[DEFAULT_BUFFER_SIZE];
+        this.decoder = Charset.forName(charset).newDecoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE);
+        input = new FileInputStream(file);
+        try {
+            channel = input.getChannel();
+            map(0);
+        } catch (IOException e) {
+            close();
+            throw e;
+        }
+    }
+
+    private void map(long position) throws IOException {
+        long length = Math.min(MAPPED_WINDOW_SIZE, channel.size() - position);
+        window = channel.map(FileChannel.MapMode.READ_ONLY, position, length);
+        windowStart = position;
+    }
+
+    /**
+     * Advances to the next line.
+     *
+     * @return false if there are no more lines
+     * @throws IOException if reading fails
+     */
+    public boolean next() throws IOException {
+        fieldCount = 0;
+        lineStart = nextLineStart;
+        int pos = lineStart;
+        int fieldStart = pos;
+        while (true) {
+            if (pos == end) {
+                final int shift = fill();
+                pos -= shift;
+                fieldStart -= shift;
+                if (pos == end) {
+                    // end of input, the last line may not be terminated
+                    if (pos == lineStart && fieldCount == 0) return false;
+                    addField(fieldStart, pos);
+                    nextLineStart = pos;
+                    return true;
+                }
+            }
+            final char c = chars[pos];
+            if (skipLineFeed) {
+                skipLineFeed = false;
+                if (c == '\n') {
+                    pos++;
+                    lineStart = fieldStart = pos;
+                    continue;
+                }
+            }
+            if (c == delimiter) {
+                addField(fieldStart, pos);
+                fieldStart = pos + 1;
+            } else if (c == '\n' || c == '\r') {
+                addField(fieldStart, pos);
+                skipLineFeed = c == '\r';
+                nextLineStart = pos + 1;
+                return true;
+            }
+            pos++;
+        }
+    }
+
+    private void addField(int start, int stop) {
+        if (fieldCount == fieldStarts.length) {
+            int[] starts = new int[fieldCount * 2];
+            int[] ends = new int[fieldCount * 2];
+            System.arraycopy(fieldStarts, 0, starts, 0, fieldCount);
+            System.arraycopy(fieldEnds, 0, ends, 0, fieldCount);
+            fieldStarts = starts;
+            fieldEnds = ends;
+        }
+        // relative to the line start, which moves when the buffer is compacted
+        fieldStarts[fieldCount] = start - lineStart;
+        fieldEnds[fieldCount] = stop - lineStart;
+        fieldCount++;
+    }
+
+    /**
+     * Moves the current line to the front of the buffer, growing it if the line
+     * (nearly) fills it, and reads more characters behind it.
+     *
+     * @return the number of positions the buffer content was moved by
+     */
+    private int fill() throws IOException {
+        final int shift = lineStart;
+        if (shift > 0) {
+            System.arraycopy(chars, shift, chars, 0, end - shift);
+            end -= shift;
+            lineStart = 0;
+            nextLineStart -= shift;
+        }
+        // a surrogate pair needs room for two chars
+        if (chars.length - end < 2) {
+            char[] grown = new char[chars.length * 2];
+            System.arraycopy(chars, 0, grown, 0, end);
+            chars = grown;
+        }
+        if (eof) return shift;
+
+        int read = reader != null ? reader.read(chars, end, chars.length - end) : decode(end, chars.length - end);
+        if (read < 0) {
+            eof = true;
+        } else {
+            end += read;
+        }
+        return shift;
+    }
+
+    private int decode(int offset, int length) throws IOException {
+        final CharBuffer out = CharBuffer.wrap(chars, offset, length);
+        while (true) {
+            final boolean last = windowStart + window.limit() >= channel.size();
+            final CoderResult result = decoder.decode(window, out, last);
+            if (result.isError()) result.throwException();
+            if (out.position() > offset) return out.position() - offset;
+            if (!last) {
+                // continue behind the bytes decoded so far, including a split character
+                map(windowStart + window.position());
+            } else {
+                if (!flushed) {
+                    flushed = true;
+                    decoder.flush(out);
+                    if (out.position() > offset) return out.position() - offset;
+                }
+                return -1;
+            }
+        }
+    }
+
+    /**
+     * @return the number of fields of the current line
+     */
+    public int getFieldCount() {
+        return fieldCount;
+    }
+
+    /**
+     * Returns a view of a field of the current line, valid until the next line is read.
+     *
+     * @param index the index of the field
+     * @return the field
+     */
+    public CharSequence getField(int index) {
+        if (index < 0 || index >= fieldCount)
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + fieldCount);
+        if (fieldViews.length < fieldStarts.length) {
+            Field[] views = new Field[fieldStarts.length];
+            System.arraycopy(fieldViews, 0, views, 0, fieldViews.length);
+            for (int i = fieldViews.length; i < views.length; i++) {
+                views[i] = new Field(i);
+            }
+            fieldViews = views;
+        }
+        return fieldViews[index];
+    }
+
+    /**
+     * @param index the index of the field
+     * @return a copy of a field of the current line
+     */
+    public String getString(int index) {
+        return getField(index).toString();
+    }
+
+    /**
+     * @return the fields of the current line as a list of CharSequence,
+     *         the same list instance is returned for every line
+     */
+    public List getFields() {
+        return fields;
+    }
+
+    /**
+     * Passes the fields of every remaining line to the closure, then closes the reader.
+     *
+     * @param closure called with the list of fields of each line
+     * @return the last value returned by the closure
+     * @throws IOException if reading fails
+     */
+    public Object eachLine(Closure closure) throws IOException {
+        Object result = null;
+        try {
+            while (next()) {
+                result = closure.call(fields);
+            }
+        } finally {
+            close();
+        }
+        return result;
+    }
+
+    public void close() throws IOException {
+        window = null;
+        if (reader != null) {
+            reader.close();
+        }
+        if (input != null) {
+            input.close();
+        }
+    }
+
+    private class FieldList extends AbstractList {
+        public Object get(int index) {
+            return getField(index);
+        }
+
+        public int size() {
+            return fieldCount;
+        }
+    }
+
+    private class Field implements CharSequence {
+        private final int index;
+
+        Field(int index) {
+            this.index = index;
+        }
+
+        private int start() {
+            return lineStart + fieldStarts[index];
+        }
+
+        public int length() {
+            return fieldEnds[index] - fieldStarts[index];
+        }
+
+        public char charAt(int i) {
+            if (i < 0 || i >= length()) throw new StringIndexOutOfBoundsException(i);
+            return chars[start() + i];
+        }
+
+        public CharSequence subSequence(int from, int to) {
+            return toString().substring(from, to);
+        }
+
+        public String toString() {
+            return new String(chars, start(), length());
+        }
+
+        public boolean equals(Object obj) {
+            if (!(obj instanceof CharSequence)) return false;
+            final CharSequence other = (CharSequence) obj;
+            final int length = length();
+            if (other.length() != length) return false;
+            final int start = start();
+            for (int i = 0; i < length; i++) {
+                if (chars[start + i] != other.charAt(i)) return false;
+            }
+            return true;
+        }
+
+        public int hashCode() {
+            // same as String
+            int h = 0;
+            final int start = start();
+            final int stop = start + length();
+            for (int i = start; i < stop; i++) {
+                h = 31 * h + chars[i];
+            }
+            return h;
+        }
+    }
+}
@@ -15,8 +15,10 @@
  */
 package groovy.lang;
 
+import java.util.Collections;
 import java.util.LinkedHashMap;
 import java.util.Map;
+import java.util.WeakHashMap;
 
 /**
  * Represents the variable bindings of a script which can be altered
@@ -27,6 +29,8 @@ import java.util.Map;
  * @version $Revision$
  */
 public class Binding extends GroovyObjectSupport {
+    private static final Map GET_VARIABLE_OVERRIDES = Collections.synchronizedMap(new WeakHashMap());
+
     private Map variables;
 
     public Binding() {
@@ -51,18 +55,80 @@ public class Binding extends GroovyObjectSupport {
      * @return the variable value
      */
     public Object getVariable(String name) {
-        if (variables == null)
+        Object result = findVariable(name);
+
+        if (result == MissingPropertyException.MPE) {
             throw new MissingPropertyException(name, this.getClass());
+        }
+
+        return result;
+    }
+
+    /**
+     * Looks up a variable without throwing an exception if it is not bound.
+     * Subclasses overriding {@link #getVariable(String)} should override this
+     * method too, otherwise the lookup falls back to calling getVariable.
+     *
+     * @param name the name of the variable to lookup
+     * @return the variable value or {@link MissingPropertyException#MPE} if there is no such variable
+     */
+    public Object lookupVariable(String name) {
+        if (getClass() != Binding.class && overridesGetVariable(getClass())) {
+            try {
+                return getVariable(name);
+            }
+            catch (MissingPropertyException e) {
+                return MissingPropertyException.MPE;
+            }
+        }
+        return findVariable(name);
+    }
+
+    private Object findVariable(String name) {
+        if (variables == null)
+            return MissingPropertyException.MPE;
 
         Object result = variables.get(name);
 
         if (result == null && !variables.containsKey(name)) {
-            throw new MissingPropertyException(name, this.getClass());
+            return MissingPropertyException.MPE;
         }
 
         return result;
     }
 
+    private static boolean overridesGetVariable(Class type) {
+        Boolean answer = (Boolean) GET_VARIABLE_OVERRIDES.get(type);
+        if (answer == null) {
+            answer = Boolean.FALSE;
+            try {
+                for (Class c = type; c != Binding.class; c = c.getSuperclass()) {
+                    if (declaresMethod(c, "lookupVariable"))
+                        break;
+                    if (declaresMethod(c, "getVariable")) {
+                        answer = Boolean.TRUE;
+                        break;
+                    }
+                }
+            }
+            catch (SecurityException e) {
+                answer = Boolean.TRUE;
+            }
+            GET_VARIABLE_OVERRIDES.put(type, answer);
+        }
+        return answer.booleanValue();
+    }
+
+    private static boolean declaresMethod(Class c, String name) {
+        try {
+            c.getDeclaredMethod(name, new Class[]{String.class});
+            return true;
+        }
+        catch (NoSuchMethodException e) {
+            return false;
+        }
+    }
+
     /**
      * Sets the value of the given variable
      *
@@ -85,7 +151,11 @@ public class Binding extends GroovyObjectSupport {
      * Overloaded to make variables appear as bean properties or via the subscript operator
      */
     public Object getProperty(String property) {
-        /** @todo we should check if we have the property with the metaClass instead of try/catch  */
+        if (getMetaClass().hasProperty(this, property) == null) {
+            Object result = lookupVariable(property);
+            if (result != MissingPropertyException.MPE)
+                return result;
+        }
         try {
             return super.getProperty(property);
         }
@@ -98,7 +168,10 @@ public class Binding extends GroovyObjectSupport {
      * Overloaded to make variables appear as bean properties or via the subscript operator
      */
     public void setProperty(String property, Object newValue) {
-        /** @todo we should check if we have the property with the metaClass instead of try/catch  */
+        if (getMetaClass().hasProperty(this, property) == null) {
+            setVariable(property, newValue);
+            return;
+        }
         try {
             super.setProperty(property, newValue);
         }
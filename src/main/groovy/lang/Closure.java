@@ -19,6 +19,8 @@ import org.codehaus.groovy.reflection.ReflectionCache;
 import org.codehaus.groovy.reflection.stdclasses.CachedClosureClass;
 import org.codehaus.groovy.runtime.CurriedClosure;
 import org.codehaus.groovy.runtime.InvokerHelper;
+import org.codehaus.groovy.runtime.InvokerInvocationException;
+import org.codehaus.groovy.runtime.metaclass.ClosureMetaClass;
 import org.codehaus.groovy.runtime.typehandling.DefaultTypeTransformation;
 
 import java.io.IOException;
@@ -87,6 +89,7 @@ public abstract class Closure extends GroovyObjectSupport implements Cloneable,
 
     public static final int DONE = 1, SKIP = 2;
     private static final Object[] EMPTY_OBJECT_ARRAY = {};
+    private static final Object NO_DIRECT_CALL = new Object();
     
     private Object delegate;
     private Object owner;
@@ -271,11 +274,19 @@ public abstract class Closure extends GroovyObjectSupport implements Cloneable,
      * @return the value if applicable or null if there is no return statement in the closure
      */
     public Object call() {
+        if (isDirectCallable()) {
+            final Object result = callDirect(EMPTY_OBJECT_ARRAY);
+            if (result != NO_DIRECT_CALL) return result;
+        }
         final Object[] NOARGS = EMPTY_OBJECT_ARRAY;
         return call(NOARGS);
     }
     
     public Object call(Object[] args) {
+        if (args != null && args.length <= 2 && isDirectCallable()) {
+            final Object result = callDirect(args);
+            if (result != NO_DIRECT_CALL) return result;
+        }
         try {
             return getMetaClass().invokeMethod(this,"doCall",args);
         } catch (Exception e) {
@@ -290,8 +301,67 @@ public abstract class Closure extends GroovyObjectSupport implements Cloneable,
      * @return the value if applicable or null if there is no return statement in the closure
      */
     public Object call(final Object arguments) {
+        if (isDirectCallable()) {
+            final Object result;
+            try {
+                result = directCall(arguments);
+            } catch (Throwable t) {
+                throw new InvokerInvocationException(t);
+            }
+            if (result != NO_DIRECT_CALL) return result;
+        }
         return call(new Object[]{arguments});
     }
+
+    /**
+     * The direct entry points may only be used if nobody replaced the meta class,
+     * otherwise the call has to go through it so doCall can be intercepted.
+     */
+    private boolean isDirectCallable() {
+        return getMetaClass().getClass() == ClosureMetaClass.class;
+    }
+
+    private Object callDirect(Object[] args) {
+        try {
+            switch (args.length) {
+                case 0:
+                    return directCall();
+                case 1:
+                    return directCall(args[0]);
+                default:
+                    return directCall(args[0], args[1]);
+            }
+        } catch (Throwable t) {
+            // same wrapping as for a doCall invoked through the meta class
+            throw new InvokerInvocationException(t);
+        }
+    }
+
+    /**
+     * Fixed arity entry point into doCall, bypassing meta class dispatch and
+     * the argument array. The compiler overrides these methods for closures
+     * with untyped parameters only, the default implementations return a marker
+     * making the caller fall back to the meta class.
+     *
+     * @return the result of doCall or a marker object if there is no direct entry point
+     */
+    protected Object directCall() {
+        return NO_DIRECT_CALL;
+    }
+
+    /**
+     * @see #directCall()
+     */
+    protected Object directCall(Object argument) {
+        return NO_DIRECT_CALL;
+    }
+
+    /**
+     * @see #directCall()
+     */
+    protected Object directCall(Object argument1, Object argument2) {
+        return NO_DIRECT_CALL;
+    }
     
     protected static Object throwRuntimeException(Throwable throwable) {
         if (throwable instanceof RuntimeException) {
@@ -37,6 +37,10 @@ import java.security.CodeSource;
 import java.security.PrivilegedAction;
 import java.security.ProtectionDomain;
 import java.util.*;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
 
 /**
  * A ClassLoader which can load Groovy classes. The loaded classes are cached,
@@ -59,13 +63,20 @@ public class GroovyClassLoader extends URLClassLoader {
     /**
      * this cache contains the loaded classes or PARSING, if the class is currently parsed
      */
-    protected final Map classCache = new HashMap();
+    protected final Map classCache = new ConcurrentHashMap();
     /**
      * this cache contains mappings of file name to class. It is used
      * to bypass compilation.
      */
-    protected final Map sourceCache = new HashMap();
+    protected final Map sourceCache = new ConcurrentHashMap();
+    /**
+     * compilations of cachable sources currently in progress, mapping the
+     * source name to a FutureTask producing the class. Used to let concurrent
+     * requests for the same source wait for a single compilation.
+     */
+    private final ConcurrentHashMap compilations = new ConcurrentHashMap();
     private final CompilerConfiguration config;
+    private final ClassResolutionCache resolutionCache;
     private Boolean recompile;
     // use 1000000 as offset to avoid conflicts with names form the GroovyShell 
     private static int scriptNameCounter = 1000000;
@@ -115,6 +126,7 @@ public class GroovyClassLoader extends URLClassLoader {
         super(new URL[0], parent);
         if (config == null) config = CompilerConfiguration.DEFAULT;
         this.config = config;
+        this.resolutionCache = new ClassResolutionCache(this, config);
         if (useConfigurationClasspath) {
             for (Iterator it = config.getClasspath().iterator(); it.hasNext();) {
                 String path = (String) it.next();
@@ -135,12 +147,23 @@ public class GroovyClassLoader extends URLClassLoader {
             throw new IllegalArgumentException("Resource loader must not be null!");
         }
         this.resourceLoader = resourceLoader;
+        resolutionCache.setCacheMissingSources(false);
     }
 
     public GroovyResourceLoader getResourceLoader() {
         return resourceLoader;
     }
 
+    /**
+     * Returns the cache used by the compiler to remember the class and script
+     * lookups made through this loader, shared by all compilations using it.
+     *
+     * @return the resolution cache
+     */
+    public ClassResolutionCache getResolutionCache() {
+        return resolutionCache;
+    }
+
     /**
      * Loads the given class node returning the implementation Class
      *
@@ -255,38 +278,171 @@ public class GroovyClassLoader extends URLClassLoader {
     /**
      * Parses the given code source into a Java class. If there is a class file
      * for the given code source, then no parsing is done, instead the cached class is returned.
+     * <p/>
+     * Different sources are compiled in parallel. Concurrent requests for the same
+     * cachable source share a single compilation.
      *
      * @param shouldCacheSource if true then the generated class will be stored in the source cache
      * @return the main class defined in the given script
      */
-    public Class parseClass(GroovyCodeSource codeSource, boolean shouldCacheSource) throws CompilationFailedException {
-        synchronized (sourceCache) {
-            Class answer = (Class) sourceCache.get(codeSource.getName());
+    public Class parseClass(final GroovyCodeSource codeSource, boolean shouldCacheSource) throws CompilationFailedException {
+        final String name = codeSource.getName();
+        Class answer = (Class) sourceCache.get(name);
+        if (answer != null) return answer;
+
+        if (!shouldCacheSource) return doParseClass(codeSource);
+
+        final FutureTask task = new FutureTask(new Callable() {
+            public Object call() {
+                return doParseClass(codeSource);
+            }
+        });
+        final FutureTask running = (FutureTask) compilations.putIfAbsent(name, task);
+        if (running != null) return getCompilationResult(running, name);
+
+        try {
+            // another thread may have finished the same compilation meanwhile
+            answer = (Class) sourceCache.get(name);
             if (answer != null) return answer;
 
-            // Was neither already loaded nor compiling, so compile and add to
-            // cache.
-            CompilationUnit unit = createCompilationUnit(config, codeSource.getCodeSource());
-            SourceUnit su = null;
-            if (codeSource.getFile() == null) {
-                su = unit.addSource(codeSource.getName(), codeSource.getInputStream());
-            } else {
-                su = unit.addSource(codeSource.getFile());
+            task.run();
+            answer = getCompilationResult(task, name);
+            if (answer != null) sourceCache.put(name, answer);
+            return answer;
+        } finally {
+            compilations.remove(name, task);
+        }
+    }
+
+    private Class doParseClass(GroovyCodeSource codeSource) {
+        File cacheDirectory = config.getClassCacheDirectory();
+        // classes written to a target directory have to be generated anyway
+        if (cacheDirectory == null || config.getTargetDirectory() != null || !isPersistentClassCacheUsed()) {
+            return compile(codeSource, null, null, null);
+        }
+
+        byte[] source = readSource(codeSource);
+        if (source == null) return compile(codeSource, null, null, null);
+
+        PersistentClassCache cache = new PersistentClassCache(cacheDirectory);
+        String key = PersistentClassCache.createKey(codeSource.getName(), source, config, getClass().getName(), getURLs());
+        PersistentClassCache.Entry entry = cache.load(key);
+        if (entry != null) {
+            Class answer = defineCachedClasses(codeSource, entry);
+            if (answer != null) return answer;
+            cache.remove(key);
+        }
+        return compile(codeSource, source, cache, key);
+    }
+
+    /**
+     * Indicates if classes are loaded from and stored in the persistent class cache
+     * of the configuration. Subclasses that have to see every compilation can
+     * override this method to return false.
+     *
+     * @return true by default
+     * @see CompilerConfiguration#setClassCacheDirectory(File)
+     */
+    protected boolean isPersistentClassCacheUsed() {
+        return true;
+    }
+
+    /**
+     * compiles the source, storing the generated classes in the persistent
+     * cache if one is given.
+     */
+    private Class compile(GroovyCodeSource codeSource, byte[] source, PersistentClassCache cache, String key) {
+        CompilationUnit unit = createCompilationUnit(config, codeSource.getCodeSource());
+        SourceUnit su = null;
+        if (codeSource.getFile() != null) {
+            su = unit.addSource(codeSource.getFile());
+        } else if (source != null) {
+            // the stream has been consumed while computing the cache key
+            su = unit.addSource(codeSource.getName(), new ByteArrayInputStream(source));
+        } else {
+            su = unit.addSource(codeSource.getName(), codeSource.getInputStream());
+        }
+
+        ClassCollector collector = createCollector(unit, su);
+        unit.setClassgenCallback(collector);
+        int goalPhase = Phases.CLASS_GENERATION;
+        if (config != null && config.getTargetDirectory() != null) goalPhase = Phases.OUTPUT;
+        unit.compile(goalPhase);
+
+        for (Iterator iter = collector.getLoadedClasses().iterator(); iter.hasNext();) {
+            Class clazz = (Class) iter.next();
+            setClassCacheEntry(clazz);
+        }
+
+        // classes compiled from other sources may change independently of this one
+        if (cache != null && collector.generatedClass != null && !collector.hasForeignClasses) {
+            cache.store(key, collector.classNames, collector.classBytes,
+                    collector.classNames.indexOf(collector.generatedClass.getName()));
+        }
+        return collector.generatedClass;
+    }
+
+    private static byte[] readSource(GroovyCodeSource codeSource) {
+        InputStream in = codeSource.getInputStream();
+        if (in == null) return null;
+        try {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            byte[] buffer = new byte[8192];
+            int count;
+            while ((count = in.read(buffer)) != -1) {
+                out.write(buffer, 0, count);
             }
+            return out.toByteArray();
+        } catch (IOException e) {
+            throw new GroovyRuntimeException("Could not read the source of " + codeSource.getName(), e);
+        } finally {
+            try {
+                in.close();
+            } catch (IOException e) {
+                // IGNORE
+            }
+        }
+    }
 
-            ClassCollector collector = createCollector(unit, su);
-            unit.setClassgenCallback(collector);
-            int goalPhase = Phases.CLASS_GENERATION;
-            if (config != null && config.getTargetDirectory() != null) goalPhase = Phases.OUTPUT;
-            unit.compile(goalPhase);
-
-            answer = collector.generatedClass;
-            for (Iterator iter = collector.getLoadedClasses().iterator(); iter.hasNext();) {
-                Class clazz = (Class) iter.next();
-                setClassCacheEntry(clazz);
+    /**
+     * defines the classes of a persistent cache entry in a new InnerLoader,
+     * the same way a compilation would do.
+     *
+     * @return the main class or null if the classes could not be defined
+     */
+    private Class defineCachedClasses(GroovyCodeSource codeSource, PersistentClassCache.Entry entry) {
+        InnerLoader loader = (InnerLoader) AccessController.doPrivileged(new PrivilegedAction() {
+            public Object run() {
+                return new InnerLoader(GroovyClassLoader.this);
             }
-            if (shouldCacheSource) sourceCache.put(codeSource.getName(), answer);
-            return answer;
+        });
+        Class[] classes = new Class[entry.getClassCount()];
+        try {
+            for (int i = 0; i < classes.length; i++) {
+                byte[] code = entry.getCode(i);
+                classes[i] = loader.defineClass(entry.getName(i), code, 0, code.length, codeSource.getCodeSource());
+            }
+        } catch (LinkageError e) {
+            // stale or damaged entry, compile again
+            return null;
+        }
+        for (int i = 0; i < classes.length; i++) {
+            setClassCacheEntry(classes[i]);
+        }
+        return classes[entry.getMainIndex()];
+    }
+
+    private static Class getCompilationResult(FutureTask task, String name) throws CompilationFailedException {
+        try {
+            return (Class) task.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new GroovyRuntimeException("Interrupted while waiting for the compilation of " + name, e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) throw (RuntimeException) cause;
+            if (cause instanceof Error) throw (Error) cause;
+            throw new GroovyRuntimeException("Compilation of " + name + " failed", cause);
         }
     }
 
@@ -345,6 +501,10 @@ public class GroovyClassLoader extends URLClassLoader {
             delegate.clearCache();
         }
 
+        public ClassResolutionCache getResolutionCache() {
+            return delegate.getResolutionCache();
+        }
+
         public URL findResource(String name) {
             return delegate.findResource(name);
         }
@@ -432,6 +592,9 @@ public class GroovyClassLoader extends URLClassLoader {
         private final SourceUnit su;
         private final CompilationUnit unit;
         private final Collection loadedClasses;
+        private final List classNames = new ArrayList();
+        private final List classBytes = new ArrayList();
+        private boolean hasForeignClasses;
 
         protected ClassCollector(InnerLoader cl, CompilationUnit unit, SourceUnit su) {
             this.cl = cl;
@@ -448,11 +611,15 @@ public class GroovyClassLoader extends URLClassLoader {
             GroovyClassLoader cl = getDefiningClassLoader();
             Class theClass = cl.defineClass(classNode.getName(), code, 0, code.length, unit.getAST().getCodeSource());
             this.loadedClasses.add(theClass);
+            this.classNames.add(theClass.getName());
+            this.classBytes.add(code);
+
+            ModuleNode mn = classNode.getModule();
+            SourceUnit msu = null;
+            if (mn != null) msu = mn.getContext();
+            if (msu != su) hasForeignClasses = true;
 
             if (generatedClass == null) {
-                ModuleNode mn = classNode.getModule();
-                SourceUnit msu = null;
-                if (mn != null) msu = mn.getContext();
                 ClassNode main = null;
                 if (mn != null) main = (ClassNode) mn.getClasses().get(0);
                 if (msu == su && main == classNode) generatedClass = theClass;
@@ -507,9 +674,7 @@ public class GroovyClassLoader extends URLClassLoader {
      */
     protected Class getClassCacheEntry(String name) {
         if (name == null) return null;
-        synchronized (classCache) {
-            return (Class) classCache.get(name);
-        }
+        return (Class) classCache.get(name);
     }
 
     /**
@@ -521,9 +686,8 @@ public class GroovyClassLoader extends URLClassLoader {
      * @see #clearCache()
      */
     protected void setClassCacheEntry(Class cls) {
-        synchronized (classCache) {
-            classCache.put(cls.getName(), cls);
-        }
+        classCache.put(cls.getName(), cls);
+        resolutionCache.remove(cls.getName());
     }
 
     /**
@@ -535,9 +699,8 @@ public class GroovyClassLoader extends URLClassLoader {
      * @see #clearCache()
      */
     protected void removeClassCacheEntry(String name) {
-        synchronized (classCache) {
-            classCache.remove(name);
-        }
+        classCache.remove(name);
+        resolutionCache.remove(name);
     }
 
     /**
@@ -547,6 +710,7 @@ public class GroovyClassLoader extends URLClassLoader {
      */
     public void addURL(URL url) {
         super.addURL(url);
+        resolutionCache.removeMissing();
     }
 
     /**
@@ -653,8 +817,9 @@ public class GroovyClassLoader extends URLClassLoader {
         // at this point the loading from a parent loader failed
         // and we want to recompile if needed.
         if (lookupScriptFiles) {
-            // synchronize on sourceCache, as we want only one 
-            // compilation at the same time
+            // synchronize on sourceCache, as we want only one
+            // lookup compilation at the same time; parseClass itself
+            // does not take this lock
             synchronized (sourceCache) {
                 // try groovy file
                 try {
@@ -843,10 +1008,8 @@ public class GroovyClassLoader extends URLClassLoader {
      * @return all classes loaded by this class loader
      */
     public Class[] getLoadedClasses() {
-        synchronized (classCache) {
-            final Collection values = classCache.values();
-            return (Class[]) values.toArray(new Class[values.size()]);
-        }
+        final Collection values = classCache.values();
+        return (Class[]) values.toArray(new Class[0]);
     }
 
     /**
@@ -857,11 +1020,8 @@ public class GroovyClassLoader extends URLClassLoader {
      * @see #removeClassCacheEntry(String)
      */
     public void clearCache() {
-        synchronized (classCache) {
-            classCache.clear();
-        }
-        synchronized (sourceCache) {
-            sourceCache.clear();
-        }
+        classCache.clear();
+        sourceCache.clear();
+        resolutionCache.clear();
     }
 }
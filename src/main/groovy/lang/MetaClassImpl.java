@@ -1102,8 +1102,8 @@ public class MetaClassImpl implements MetaClass, MutableMetaClass {
         }
 
         if(object instanceof Script) {
-        	Object bindingVar = ((Script)object).getBinding().getVariables().get(methodName);
-        	if(bindingVar != null) {
+        	Object bindingVar = ((Script)object).getBinding().lookupVariable(methodName);
+        	if(bindingVar != null && bindingVar != MissingPropertyException.MPE) {
         		MetaClass bindingVarMC = ((MetaClassRegistryImpl)registry).getMetaClass(bindingVar);
         		return bindingVarMC.invokeMethod(bindingVar, CLOSURE_CALL_METHOD, originalArguments);
         	}
@@ -1164,7 +1164,7 @@ public class MetaClassImpl implements MetaClass, MutableMetaClass {
 
     // This method should be called by CallSite only
     private MetaMethod getMethodWithCachingInternal (Class sender, CallSite site, Class [] params) {
-        if (site.getUsage ().get() != 0 && GroovyCategorySupport.hasCategoryInCurrentThread())
+        if (GroovyCategorySupport.isCategoryInUse(site.getUsage()))
             return getMethodWithoutCaching(sender, site.getName (), params, false);
 
         final MetaMethodIndex.Entry e = metaMethodIndex.getMethods(sender, site.getName());
@@ -1172,72 +1172,65 @@ public class MetaClassImpl implements MetaClass, MutableMetaClass {
             return null;
         }
 
-        MetaMethodIndex.CacheEntry cacheEntry;
         final Object methods = e.methods;
         if (methods == null)
           return null;
 
-        cacheEntry = e.cachedMethod;
-        if (cacheEntry != null
-           && (sameClasses(cacheEntry.params, params, methods instanceof MetaMethod))) {
-             return cacheEntry.method;
+        final boolean single = methods instanceof MetaMethod;
+        for (MetaMethodIndex.CacheEntry cacheEntry = e.cachedMethod; cacheEntry != null; cacheEntry = cacheEntry.next) {
+            if (sameClasses(cacheEntry.params, params, single))
+              return cacheEntry.method;
         }
 
-        cacheEntry = new MetaMethodIndex.CacheEntry ();
-        cacheEntry.params = params;
-        cacheEntry.method = (MetaMethod) chooseMethod(e.name, methods, params);
-        e.cachedMethod = cacheEntry;
-        return cacheEntry.method;
+        final MetaMethod method = (MetaMethod) chooseMethod(e.name, methods, params);
+        e.cachedMethod = MetaMethodIndex.CacheEntry.prepend(e.cachedMethod, params, method);
+        return method;
     }
 
     private MetaMethod getSuperMethodWithCaching(Object[] arguments, MetaMethodIndex.Entry e) {
-        MetaMethodIndex.CacheEntry cacheEntry;
         if (e.methodsForSuper == null)
           return null;
 
-        cacheEntry = e.cachedMethodForSuper;
-        
-        if (cacheEntry != null &&
-            MetaClassHelper.sameClasses(cacheEntry.params, arguments, e.methodsForSuper instanceof MetaMethod))
-        {
-            MetaMethod method = cacheEntry.method;
-            if (method!=null) return method;
-        }
+        final MetaMethod cached = findCachedMethod(e.cachedMethodForSuper, arguments, e.methodsForSuper instanceof MetaMethod);
+        if (cached != null)
+          return cached;
 
-        cacheEntry = new MetaMethodIndex.CacheEntry ();
         final Class[] classes = MetaClassHelper.convertToTypeArray(arguments);
-        cacheEntry.params = classes;
-        cacheEntry.method = (MetaMethod) chooseMethod(e.name, e.methodsForSuper, classes);
-        if (cacheEntry.method.isAbstract()) cacheEntry.method = null;
+        MetaMethod method = (MetaMethod) chooseMethod(e.name, e.methodsForSuper, classes);
+        if (method.isAbstract()) method = null;
 
-        e.cachedMethodForSuper = cacheEntry;
+        if (method != null)
+          e.cachedMethodForSuper = MetaMethodIndex.CacheEntry.prepend(e.cachedMethodForSuper, classes, method);
 
-        return cacheEntry.method;
+        return method;
     }
 
     private MetaMethod getNormalMethodWithCaching(Object[] arguments, MetaMethodIndex.Entry e) {
-        MetaMethodIndex.CacheEntry cacheEntry;
         final Object methods = e.methods;
         if (methods == null)
           return null;
 
-        cacheEntry = e.cachedMethod;
+        final MetaMethod cached = findCachedMethod(e.cachedMethod, arguments, methods instanceof MetaMethod);
+        if (cached != null)
+          return cached;
 
-        if (cacheEntry != null &&
-            MetaClassHelper.sameClasses(cacheEntry.params, arguments, methods instanceof MetaMethod))
-        {
-            MetaMethod method = cacheEntry.method;
-            if (method!=null) return method;
-        }
-
-        cacheEntry = new MetaMethodIndex.CacheEntry ();
         final Class[] classes = MetaClassHelper.convertToTypeArray(arguments);
-        cacheEntry.params = classes;
-        cacheEntry.method = (MetaMethod) chooseMethod(e.name, methods, classes);
-        
-        e.cachedMethod = cacheEntry;
-        
-        return cacheEntry.method;
+        final MetaMethod method = (MetaMethod) chooseMethod(e.name, methods, classes);
+
+        if (method != null)
+          e.cachedMethod = MetaMethodIndex.CacheEntry.prepend(e.cachedMethod, classes, method);
+
+        return method;
+    }
+
+    private static MetaMethod findCachedMethod(MetaMethodIndex.CacheEntry cacheEntry, Object[] arguments, boolean single) {
+        for (; cacheEntry != null; cacheEntry = cacheEntry.next) {
+            if (MetaClassHelper.sameClasses(cacheEntry.params, arguments, single)) {
+                MetaMethod method = cacheEntry.method;
+                if (method != null) return method;
+            }
+        }
+        return null;
     }
 
     public Constructor retrieveConstructor(Class[] arguments) {
@@ -1254,24 +1247,19 @@ public class MetaClassImpl implements MetaClass, MutableMetaClass {
 
     public MetaMethod retrieveStaticMethod(String methodName, Object[] arguments) {
         final MetaMethodIndex.Entry e = metaMethodIndex.getMethods(theClass, methodName);
-        MetaMethodIndex.CacheEntry cacheEntry;
         if (e != null) {
-            cacheEntry = e.cachedStaticMethod;
-
-            if (cacheEntry != null &&
-                MetaClassHelper.sameClasses(cacheEntry.params, arguments, e.staticMethods instanceof MetaMethod))
-            {
-                 return cacheEntry.method;
+            final boolean single = e.staticMethods instanceof MetaMethod;
+            for (MetaMethodIndex.CacheEntry cacheEntry = e.cachedStaticMethod; cacheEntry != null; cacheEntry = cacheEntry.next) {
+                if (MetaClassHelper.sameClasses(cacheEntry.params, arguments, single))
+                  return cacheEntry.method;
             }
 
-            cacheEntry = new MetaMethodIndex.CacheEntry ();
             final Class[] classes = MetaClassHelper.convertToTypeArray(arguments);
-            cacheEntry.params = classes;
-            cacheEntry.method = pickStaticMethod(methodName, classes);
-            
-            e.cachedStaticMethod = cacheEntry;
-            
-            return cacheEntry.method;
+            final MetaMethod method = pickStaticMethod(methodName, classes);
+
+            e.cachedStaticMethod = MetaMethodIndex.CacheEntry.prepend(e.cachedStaticMethod, classes, method);
+
+            return method;
         }
         else
           return pickStaticMethod(methodName, MetaClassHelper.convertToTypeArray(arguments));
@@ -1787,6 +1775,60 @@ public class MetaClassImpl implements MetaClass, MutableMetaClass {
 
 
 
+    /**
+     * Returns the meta property a call site may cache to set the property
+     * <code>name</code> on <code>object</code>, or null if setting the property
+     * needs the full logic of {@link #setProperty(Class, Object, String, Object, boolean, boolean)}.
+     * Values passed to the returned property must already be unwrapped.
+     */
+    public MetaProperty getEffectiveSetMetaProperty(final Class sender, final Object object, final String name) {
+        if (theClass != Class.class && object instanceof Class)
+            return null;
+
+        checkInitalised();
+
+        //----------------------------------------------------------------------
+        // turn setProperty on a Map to put on the Map itself
+        //----------------------------------------------------------------------
+        if (this.isMap) {
+            return new MetaProperty(name, Object.class) {
+                public Object getProperty(Object object) {
+                    throw new UnsupportedOperationException();
+                }
+
+                public void setProperty(Object object, Object newValue) {
+                    ((Map) object).put(name, newValue);
+                }
+            };
+        }
+
+        //----------------------------------------------------------------------
+        // setter
+        //----------------------------------------------------------------------
+        MetaProperty mp = getMetaProperty(sender, name, false, false);
+        if (mp == null)
+            return null;
+
+        MetaProperty field;
+        if (mp instanceof MetaBeanProperty) {
+            MetaBeanProperty mbp = (MetaBeanProperty) mp;
+            MetaMethod setter = mbp.getSetter();
+            if (setter != null)
+                return new SetBeanMethodMetaProperty(name, setter);
+            field = mbp.getField();
+        } else {
+            field = mp;
+        }
+
+        //----------------------------------------------------------------------
+        // field, unless a listener may take over
+        //----------------------------------------------------------------------
+        if (field == null || Modifier.isFinal(field.getModifiers()) || listeners.get(name) != null)
+            return null;
+
+        return field;
+    }
+
     private MetaMethod getCategoryMethodGetter(Class sender, String name, boolean useLongVersion) {
         List possibleGenericMethods = GroovyCategorySupport.getCategoryMethods(name);
         if (possibleGenericMethods != null) {
@@ -3002,7 +3044,7 @@ public class MetaClassImpl implements MetaClass, MutableMetaClass {
     }
 
     public CallSite createPogoCallSite(CallSite site, Object[] args) {
-        if (site.getUsage().get() == 0 && !(this instanceof AdaptingMetaClass)) {
+        if (!GroovyCategorySupport.isCategoryInUse(site.getUsage()) && !(this instanceof AdaptingMetaClass)) {
             Class [] params = MetaClassHelper.convertToTypeArray(args);
             MetaMethod metaMethod = getMethodWithCachingInternal(theClass, site, params);
             if (metaMethod != null)
@@ -3012,7 +3054,7 @@ public class MetaClassImpl implements MetaClass, MutableMetaClass {
     }
 
     public CallSite createPogoCallCurrentSite(CallSite site, Class sender, Object[] args) {
-        if (site.getUsage().get() == 0 && !(this instanceof AdaptingMetaClass)) {
+        if (!GroovyCategorySupport.isCategoryInUse(site.getUsage()) && !(this instanceof AdaptingMetaClass)) {
           Class [] params = MetaClassHelper.convertToTypeArray(args);
           MetaMethod metaMethod = getMethodWithCachingInternal(sender, site, params);
           if (metaMethod != null)
@@ -3443,6 +3485,25 @@ public class MetaClassImpl implements MetaClass, MutableMetaClass {
         }
     }
 
+    private static class SetBeanMethodMetaProperty extends MetaProperty {
+        private final MetaMethod theMethod;
+        private final Class paramType;
+
+        public SetBeanMethodMetaProperty(String name, MetaMethod theMethod) {
+            super(name, Object.class);
+            this.theMethod = theMethod;
+            this.paramType = theMethod.getParameterTypes()[0].getTheClass();
+        }
+
+        public Object getProperty(Object object) {
+            throw new UnsupportedOperationException();
+        }
+
+        public void setProperty(Object object, Object newValue) {
+            theMethod.doMethodInvoke(object, new Object[]{DefaultTypeTransformation.castToType(newValue, paramType)});
+        }
+    }
+
     private static class GetBeanMethodMetaProperty extends MetaProperty {
         private final MetaMethod theMethod;
 
@@ -50,11 +50,10 @@ public abstract class Script extends GroovyObjectSupport {
     }
 
     public Object getProperty(String property) {
-        try {
-            return binding.getVariable(property);
-        } catch (MissingPropertyException e) {
-            return super.getProperty(property);
-        }
+        Object value = binding.lookupVariable(property);
+        if (value != MissingPropertyException.MPE)
+            return value;
+        return super.getProperty(property);
     }
 
     public void setProperty(String property, Object newValue) {
@@ -80,20 +79,13 @@ public abstract class Script extends GroovyObjectSupport {
         // if the method was not found in the current scope (the script's methods)
         // let's try to see if there's a method closure with the same name in the binding
         catch (MissingMethodException mme) {
-            try {
-                if (name.equals(mme.getMethod())) {
-                    Object boundClosure = binding.getVariable(name);
-                    if (boundClosure != null && boundClosure instanceof Closure) {
-                        return ((Closure) boundClosure).call((Object[])args);
-                    } else {
-                        throw mme;
-                    }
-                } else {
-                    throw mme;
+            if (name.equals(mme.getMethod())) {
+                Object boundClosure = binding.lookupVariable(name);
+                if (boundClosure instanceof Closure) {
+                    return ((Closure) boundClosure).call((Object[])args);
                 }
-            } catch (MissingPropertyException mpe) {
-                throw mme;
             }
+            throw mme;
         }
     }
 
@@ -111,11 +103,8 @@ public abstract class Script extends GroovyObjectSupport {
      * If there is no 'out' property then print to standard out.
      */
     public void println() {
-        Object object;
-
-        try {
-            object = getProperty("out");
-        } catch (MissingPropertyException e) {
+        Object object = lookupOut();
+        if (object == MissingPropertyException.MPE) {
             System.out.println();
             return;
         }
@@ -129,11 +118,8 @@ public abstract class Script extends GroovyObjectSupport {
      * If there is no 'out' property then print to standard out.
      */
     public void print(Object value) {
-        Object object;
-
-        try {
-            object = getProperty("out");
-        } catch (MissingPropertyException e) {
+        Object object = lookupOut();
+        if (object == MissingPropertyException.MPE) {
             DefaultGroovyMethods.print(System.out,value);
             return;
         }
@@ -147,11 +133,8 @@ public abstract class Script extends GroovyObjectSupport {
      * If there is no 'out' property then print to standard out.
      */
     public void println(Object value) {
-        Object object;
-
-        try {
-            object = getProperty("out");
-        } catch (MissingPropertyException e) {
+        Object object = lookupOut();
+        if (object == MissingPropertyException.MPE) {
             DefaultGroovyMethods.println(System.out,value);
             return;
         }
@@ -159,6 +142,16 @@ public abstract class Script extends GroovyObjectSupport {
         InvokerHelper.invokeMethod(object, "println", new Object[]{value});
     }
 
+    /**
+     * @return the 'out' variable or property, or MissingPropertyException.MPE if there is none
+     */
+    private Object lookupOut() {
+        Object object = binding.lookupVariable("out");
+        if (object == MissingPropertyException.MPE && getMetaClass().hasProperty(this, "out") != null)
+            object = getProperty("out");
+        return object;
+    }
+
     /**
      * A helper method to allow the dynamic evaluation of groovy expressions using this
      * scripts binding as the variable scope
@@ -266,6 +266,16 @@ public class ServletBinding extends Binding {
         return super.getVariable(name);
     }
 
+    /**
+     * @return the variable or MissingPropertyException.MPE if there is no such variable
+     */
+    @Override
+    public Object lookupVariable(String name) {
+        lazyInit();
+        validateArgs(name, "No variable with");
+        return super.lookupVariable(name);
+    }
+
     private void lazyInit() {
         if (initialized) return;
         initialized = true;
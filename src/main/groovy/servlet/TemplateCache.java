@@ -0,0 +1,236 @@
+/*
+ * Copyright 2003-2009 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package groovy.servlet;
+
+import groovy.text.Template;
+import groovy.text.TemplateEngine;
+
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Cache of compiled templates keyed by the absolute path of the template file.
+ * <p/>
+ * The cache holds at most <code>maxSize</code> templates and evicts the least
+ * recently used ones beyond that. Concurrent requests for a template that is not
+ * cached wait for a single compilation. Files are checked for changes of their
+ * last modified stamp and length at most once per revalidation interval.
+ */
+public class TemplateCache implements TemplateCacheMBean {
+
+    private static class Entry {
+        final FutureTask task;
+        final long lastModified;
+        final long length;
+        volatile long checked;
+
+        Entry(FutureTask task, long lastModified, long length, long checked) {
+            this.task = task;
+            this.lastModified = lastModified;
+            this.length = length;
+            this.checked = checked;
+        }
+    }
+
+    private final int maxSize;
+    private final long revalidationInterval;
+    private final Map entries;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong compilations = new AtomicLong();
+    private final AtomicLong failures = new AtomicLong();
+    private final AtomicLong compileMillis = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    /**
+     * @param maxSize              the maximum number of templates, 0 for no limit
+     * @param revalidationInterval the minimum time between two checks of a template file
+     *                             in milliseconds, 0 checks on every request and a
+     *                             negative value never checks again
+     */
+    public TemplateCache(final int maxSize, long revalidationInterval) {
+        this.maxSize = maxSize;
+        this.revalidationInterval = revalidationInterval;
+        this.entries = new LinkedHashMap(16, 0.75f, true) {
+            protected boolean removeEldestEntry(Map.Entry eldest) {
+                if (maxSize > 0 && size() > maxSize) {
+                    evictions.incrementAndGet();
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * Returns the compiled template for the file, compiling it with the engine
+     * if it is not cached or has changed.
+     *
+     * @throws Exception if the template could not be compiled
+     */
+    public Template getTemplate(final File file, final TemplateEngine engine) throws Exception {
+        String key = file.getAbsolutePath();
+        long now = System.currentTimeMillis();
+
+        Entry entry;
+        synchronized (entries) {
+            entry = (Entry) entries.get(key);
+        }
+        if (entry != null && isValid(entry, file, now)) {
+            hits.incrementAndGet();
+            return await(key, entry);
+        }
+
+        FutureTask task = new FutureTask(new Callable() {
+            public Object call() throws Exception {
+                return compile(file, engine);
+            }
+        });
+        Entry created = new Entry(task, file.lastModified(), file.length(), now);
+        Entry current;
+        synchronized (entries) {
+            current = (Entry) entries.get(key);
+            // the stale entry may have been evicted or removed meanwhile
+            if (current == null || current == entry) {
+                entries.put(key, created);
+                current = created;
+            }
+        }
+        if (current != created) {
+            // another request replaced the entry meanwhile
+            hits.incrementAndGet();
+            return await(key, current);
+        }
+
+        misses.incrementAndGet();
+        long start = System.currentTimeMillis();
+        task.run();
+        compileMillis.addAndGet(System.currentTimeMillis() - start);
+        compilations.incrementAndGet();
+        return await(key, created);
+    }
+
+    private boolean isValid(Entry entry, File file, long now) {
+        // compilations in progress use the current file
+        if (!entry.task.isDone()) return true;
+        if (revalidationInterval < 0 || now - entry.checked < revalidationInterval) return true;
+        if (file.lastModified() != entry.lastModified || file.length() != entry.length) return false;
+        entry.checked = now;
+        return true;
+    }
+
+    private Template await(String key, Entry entry) throws Exception {
+        try {
+            return (Template) entry.task.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw e;
+        } catch (ExecutionException e) {
+            // do not keep failures, the next request compiles again
+            synchronized (entries) {
+                if (entries.get(key) == entry) entries.remove(key);
+            }
+            Throwable cause = e.getCause();
+            if (cause instanceof Exception) throw (Exception) cause;
+            if (cause instanceof Error) throw (Error) cause;
+            throw e;
+        }
+    }
+
+    private Template compile(File file, TemplateEngine engine) throws Exception {
+        FileReader reader = new FileReader(file);
+        try {
+            return engine.createTemplate(reader);
+        } catch (Exception e) {
+            failures.incrementAndGet();
+            throw e;
+        } finally {
+            try {
+                reader.close();
+            } catch (IOException ignore) {
+                // IGNORE
+            }
+        }
+    }
+
+    public long getHitCount() {
+        return hits.get();
+    }
+
+    public long getMissCount() {
+        return misses.get();
+    }
+
+    public long getCompileCount() {
+        return compilations.get();
+    }
+
+    public long getCompileFailureCount() {
+        return failures.get();
+    }
+
+    public long getTotalCompileTime() {
+        return compileMillis.get();
+    }
+
+    public long getEvictionCount() {
+        return evictions.get();
+    }
+
+    public int getSize() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    public long getRevalidationInterval() {
+        return revalidationInterval;
+    }
+
+    /**
+     * Removes the template of the file, for example after it has been reported to be changed.
+     *
+     * @param file the template file
+     */
+    public void remove(File file) {
+        synchronized (entries) {
+            entries.remove(file.getAbsolutePath());
+        }
+    }
+
+    public void clear() {
+        synchronized (entries) {
+            entries.clear();
+        }
+    }
+
+    public String toString() {
+        return "TemplateCache[size=" + getSize() + ", hits=" + getHitCount() + ", misses=" + getMissCount()
+                + ", compilations=" + getCompileCount() + ", compileTime=" + getTotalCompileTime() + " ms]";
+    }
+}
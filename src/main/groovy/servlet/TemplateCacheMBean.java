@@ -0,0 +1,65 @@
+/*
+ * Copyright 2003-2009 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package groovy.servlet;
+
+/**
+ * Management interface of the {@link TemplateCache} used by the {@link TemplateServlet}.
+ * The servlet registers its cache under the name given by the init parameter
+ * <code>cache.jmx.name</code>.
+ */
+public interface TemplateCacheMBean {
+
+    /**
+     * @return the number of requests served by an already compiled template
+     */
+    long getHitCount();
+
+    /**
+     * @return the number of requests for which the template had to be compiled
+     */
+    long getMissCount();
+
+    /**
+     * @return the number of compilations, failed ones included
+     */
+    long getCompileCount();
+
+    /**
+     * @return the number of failed compilations
+     */
+    long getCompileFailureCount();
+
+    /**
+     * @return the time spent compiling templates in milliseconds
+     */
+    long getTotalCompileTime();
+
+    /**
+     * @return the number of templates removed because the cache was full
+     */
+    long getEvictionCount();
+
+    int getSize();
+
+    int getMaxSize();
+
+    long getRevalidationInterval();
+
+    /**
+     * Removes all templates, they are compiled again on their next request.
+     */
+    void clear();
+}
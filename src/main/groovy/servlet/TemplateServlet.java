@@ -18,14 +18,16 @@ package groovy.servlet;
 import groovy.text.SimpleTemplateEngine;
 import groovy.text.Template;
 import groovy.text.TemplateEngine;
+import groovy.util.FileResourceConnector;
+import groovy.util.ResourceChangeListener;
 
 import java.io.File;
-import java.io.FileReader;
 import java.io.IOException;
 import java.io.Writer;
-import java.util.Date;
-import java.util.Map;
-import java.util.WeakHashMap;
+import java.lang.management.ManagementFactory;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
 
 import javax.servlet.ServletConfig;
 import javax.servlet.ServletException;
@@ -88,6 +90,20 @@ import javax.servlet.http.HttpServletResponse;
  * <pre>
  *   generate.by = true(default) | false
  * </pre>
+ *
+ * <h4>Template cache options</h4>
+ *
+ * <p>
+ * Compiled templates are kept in a {@link TemplateCache}. The init parameters are:
+ * <pre>
+ *   cache.size = 0(default, unbounded) | maximum number of templates
+ *   cache.revalidation.interval = 0(default, every request) | milliseconds | -1(never)
+ *   cache.watch.interval = 0(default, not watched) | milliseconds
+ *   cache.jmx.name = [empty, not registered] | JMX object name for the cache statistics
+ * </pre>
+ * When the template files are watched, a background thread checks them once per
+ * watch interval and removes changed templates from the cache. Requests do not
+ * check the files in this case, unless a revalidation interval is given as well.
  * 
  * @see TemplateServlet#setVariables(ServletBinding)
  * 
@@ -98,75 +114,19 @@ import javax.servlet.http.HttpServletResponse;
 public class TemplateServlet extends AbstractHttpServlet {
 
     /**
-     * Simple cache entry that validates against last modified and length
-     * attributes of the specified file. 
-     *
-     * @author Christian Stein
+     * File name to template cache, created by init().
      */
-    private static class TemplateCacheEntry {
-
-        Date date;
-        long hit;
-        long lastModified;
-        long length;
-        Template template;
-
-        public TemplateCacheEntry(File file, Template template) {
-            this(file, template, false); // don't get time millis for sake of speed
-        }
-
-        public TemplateCacheEntry(File file, Template template, boolean timestamp) {
-            if (file == null) {
-                throw new NullPointerException("file");
-            }
-            if (template == null) {
-                throw new NullPointerException("template");
-            }
-            if (timestamp) {
-                this.date = new Date(System.currentTimeMillis());
-            } else {
-                this.date = null;
-            }
-            this.hit = 0;
-            this.lastModified = file.lastModified();
-            this.length = file.length();
-            this.template = template;
-        }
-
-        /**
-         * Checks the passed file attributes against those cached ones. 
-         *
-         * @param file
-         *  Other file handle to compare to the cached values.
-         * @return <code>true</code> if all measured values match, else <code>false</code>
-         */
-        public boolean validate(File file) {
-            if (file == null) {
-                throw new NullPointerException("file");
-            }
-            if (file.lastModified() != this.lastModified) {
-                return false;
-            }
-            if (file.length() != this.length) {
-                return false;
-            }
-            hit++;
-            return true;
-        }
-
-        public String toString() {
-            if (date == null) {
-                return "Hit #" + hit;
-            }
-            return "Hit #" + hit + " since " + date;
-        }
+    private TemplateCache cache;
 
-    }
+    /**
+     * Name the cache is registered with at the platform MBean server, if any.
+     */
+    private ObjectName cacheObjectName;
 
     /**
-     * Simple file name to template cache map.
+     * Watches the cached template files, if enabled.
      */
-    private final Map cache;
+    private FileResourceConnector watcher;
 
     /**
      * Underlying template engine used to evaluate template source files.
@@ -182,7 +142,7 @@ public class TemplateServlet extends AbstractHttpServlet {
      * Create new TemplateSerlvet.
      */
     public TemplateServlet() {
-        this.cache = new WeakHashMap();
+        this.cache = null; // assigned later by init()
         this.engine = null; // assigned later by init()
         this.generateBy = true; // may be changed by init()
     }
@@ -191,13 +151,13 @@ public class TemplateServlet extends AbstractHttpServlet {
      * Gets the template created by the underlying engine parsing the request.
      * 
      * <p>
-     * This method looks up a simple (weak) hash map for an existing template
+     * This method looks up the template cache for an existing template
      * object that matches the source file. If the source file didn't change in
      * length and its last modified stamp hasn't changed compared to a precompiled
-     * template object, this template is used. Otherwise, there is no or an
-     * invalid template object cache entry, a new one is created by the underlying
-     * template engine. This new instance is put to the cache for consecutive
-     * calls.
+     * template object, this template is used. The file is checked at most once
+     * per revalidation interval. Otherwise, a new template is created by the
+     * underlying template engine and put to the cache for consecutive calls.
+     * Concurrent requests for the same file share one compilation.
      * </p>
      * 
      * @return The template that will produce the response text.
@@ -207,60 +167,21 @@ public class TemplateServlet extends AbstractHttpServlet {
      *            If the request specified an invalid template source file 
      */
     protected Template getTemplate(File file) throws ServletException {
-
-        String key = file.getAbsolutePath();
-        Template template = null;
-
-        /*
-         * Test cache for a valid template bound to the key.
-         */
         if (verbose) {
-            log("Looking for cached template by key \"" + key + "\"");
+            log("Looking for cached template by key \"" + file.getAbsolutePath() + "\"");
         }
-        TemplateCacheEntry entry = (TemplateCacheEntry) cache.get(key);
-        if (entry != null) {
-            if (entry.validate(file)) {
-                if (verbose) {
-                    log("Cache hit! " + entry);
-                }
-                template = entry.template;
-            } else {
-                if (verbose) {
-                    log("Cached template needs recompiliation!");
-                }
-            }
-        } else {
-            if (verbose) {
-                log("Cache miss.");
-            }
+        if (watcher != null) {
+            // record the state of the file before it is compiled
+            watcher.watch(file.getAbsolutePath(), file);
         }
-
-        //
-        // Template not cached or the source file changed - compile new template!
-        //
-        if (template == null) {
-            if (verbose) {
-                log("Creating new template from file " + file + "...");
-            }
-            FileReader reader = null;
-            try {
-                reader = new FileReader(file);
-                template = engine.createTemplate(reader);
-            } catch (Exception e) {
-                throw new ServletException("Creation of template failed: " + e, e);
-            } finally {
-                if (reader != null) {
-                    try {
-                        reader.close();
-                    } catch (IOException ignore) {
-                        // e.printStackTrace();
-                    }
-                }
-            }
-            cache.put(key, new TemplateCacheEntry(file, template, verbose));
-            if (verbose) {
-                log("Created and added template to cache. [key=" + key + "]");
-            }
+        Template template;
+        try {
+            template = cache.getTemplate(file, engine);
+        } catch (Exception e) {
+            throw new ServletException("Creation of template failed: " + e, e);
+        }
+        if (verbose) {
+            log("Got template. " + cache);
         }
 
         //
@@ -282,6 +203,21 @@ public class TemplateServlet extends AbstractHttpServlet {
      * <li> <tt>"generatedBy"</tt> : boolean, appends "Generated by ..." to the
      *     HTML response text generated by this servlet.
      *     </li>
+     * <li> <tt>"cache.size"</tt> : int, maximum number of cached templates,
+     *     0 (default) for no limit.
+     *     </li>
+     * <li> <tt>"cache.revalidation.interval"</tt> : long, minimum time in
+     *     milliseconds between two checks of a template file for changes,
+     *     0 (default) checks on every request, -1 never.
+     *     Defaults to -1 if the files are watched.
+     *     </li>
+     * <li> <tt>"cache.watch.interval"</tt> : long, time in milliseconds between
+     *     two checks of the cached template files by a background thread,
+     *     0 (default) does not watch the files.
+     *     </li>
+     * <li> <tt>"cache.jmx.name"</tt> : object name to register the cache
+     *     statistics with at the platform MBean server, not registered by default.
+     *     </li>
      * </ul>
      * @param config
      *  Passed by the servlet container.
@@ -300,9 +236,73 @@ public class TemplateServlet extends AbstractHttpServlet {
         if (value != null) {
             this.generateBy = Boolean.valueOf(value).booleanValue();
         }
+        long watchInterval = getNumericInitParameter(config, "cache.watch.interval", 0);
+        this.cache = new TemplateCache(
+                (int) getNumericInitParameter(config, "cache.size", 0),
+                getNumericInitParameter(config, "cache.revalidation.interval", watchInterval > 0 ? -1 : 0));
+        if (watchInterval > 0) {
+            this.watcher = new FileResourceConnector(new File[0], watchInterval);
+            watcher.addResourceChangeListener(new ResourceChangeListener() {
+                public void resourceChanged(String name) {
+                    cache.remove(new File(name));
+                }
+            });
+        }
+        value = config.getInitParameter("cache.jmx.name");
+        if (value != null) {
+            registerCache(value);
+        }
         log("Servlet " + getClass().getName() + " initialized on " + engine.getClass());
     }
 
+    private static long getNumericInitParameter(ServletConfig config, String name, long defaultValue) throws ServletException {
+        String value = config.getInitParameter(name);
+        if (value == null) {
+            return defaultValue;
+        }
+        try {
+            return Long.parseLong(value.trim());
+        } catch (NumberFormatException e) {
+            throw new ServletException("Init parameter " + name + " is not a number: " + value);
+        }
+    }
+
+    private void registerCache(String name) throws ServletException {
+        try {
+            ObjectName objectName = new ObjectName(name);
+            ManagementFactory.getPlatformMBeanServer().registerMBean(cache, objectName);
+            this.cacheObjectName = objectName;
+        } catch (JMException e) {
+            throw new ServletException("Could not register template cache as " + name, e);
+        }
+    }
+
+    /**
+     * Stops watching the template files and unregisters the template cache MBean, if any.
+     */
+    public void destroy() {
+        if (watcher != null) {
+            watcher.close();
+            watcher = null;
+        }
+        if (cacheObjectName != null) {
+            try {
+                ManagementFactory.getPlatformMBeanServer().unregisterMBean(cacheObjectName);
+            } catch (JMException e) {
+                log("Could not unregister template cache " + cacheObjectName, e);
+            }
+            cacheObjectName = null;
+        }
+        super.destroy();
+    }
+
+    /**
+     * @return the template cache of this servlet, null before init()
+     */
+    public TemplateCache getTemplateCache() {
+        return cache;
+    }
+
     /**
      * Creates the template engine.
      * 
@@ -0,0 +1,123 @@
+/*
+ * Copyright 2003-2009 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package groovy.sql;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.logging.Logger;
+
+/**
+ * Collects parameter sets for a single prepared statement and sends them
+ * to the database as JDBC batches. Passed to the closure of
+ * {@link Sql#withBatch(int, String, groovy.lang.Closure)}.
+ * <p/>
+ * If a batch size greater than zero is given, the pending rows are executed
+ * automatically whenever that many rows have been added. The update counts of
+ * all executed batches are collected and returned by {@link #executeBatch()}.
+ */
+public class BatchingPreparedStatementWrapper {
+
+    private final PreparedStatement statement;
+    private final int batchSize;
+    private final Sql sql;
+    private final Logger log;
+
+    private final List<int[]> results = new ArrayList<int[]>();
+    private int resultCount;
+    private int pending;
+
+    public BatchingPreparedStatementWrapper(PreparedStatement statement, int batchSize, Sql sql) {
+        this.statement = statement;
+        this.batchSize = batchSize;
+        this.sql = sql;
+        this.log = sql.log;
+    }
+
+    /**
+     * Adds a row to the batch.
+     *
+     * @param params the values for the placeholders of the statement
+     * @throws SQLException if a database access error occurs
+     */
+    public void addBatch(List params) throws SQLException {
+        sql.setParameters(params, statement);
+        statement.addBatch();
+        pending++;
+        if (batchSize > 0 && pending >= batchSize) {
+            executePending();
+        }
+    }
+
+    /**
+     * Adds a row to the batch.
+     *
+     * @param params the values for the placeholders of the statement
+     * @throws SQLException if a database access error occurs
+     */
+    public void addBatch(Object[] params) throws SQLException {
+        addBatch(Arrays.asList(params));
+    }
+
+    /**
+     * @return the number of rows added but not yet sent to the database
+     */
+    public int getPendingCount() {
+        return pending;
+    }
+
+    public PreparedStatement getStatement() {
+        return statement;
+    }
+
+    /**
+     * Executes the pending rows.
+     *
+     * @return the update counts of all rows executed through this wrapper, in the order they were added
+     * @throws SQLException if a database access error occurs
+     */
+    public int[] executeBatch() throws SQLException {
+        executePending();
+        int[] answer = new int[resultCount];
+        int pos = 0;
+        for (int[] counts : results) {
+            System.arraycopy(counts, 0, answer, pos, counts.length);
+            pos += counts.length;
+        }
+        return answer;
+    }
+
+    /**
+     * Discards the rows not yet executed.
+     */
+    public void clearBatch() throws SQLException {
+        if (pending > 0) {
+            pending = 0;
+            statement.clearBatch();
+        }
+    }
+
+    private void executePending() throws SQLException {
+        if (pending == 0) return;
+        log.fine("Executing batch of " + pending + " rows");
+        pending = 0;
+        int[] counts = statement.executeBatch();
+        results.add(counts);
+        resultCount += counts.length;
+    }
+}
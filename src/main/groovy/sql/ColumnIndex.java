@@ -0,0 +1,103 @@
+/*
+ * Copyright 2003-2009 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package groovy.sql;
+
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Immutable mapping of column names to positions, shared by all rows of a query.
+ * Rows created by {@link #toRowResult(ResultSet)} only store their values in an
+ * array and use this index for lookups by name.
+ * <p/>
+ * Like a map filled column by column, a name occurring more than once keeps the
+ * position of its first occurrence and the value of its last one.
+ */
+public final class ColumnIndex {
+
+    private final String[] names;
+    private final int[] slots;
+    private final Map<String, Integer> positions;
+
+    /**
+     * @param columnNames the column names in result set order
+     */
+    public ColumnIndex(String[] columnNames) {
+        positions = new HashMap<String, Integer>(columnNames.length * 2);
+        slots = new int[columnNames.length];
+        String[] distinct = new String[columnNames.length];
+        int count = 0;
+        for (int i = 0; i < columnNames.length; i++) {
+            Integer position = positions.get(columnNames[i]);
+            if (position == null) {
+                position = Integer.valueOf(count);
+                positions.put(columnNames[i], position);
+                distinct[count++] = columnNames[i];
+            }
+            slots[i] = position.intValue();
+        }
+        names = new String[count];
+        System.arraycopy(distinct, 0, names, 0, count);
+    }
+
+    /**
+     * Creates the index for the columns of a result set.
+     */
+    public static ColumnIndex create(ResultSetMetaData metadata) throws SQLException {
+        String[] columnNames = new String[metadata.getColumnCount()];
+        for (int i = 0; i < columnNames.length; i++) {
+            columnNames[i] = metadata.getColumnName(i + 1);
+        }
+        return new ColumnIndex(columnNames);
+    }
+
+    /**
+     * @return the number of distinct columns
+     */
+    public int size() {
+        return names.length;
+    }
+
+    public String getName(int index) {
+        return names[index];
+    }
+
+    /**
+     * @return the position of the column with exactly the given name or -1
+     */
+    public int indexOf(Object name) {
+        Integer position = positions.get(name);
+        return position == null ? -1 : position.intValue();
+    }
+
+    /**
+     * Reads the current row of the result set.
+     *
+     * @param rs a result set with the columns this index was created for
+     * @return the row backed by this index
+     * @throws SQLException if a database access error occurs
+     */
+    public GroovyRowResult toRowResult(ResultSet rs) throws SQLException {
+        Object[] values = new Object[names.length];
+        for (int i = 0; i < slots.length; i++) {
+            values[slots[i]] = rs.getObject(i + 1);
+        }
+        return new GroovyRowResult(new CompactRowMap(this, values));
+    }
+}
@@ -0,0 +1,210 @@
+/*
+ * Copyright 2003-2009 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package groovy.sql;
+
+import java.util.*;
+
+/**
+ * Map of a single row, storing its values in an array indexed by a shared
+ * {@link ColumnIndex}. Replacing values and removing columns work in place,
+ * adding a column not known to the index copies the row into a LinkedHashMap
+ * used from then on.
+ */
+class CompactRowMap extends AbstractMap {
+
+    private static final Object REMOVED = new Object();
+
+    private final ColumnIndex columns;
+    private final Object[] values;
+    private int size;
+    private Map expanded;
+
+    CompactRowMap(ColumnIndex columns, Object[] values) {
+        this.columns = columns;
+        this.values = values;
+        this.size = values.length;
+    }
+
+    /**
+     * @return the value of the index-th column or null if there is none
+     */
+    Object getAt(int index) {
+        if (expanded == null && size == values.length) {
+            return index >= 0 && index < values.length ? values[index] : null;
+        }
+        Iterator it = values().iterator();
+        for (int i = 0; it.hasNext(); i++) {
+            Object value = it.next();
+            if (i == index) return value;
+        }
+        return null;
+    }
+
+    private int slot(Object key) {
+        int index = columns.indexOf(key);
+        return index >= 0 && values[index] != REMOVED ? index : -1;
+    }
+
+    public int size() {
+        if (expanded != null) return expanded.size();
+        return size;
+    }
+
+    public boolean containsKey(Object key) {
+        if (expanded != null) return expanded.containsKey(key);
+        return slot(key) >= 0;
+    }
+
+    public Object get(Object key) {
+        if (expanded != null) return expanded.get(key);
+        int index = slot(key);
+        return index >= 0 ? values[index] : null;
+    }
+
+    public Object put(Object key, Object value) {
+        if (expanded == null) {
+            int index = columns.indexOf(key);
+            if (index >= 0) {
+                Object old = values[index];
+                values[index] = value;
+                if (old != REMOVED) return old;
+                size++;
+                return null;
+            }
+            expand();
+        }
+        return expanded.put(key, value);
+    }
+
+    public Object remove(Object key) {
+        if (expanded != null) return expanded.remove(key);
+        int index = slot(key);
+        if (index < 0) return null;
+        return removeSlot(index);
+    }
+
+    private Object removeSlot(int index) {
+        Object old = values[index];
+        values[index] = REMOVED;
+        size--;
+        return old;
+    }
+
+    public void clear() {
+        if (expanded != null) {
+            expanded.clear();
+            return;
+        }
+        Arrays.fill(values, REMOVED);
+        size = 0;
+    }
+
+    private void expand() {
+        Map map = new LinkedHashMap(values.length * 2);
+        for (int i = 0; i < values.length; i++) {
+            if (values[i] != REMOVED) map.put(columns.getName(i), values[i]);
+        }
+        expanded = map;
+    }
+
+    public Set entrySet() {
+        return new AbstractSet() {
+            public int size() {
+                return CompactRowMap.this.size();
+            }
+
+            public Iterator iterator() {
+                if (expanded != null) return expanded.entrySet().iterator();
+                return new EntryIterator();
+            }
+        };
+    }
+
+    private class EntryIterator implements Iterator {
+        private int next = -1;
+        private int current = -1;
+
+        EntryIterator() {
+            advance();
+        }
+
+        private void advance() {
+            do {
+                next++;
+            } while (next < values.length && values[next] == REMOVED);
+        }
+
+        public boolean hasNext() {
+            return next < values.length;
+        }
+
+        public Object next() {
+            if (!hasNext()) throw new NoSuchElementException();
+            current = next;
+            advance();
+            return new Entry(current);
+        }
+
+        public void remove() {
+            if (current < 0 || values[current] == REMOVED) throw new IllegalStateException();
+            if (expanded != null) throw new ConcurrentModificationException();
+            removeSlot(current);
+        }
+    }
+
+    private class Entry implements Map.Entry {
+        private final int index;
+
+        Entry(int index) {
+            this.index = index;
+        }
+
+        public Object getKey() {
+            return columns.getName(index);
+        }
+
+        public Object getValue() {
+            return values[index];
+        }
+
+        public Object setValue(Object value) {
+            if (expanded != null || values[index] == REMOVED) throw new IllegalStateException();
+            Object old = values[index];
+            values[index] = value;
+            return old;
+        }
+
+        public boolean equals(Object o) {
+            if (!(o instanceof Map.Entry)) return false;
+            Map.Entry e = (Map.Entry) o;
+            return eq(getKey(), e.getKey()) && eq(getValue(), e.getValue());
+        }
+
+        public int hashCode() {
+            Object key = getKey();
+            Object value = getValue();
+            return (key == null ? 0 : key.hashCode()) ^ (value == null ? 0 : value.hashCode());
+        }
+
+        public String toString() {
+            return getKey() + "=" + getValue();
+        }
+    }
+
+    private static boolean eq(Object a, Object b) {
+        return a == null ? b == null : a.equals(b);
+    }
+}
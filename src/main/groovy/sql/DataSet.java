@@ -27,6 +27,7 @@ import java.sql.PreparedStatement;
 import java.sql.SQLException;
 import java.util.ArrayList;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.logging.Level;
@@ -51,6 +52,11 @@ public class DataSet extends Sql {
     private String sql;
     private List params;
 
+    // state of a running withBatch call, insert statement text to BatchingPreparedStatementWrapper
+    private Map batchStatements;
+    private Connection batchConnection;
+    private int batchSize;
+
     public DataSet(Sql sql, Class type) {
         super(sql);
         String table = type.getName();
@@ -89,6 +95,36 @@ public class DataSet extends Sql {
     }
 
     public void add(Map values) throws SQLException {
+        String insertSql = createInsertSql(values);
+        if (batchStatements != null) {
+            addBatch(insertSql, values);
+            return;
+        }
+
+        Connection connection = createConnection();
+        PreparedStatement statement = null;
+        try {
+            statement = connection.prepareStatement(insertSql);
+            int i = 1;
+            for (Iterator iter = values.entrySet().iterator(); iter.hasNext();) {
+                Map.Entry entry = (Map.Entry) iter.next();
+                setObject(statement, i++, entry.getValue());
+            }
+            int answer = statement.executeUpdate();
+            if (answer != 1) {
+                log.log(Level.WARNING, "Should have updated 1 row not " + answer + " when trying to add: " + values);
+            }
+        }
+        catch (SQLException e) {
+            log.log(Level.WARNING, "Failed to add row for: " + values, e);
+            throw e;
+        }
+        finally {
+            closeResources(connection, statement);
+        }
+    }
+
+    private String createInsertSql(Map values) {
         StringBuffer buffer = new StringBuffer("insert into ");
         buffer.append(table);
         buffer.append(" (");
@@ -109,27 +145,93 @@ public class DataSet extends Sql {
         buffer.append(") values (");
         buffer.append(paramBuffer.toString());
         buffer.append(")");
+        return buffer.toString();
+    }
+
+    private void addBatch(String insertSql, Map values) throws SQLException {
+        BatchingPreparedStatementWrapper batch = (BatchingPreparedStatementWrapper) batchStatements.get(insertSql);
+        if (batch == null) {
+            log.fine(insertSql);
+            PreparedStatement statement = batchConnection.prepareStatement(insertSql);
+            batch = new BatchingPreparedStatementWrapper(statement, batchSize, this);
+            batchStatements.put(insertSql, batch);
+        }
+        batch.addBatch(new ArrayList(values.values()));
+    }
 
+    /**
+     * Collects all rows added with {@link #add(Map)} inside the closure and inserts
+     * them as JDBC batches once the closure has finished.
+     *
+     * @param closure called with this DataSet
+     * @return the update counts of all rows
+     * @throws SQLException if a database access error occurs
+     * @see #withBatch(int, Closure)
+     */
+    public int[] withBatch(Closure closure) throws SQLException {
+        return withBatch(0, closure);
+    }
+
+    /**
+     * Collects all rows added with {@link #add(Map)} inside the closure and inserts
+     * them as JDBC batches of <code>batchSize</code> rows.
+     * <pre>
+     * def people = sql.dataSet("PERSON")
+     * people.withBatch(1000) {
+     *     rows.each { people.add(firstname: it.first, lastname: it.last) }
+     * }
+     * </pre>
+     * One prepared statement is used per distinct column list. The returned update
+     * counts are grouped by these statements, in the order they were first used.
+     *
+     * @param batchSize the number of rows per JDBC batch, 0 sends all rows at the end
+     * @param closure   called with this DataSet
+     * @return the update counts of all rows
+     * @throws SQLException if a database access error occurs
+     */
+    public int[] withBatch(int batchSize, Closure closure) throws SQLException {
+        if (batchStatements != null) {
+            throw new IllegalStateException("withBatch calls can not be nested");
+        }
         Connection connection = createConnection();
-        PreparedStatement statement = null;
+        this.batchConnection = connection;
+        this.batchSize = batchSize;
+        this.batchStatements = new LinkedHashMap();
         try {
-            statement = connection.prepareStatement(buffer.toString());
-            int i = 1;
-            for (Iterator iter = values.entrySet().iterator(); iter.hasNext();) {
-                Map.Entry entry = (Map.Entry) iter.next();
-                setObject(statement, i++, entry.getValue());
+            closure.call(this);
+            List results = new ArrayList();
+            int total = 0;
+            for (Iterator iter = batchStatements.values().iterator(); iter.hasNext();) {
+                int[] counts = ((BatchingPreparedStatementWrapper) iter.next()).executeBatch();
+                results.add(counts);
+                total += counts.length;
             }
-            int answer = statement.executeUpdate();
-            if (answer != 1) {
-                log.log(Level.WARNING, "Should have updated 1 row not " + answer + " when trying to add: " + values);
+            int[] answer = new int[total];
+            int pos = 0;
+            for (Iterator iter = results.iterator(); iter.hasNext();) {
+                int[] counts = (int[]) iter.next();
+                System.arraycopy(counts, 0, answer, pos, counts.length);
+                pos += counts.length;
             }
+            this.updateCount = sumUpdateCounts(answer);
+            return answer;
         }
         catch (SQLException e) {
-            log.log(Level.WARNING, "Failed to add row for: " + values, e);
+            log.log(Level.WARNING, "Failed to add rows in batch to " + table, e);
             throw e;
         }
         finally {
-            closeResources(connection, statement);
+            for (Iterator iter = batchStatements.values().iterator(); iter.hasNext();) {
+                PreparedStatement statement = ((BatchingPreparedStatementWrapper) iter.next()).getStatement();
+                try {
+                    statement.close();
+                } catch (SQLException e) {
+                    log.log(Level.INFO, "Caught exception closing statement: " + e, e);
+                }
+            }
+            this.batchStatements = null;
+            this.batchConnection = null;
+            closeResources(connection, null);
         }
     }
 
@@ -27,6 +27,8 @@ import java.util.Set;
  * Represents an extent of objects.
  * It's used in the oneRow method to be able to access the result
  * of a SQL query by the name of the column, or by the column number.
+ * Rows read by {@link Sql} share one {@link ColumnIndex} per query and keep
+ * their values in an array, so lookups by name or number take constant time.
  *
  * @version $Revision$
  * @author Jean-Louis Berliet
@@ -80,6 +82,8 @@ public class GroovyRowResult extends GroovyObjectSupport implements Map {
             // a negative index will count backwards from the last column.
             if (index < 0)
                 index += result.size();
+            if (result instanceof CompactRowMap)
+                return ((CompactRowMap) result).getAt(index);
             Iterator it = result.values().iterator();
             int i = 0;
             Object obj = null;
@@ -103,7 +107,7 @@ public class GroovyRowResult extends GroovyObjectSupport implements Map {
 
     /*
      * The following methods are needed for implementing the Map interface.
-     * They are just delegating the request to the internal LinkedHashMap
+     * They are just delegating the request to the internal map
      */
      
     public void clear() {
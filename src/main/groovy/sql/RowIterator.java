@@ -0,0 +1,98 @@
+/*
+ * Copyright 2003-2009 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package groovy.sql;
+
+import groovy.lang.GroovyRuntimeException;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Iterates lazily over the rows of a query, see {@link Sql#iterateRows(String)}.
+ * Each row is returned as a {@link GroovyRowResult}. The statement, result set and,
+ * for DataSource based Sql instances, the connection are released as soon as
+ * the last row has been read or {@link #close()} is called.
+ * <p/>
+ * Database errors while iterating are rethrown as {@link GroovyRuntimeException}
+ * with the SQLException as cause.
+ */
+public class RowIterator implements Iterator {
+
+    private final Sql sql;
+    private final Connection connection;
+    private final Statement statement;
+    private final ResultSet results;
+
+    private ColumnIndex columns;
+    private boolean fetched;
+    private boolean hasNext;
+    private boolean closed;
+
+    RowIterator(Sql sql, Connection connection, Statement statement, ResultSet results) {
+        this.sql = sql;
+        this.connection = connection;
+        this.statement = statement;
+        this.results = results;
+    }
+
+    public boolean hasNext() {
+        if (closed) return false;
+        if (!fetched) {
+            try {
+                hasNext = results.next();
+            } catch (SQLException e) {
+                close();
+                throw new GroovyRuntimeException("Failed to read the next row: " + e.getMessage(), e);
+            }
+            fetched = true;
+            if (!hasNext) close();
+        }
+        return hasNext;
+    }
+
+    public Object next() {
+        if (!hasNext()) throw new NoSuchElementException();
+        fetched = false;
+        try {
+            if (columns == null) columns = ColumnIndex.create(results.getMetaData());
+            return columns.toRowResult(results);
+        } catch (SQLException e) {
+            close();
+            throw new GroovyRuntimeException("Failed to read row: " + e.getMessage(), e);
+        }
+    }
+
+    public void remove() {
+        throw new UnsupportedOperationException("Rows can not be removed through a RowIterator");
+    }
+
+    /**
+     * Releases the database resources. Further calls to {@link #hasNext()} return false.
+     */
+    public void close() {
+        if (closed) return;
+        closed = true;
+        sql.closeResources(connection, statement, results);
+    }
+
+    public boolean isClosed() {
+        return closed;
+    }
+}
@@ -37,7 +37,6 @@ import java.util.regex.Pattern;
 
 import javax.sql.DataSource;
 
-import org.codehaus.groovy.runtime.DefaultGroovyMethods;
 
 /**
  * Represents an extent of objects
@@ -83,6 +82,11 @@ public class Sql {
      */
     private boolean cacheConnection;
 
+    /**
+     * fetch size hint for queries, 0 leaves the choice to the driver
+     */
+    private int fetchSize;
+
     /**
      * Creates a new Sql instance given a JDBC connection URL.
      *
@@ -462,6 +466,7 @@ public class Sql {
     public Sql(Sql parent) {
         this.dataSource = parent.dataSource;
         this.useConnection = parent.useConnection;
+        this.fetchSize = parent.fetchSize;
     }
 
     public DataSet dataSet(String table) {
@@ -637,6 +642,81 @@ public class Sql {
         eachRow(sql, params, closure);
     }
 
+    /**
+     * Performs the given SQL query calling the closure for a page of rows.
+     * Only rows starting at the 1-based <code>offset</code> are passed to
+     * the closure, at most <code>maxRows</code> of them.
+     *
+     * @param sql     the sql statement
+     * @param offset  the 1-based offset of the first row to process
+     * @param maxRows the maximum number of rows to process, 0 for all
+     * @param closure called for each row with a GroovyResultSet
+     * @throws SQLException if a database access error occurs
+     */
+    public void eachRow(String sql, int offset, int maxRows, Closure closure) throws SQLException {
+        eachRow(sql, Collections.EMPTY_LIST, offset, maxRows, closure);
+    }
+
+    /**
+     * Performs the given SQL query calling the closure for a page of rows.
+     * The driver is asked to stop after the last row of the page using
+     * {@link Statement#setMaxRows(int)}. Rows before the offset are skipped
+     * with an absolute cursor move for scrollable result sets.
+     *
+     * @param sql     the sql statement
+     * @param params  a list of parameters
+     * @param offset  the 1-based offset of the first row to process
+     * @param maxRows the maximum number of rows to process, 0 for all
+     * @param closure called for each row with a GroovyResultSet
+     * @throws SQLException if a database access error occurs
+     */
+    public void eachRow(String sql, List params, int offset, int maxRows, Closure closure) throws SQLException {
+        Connection connection = createConnection();
+        PreparedStatement statement = null;
+        ResultSet results = null;
+        try {
+            log.fine(sql);
+            statement = getPreparedStatement(connection, sql);
+            setParameters(params, statement);
+            configure(statement);
+            configurePaging(statement, offset, maxRows);
+            results = statement.executeQuery();
+
+            GroovyResultSet groovyRS = new GroovyResultSetProxy(results).getImpl();
+            if (moveToOffset(results, offset)) {
+                int count = 0;
+                while ((maxRows <= 0 || count < maxRows) && groovyRS.next()) {
+                    closure.call(groovyRS);
+                    count++;
+                }
+            }
+        }
+        catch (SQLException e) {
+            log.log(Level.FINE, "Failed to execute: " + sql, e);
+            throw e;
+        }
+        finally {
+            resetPaging(statement, maxRows);
+            closeResources(connection, statement, results);
+        }
+    }
+
+    /**
+     * Performs the given SQL query calling the closure for a page of rows.
+     *
+     * @param gstring a GString containing the SQL query with embedded params
+     * @param offset  the 1-based offset of the first row to process
+     * @param maxRows the maximum number of rows to process, 0 for all
+     * @param closure called for each row with a GroovyResultSet
+     * @throws SQLException if a database access error occurs
+     * @see #eachRow(String, List, int, int, Closure)
+     */
+    public void eachRow(GString gstring, int offset, int maxRows, Closure closure) throws SQLException {
+        List params = getParameters(gstring);
+        String sql = asSql(gstring, params);
+        eachRow(sql, params, offset, maxRows, closure);
+    }
+
     /**
      * Performs the given SQL query and return the rows of the result set.
      *
@@ -680,8 +760,9 @@ public class Sql {
             rs = statement.executeQuery(sql);
             if (metaClosure != null) metaClosure.call(rs.getMetaData());
 
+            ColumnIndex columns = ColumnIndex.create(rs.getMetaData());
             while (rs.next()) {
-                results.add(DefaultGroovyMethods.toRowResult(rs));
+                results.add(columns.toRowResult(rs));
             }
             return (results);
         } catch (SQLException e) {
@@ -712,8 +793,9 @@ public class Sql {
             setParameters(params, statement);
             configure(statement);
             rs = statement.executeQuery();
+            ColumnIndex columns = ColumnIndex.create(rs.getMetaData());
             while (rs.next()) {
-                results.add(DefaultGroovyMethods.toRowResult(rs));
+                results.add(columns.toRowResult(rs));
             }
             return (results);
         }
@@ -726,6 +808,142 @@ public class Sql {
         }
     }
 
+    /**
+     * Performs the given SQL query and return a page of rows of the result set.
+     *
+     * @param sql     the SQL statement
+     * @param offset  the 1-based offset of the first row to return
+     * @param maxRows the maximum number of rows to return, 0 for all
+     * @return a list of GroovyRowResult objects
+     * @throws SQLException if a database access error occurs
+     */
+    public List rows(String sql, int offset, int maxRows) throws SQLException {
+        return rows(sql, Collections.EMPTY_LIST, offset, maxRows);
+    }
+
+    /**
+     * Performs the given SQL query with the list of params and return
+     * a page of rows of the result set.
+     *
+     * @param sql     the SQL statement
+     * @param params  a list of parameters
+     * @param offset  the 1-based offset of the first row to return
+     * @param maxRows the maximum number of rows to return, 0 for all
+     * @return a list of GroovyRowResult objects
+     * @throws SQLException if a database access error occurs
+     * @see #eachRow(String, List, int, int, Closure)
+     */
+    public List rows(String sql, List params, int offset, int maxRows) throws SQLException {
+        List results = new ArrayList();
+        Connection connection = createConnection();
+        PreparedStatement statement = null;
+        ResultSet rs = null;
+        try {
+            log.fine(sql);
+            statement = getPreparedStatement(connection, sql);
+            setParameters(params, statement);
+            configure(statement);
+            configurePaging(statement, offset, maxRows);
+            rs = statement.executeQuery();
+            if (moveToOffset(rs, offset)) {
+                ColumnIndex columns = ColumnIndex.create(rs.getMetaData());
+                while ((maxRows <= 0 || results.size() < maxRows) && rs.next()) {
+                    results.add(columns.toRowResult(rs));
+                }
+            }
+            return (results);
+        }
+        catch (SQLException e) {
+            log.log(Level.FINE, "Failed to execute: " + sql, e);
+            throw e;
+        }
+        finally {
+            resetPaging(statement, maxRows);
+            closeResources(connection, statement, rs);
+        }
+    }
+
+    /**
+     * Performs the given SQL query and return a page of rows of the result set.
+     *
+     * @param gstring a GString containing the SQL query with embedded params
+     * @param offset  the 1-based offset of the first row to return
+     * @param maxRows the maximum number of rows to return, 0 for all
+     * @return a list of GroovyRowResult objects
+     * @throws SQLException if a database access error occurs
+     */
+    public List rows(GString gstring, int offset, int maxRows) throws SQLException {
+        List params = getParameters(gstring);
+        String sql = asSql(gstring, params);
+        return rows(sql, params, offset, maxRows);
+    }
+
+    /**
+     * Performs the given SQL query and returns an iterator over its rows.
+     * Rows are read from the database while iterating, so the memory used does
+     * not depend on the size of the result. The database resources are released
+     * when the last row has been read; call {@link RowIterator#close()} when
+     * stopping early.
+     * <pre>
+     * def rows = sql.iterateRows("select * from PERSON")
+     * try {
+     *     for (row in rows) { out << row.firstname << '\n' }
+     * } finally {
+     *     rows.close()
+     * }
+     * </pre>
+     *
+     * @param sql the SQL statement
+     * @return an iterator of GroovyRowResult objects
+     * @throws SQLException if a database access error occurs
+     */
+    public RowIterator iterateRows(String sql) throws SQLException {
+        return iterateRows(sql, Collections.EMPTY_LIST);
+    }
+
+    /**
+     * Performs the given SQL query with the list of params and returns an
+     * iterator over its rows.
+     *
+     * @param sql    the SQL statement
+     * @param params a list of parameters
+     * @return an iterator of GroovyRowResult objects
+     * @throws SQLException if a database access error occurs
+     * @see #iterateRows(String)
+     */
+    public RowIterator iterateRows(String sql, List params) throws SQLException {
+        Connection connection = createConnection();
+        PreparedStatement statement = null;
+        ResultSet rs = null;
+        try {
+            log.fine(sql);
+            statement = getPreparedStatement(connection, sql);
+            setParameters(params, statement);
+            configure(statement);
+            rs = statement.executeQuery();
+            return new RowIterator(this, connection, statement, rs);
+        }
+        catch (SQLException e) {
+            log.log(Level.FINE, "Failed to execute: " + sql, e);
+            closeResources(connection, statement, rs);
+            throw e;
+        }
+    }
+
+    /**
+     * Performs the given SQL query and returns an iterator over its rows.
+     *
+     * @param gstring a GString containing the SQL query with embedded params
+     * @return an iterator of GroovyRowResult objects
+     * @throws SQLException if a database access error occurs
+     * @see #iterateRows(String)
+     */
+    public RowIterator iterateRows(GString gstring) throws SQLException {
+        List params = getParameters(gstring);
+        String sql = asSql(gstring, params);
+        return iterateRows(sql, params);
+    }
+
     /**
      * Performs the given SQL query and return the first row of the result set.
      *
@@ -1052,6 +1270,76 @@ public class Sql {
         return executeUpdate(sql, params);
     }
 
+    /**
+     * Performs the given SQL statement for each parameter set added to the batch
+     * inside the closure, using a single prepared statement. All rows are sent to
+     * the database once the closure has finished.
+     * <pre>
+     * sql.withBatch("insert into PERSON (id, name) values (?, ?)") { ps ->
+     *     people.each { ps.addBatch([it.id, it.name]) }
+     * }
+     * </pre>
+     *
+     * @param sql     the SQL statement
+     * @param closure called with a {@link BatchingPreparedStatementWrapper}
+     * @return the update counts of all rows
+     * @throws SQLException if a database access error occurs
+     */
+    public int[] withBatch(String sql, Closure closure) throws SQLException {
+        return withBatch(0, sql, closure);
+    }
+
+    /**
+     * Performs the given SQL statement for each parameter set added to the batch
+     * inside the closure, using a single prepared statement. The pending rows are
+     * sent to the database whenever <code>batchSize</code> rows have been added
+     * and once more when the closure has finished.
+     *
+     * @param batchSize the number of rows per JDBC batch, 0 sends all rows at the end
+     * @param sql       the SQL statement
+     * @param closure   called with a {@link BatchingPreparedStatementWrapper}
+     * @return the update counts of all rows
+     * @throws SQLException if a database access error occurs
+     */
+    public int[] withBatch(int batchSize, String sql, Closure closure) throws SQLException {
+        Connection connection = createConnection();
+        PreparedStatement statement = null;
+        BatchingPreparedStatementWrapper batch = null;
+        try {
+            log.fine(sql);
+            statement = getPreparedStatement(connection, sql);
+            configure(statement);
+            batch = new BatchingPreparedStatementWrapper(statement, batchSize, this);
+            closure.call(batch);
+            int[] counts = batch.executeBatch();
+            this.updateCount = sumUpdateCounts(counts);
+            return counts;
+        }
+        catch (SQLException e) {
+            log.log(Level.FINE, "Failed to execute batch: " + sql, e);
+            // a cached statement must not keep the rest of a failed batch
+            if (batch != null) {
+                try {
+                    batch.clearBatch();
+                } catch (SQLException ignore) {
+                    // IGNORE
+                }
+            }
+            throw e;
+        }
+        finally {
+            closeResources(connection, statement);
+        }
+    }
+
+    static int sumUpdateCounts(int[] counts) {
+        int sum = 0;
+        for (int count : counts) {
+            if (count > 0) sum += count;
+        }
+        return sum;
+    }
+
     /**
      * Performs a stored procedure call.
      *
@@ -1509,11 +1797,74 @@ public class Sql {
      * @param statement the statement to configure
      */
     protected void configure(Statement statement) {
+        if (fetchSize > 0) {
+            try {
+                statement.setFetchSize(fetchSize);
+            } catch (SQLException e) {
+                log.log(Level.FINE, "Failed to set fetch size " + fetchSize, e);
+            }
+        }
         if (configureStatement != null) {
             configureStatement.call(statement);
         }
     }
 
+    /**
+     * Limits the rows read by the driver to the end of the requested page. Without
+     * an explicit fetch size the page size is used as fetch size hint.
+     */
+    private void configurePaging(Statement statement, int offset, int maxRows) throws SQLException {
+        if (maxRows <= 0) return;
+        long lastRow = (long) Math.max(offset, 1) - 1 + maxRows;
+        if (lastRow <= Integer.MAX_VALUE) statement.setMaxRows((int) lastRow);
+        if (fetchSize <= 0) statement.setFetchSize(maxRows);
+    }
+
+    /**
+     * Cached statements must not keep the row limit of a paged query.
+     */
+    private void resetPaging(Statement statement, int maxRows) {
+        if (statement == null || maxRows <= 0 || !isCacheStatements()) return;
+        try {
+            statement.setMaxRows(0);
+        } catch (SQLException e) {
+            log.log(Level.FINEST, "Failed to reset max rows", e);
+        }
+    }
+
+    /**
+     * Positions the cursor before the row at the 1-based offset.
+     *
+     * @return false if the result set has less rows than the offset
+     */
+    private static boolean moveToOffset(ResultSet results, int offset) throws SQLException {
+        if (offset <= 1) return true;
+        if (results.getType() != ResultSet.TYPE_FORWARD_ONLY) {
+            results.absolute(offset - 1);
+            return true;
+        }
+        for (int i = 1; i < offset; i++) {
+            if (!results.next()) return false;
+        }
+        return true;
+    }
+
+    /**
+     * Sets the fetch size hint used for all queries. See {@link Statement#setFetchSize(int)}.
+     *
+     * @param fetchSize the number of rows to fetch per round-trip, 0 to use the driver default
+     */
+    public void setFetchSize(int fetchSize) {
+        this.fetchSize = fetchSize;
+    }
+
+    /**
+     * @return the fetch size hint used for queries, 0 if the driver default is used
+     */
+    public int getFetchSize() {
+        return fetchSize;
+    }
+
     /**
      * Enables statement caching.</br>
      * if <i>b</i> is true, cache is created and all created prepared statements will be cached.</br>
@@ -1622,9 +1973,11 @@ public class Sql {
     private PreparedStatement createPreparedStatement(Connection connection, String sql, int returnGeneratedKeys) throws SQLException {
         if (returnGeneratedKeys != 0) {
             return connection.prepareStatement(sql, returnGeneratedKeys);
-        } else {
-            return connection.prepareStatement(sql);
         }
+        if (resultSetHoldability == -1) {
+            return connection.prepareStatement(sql, resultSetType, resultSetConcurrency);
+        }
+        return connection.prepareStatement(sql, resultSetType, resultSetConcurrency, resultSetHoldability);
     }
 
     private PreparedStatement getPreparedStatement(Connection connection, String sql) throws SQLException {
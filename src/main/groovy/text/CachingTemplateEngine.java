@@ -0,0 +1,154 @@
+/*
+ * Copyright 2003-2009 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package groovy.text;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Reader;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.net.URLConnection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.codehaus.groovy.control.CompilationFailedException;
+
+/**
+ * A template engine decorator caching the templates created by another engine.
+ * Templates created from files and URLs are kept per location and compiled again
+ * when the modification stamp of the source changes. Templates created from text
+ * are kept per text. Templates read from a plain {@link Reader} are not cached.
+ * <p/>
+ * Example:
+ * <pre>
+ * def engine = new CachingTemplateEngine(new SimpleTemplateEngine())
+ * def text = engine.createTemplate(new File("mail.tpl")).make(model).toString()
+ * </pre>
+ * The cache is safe for concurrent use. Two threads asking for the same changed
+ * source at the same time may both compile it, the last result is kept.
+ */
+public class CachingTemplateEngine extends TemplateEngine {
+
+    private final TemplateEngine engine;
+    private final Map sourceCache = new ConcurrentHashMap();
+    private final Map textCache = new ConcurrentHashMap();
+
+    private static class CacheEntry {
+        final Template template;
+        final long lastModified;
+        final long length;
+
+        CacheEntry(Template template, long lastModified, long length) {
+            this.template = template;
+            this.lastModified = lastModified;
+            this.length = length;
+        }
+    }
+
+    public CachingTemplateEngine(TemplateEngine engine) {
+        if (engine == null) {
+            throw new IllegalArgumentException("Template engine must not be null!");
+        }
+        this.engine = engine;
+    }
+
+    /**
+     * @return the engine compiling the templates
+     */
+    public TemplateEngine getEngine() {
+        return engine;
+    }
+
+    public Template createTemplate(Reader reader) throws CompilationFailedException, ClassNotFoundException, IOException {
+        return engine.createTemplate(reader);
+    }
+
+    public Template createTemplate(String templateText) throws CompilationFailedException, ClassNotFoundException, IOException {
+        Template template = (Template) textCache.get(templateText);
+        if (template == null) {
+            template = engine.createTemplate(templateText);
+            textCache.put(templateText, template);
+        }
+        return template;
+    }
+
+    public Template createTemplate(File file) throws CompilationFailedException, ClassNotFoundException, IOException {
+        String key = file.getAbsolutePath();
+        long lastModified = file.lastModified();
+        long length = file.length();
+        CacheEntry entry = (CacheEntry) sourceCache.get(key);
+        if (entry != null && entry.lastModified == lastModified && entry.length == length) {
+            return entry.template;
+        }
+        Template template = engine.createTemplate(file);
+        sourceCache.put(key, new CacheEntry(template, lastModified, length));
+        return template;
+    }
+
+    /**
+     * Returns the cached template for the URL. File URLs are checked like files,
+     * for other URLs the last modified header is used. Templates from URLs not
+     * providing a modification date are compiled only once.
+     */
+    public Template createTemplate(URL url) throws CompilationFailedException, ClassNotFoundException, IOException {
+        if ("file".equals(url.getProtocol())) {
+            try {
+                File file = new File(url.toURI());
+                if (file.isFile()) return createTemplate(file);
+            } catch (URISyntaxException e) {
+                // not a plain file, use the URL
+            } catch (IllegalArgumentException e) {
+                // not a plain file, use the URL
+            }
+        }
+
+        String key = url.toExternalForm();
+        long lastModified = getLastModified(url);
+        CacheEntry entry = (CacheEntry) sourceCache.get(key);
+        if (entry != null && entry.lastModified == lastModified) {
+            return entry.template;
+        }
+        Template template = engine.createTemplate(url);
+        sourceCache.put(key, new CacheEntry(template, lastModified, -1));
+        return template;
+    }
+
+    private static long getLastModified(URL url) throws IOException {
+        URLConnection connection = url.openConnection();
+        long lastModified = connection.getLastModified();
+        try {
+            connection.getInputStream().close();
+        } catch (IOException e) {
+            // IGNORE
+        }
+        return lastModified;
+    }
+
+    /**
+     * @return the number of cached templates
+     */
+    public int getCacheSize() {
+        return sourceCache.size() + textCache.size();
+    }
+
+    /**
+     * Removes all cached templates.
+     */
+    public void clearCache() {
+        sourceCache.clear();
+        textCache.clear();
+    }
+}
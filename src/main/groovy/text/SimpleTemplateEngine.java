@@ -87,8 +87,18 @@ public class SimpleTemplateEngine extends TemplateEngine {
 
     private static class SimpleTemplate implements Template {
 
+        // binding of idle pooled scripts, so they do not keep the last model alive
+        private static final Binding IDLE_BINDING = new Binding();
+
         protected Script script;
 
+        /**
+         * one script instance per thread, reused for every rendering of this template.
+         * The slot is emptied while the instance is in use, so nested renderings of
+         * the same template get an instance of their own.
+         */
+        private final ThreadLocal pooledScript = new ThreadLocal();
+
         public Writable make() {
             return make(null);
         }
@@ -106,11 +116,22 @@ public class SimpleTemplateEngine extends TemplateEngine {
                         binding = new Binding();
                     else
                         binding = new Binding(map);
-                    Script scriptObject = InvokerHelper.createScript(script.getClass(), binding);
-                    PrintWriter pw = new PrintWriter(writer);
-                    scriptObject.setProperty("out", pw);
-                    scriptObject.run();
-                    pw.flush();
+                    Script scriptObject = (Script) pooledScript.get();
+                    if (scriptObject == null) {
+                        scriptObject = InvokerHelper.createScript(script.getClass(), binding);
+                    } else {
+                        pooledScript.set(null);
+                        scriptObject.setBinding(binding);
+                    }
+                    PrintWriter pw = writer instanceof PrintWriter ? (PrintWriter) writer : new PrintWriter(writer);
+                    try {
+                        scriptObject.setProperty("out", pw);
+                        scriptObject.run();
+                        pw.flush();
+                    } finally {
+                        scriptObject.setBinding(IDLE_BINDING);
+                        pooledScript.set(scriptObject);
+                    }
                     return writer;
                 }
 
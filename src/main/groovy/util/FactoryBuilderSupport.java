@@ -220,6 +220,18 @@ public abstract class FactoryBuilderSupport extends Binding {
         return super.getVariable(name);
     }
 
+    /**
+     * @param name the name of the variable to lookup
+     * @return the variable value or MissingPropertyException.MPE if there is no such variable
+     */
+    public Object lookupVariable(String name) {
+        return getProxyBuilder().doLookupVariable(name);
+    }
+
+    private Object doLookupVariable(String name) {
+        return super.lookupVariable(name);
+    }
+
     /**
      * Sets the value of the given variable
      *
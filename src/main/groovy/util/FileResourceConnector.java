@@ -0,0 +1,166 @@
+/*
+ * Copyright 2003-2009 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package groovy.util;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URLConnection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Timer;
+import java.util.TimerTask;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Resource connector for scripts in local directories, which watches the files it
+ * has handed out and notifies its listeners about changes.
+ * <p/>
+ * The files are checked by a background thread once per poll interval, so threads
+ * requesting resources only touch the file system to find files not seen before.
+ * The thread is started with the first watched file and stopped by {@link #close()}.
+ */
+public class FileResourceConnector implements ResourceConnector, ResourceChangeNotifier {
+
+    private static class WatchedFile {
+        final File file;
+        final long lastModified;
+        final long length;
+
+        WatchedFile(File file) {
+            this.file = file;
+            this.lastModified = file.lastModified();
+            this.length = file.length();
+        }
+
+        boolean isModified() {
+            return file.lastModified() != lastModified || file.length() != length;
+        }
+    }
+
+    private final File[] roots;
+    private final long pollInterval;
+    private final Map watched = new ConcurrentHashMap();
+    private final List listeners = new CopyOnWriteArrayList();
+    private Timer timer;
+
+    /**
+     * @param roots        the directories to look for resources in, in this order
+     * @param pollInterval the time between two checks of the watched files in milliseconds
+     */
+    public FileResourceConnector(File[] roots, long pollInterval) {
+        if (pollInterval <= 0) throw new IllegalArgumentException("The poll interval must be positive: " + pollInterval);
+        this.roots = roots;
+        this.pollInterval = pollInterval;
+    }
+
+    public FileResourceConnector(String[] roots, long pollInterval) {
+        this(toFiles(roots), pollInterval);
+    }
+
+    private static File[] toFiles(String[] names) {
+        File[] files = new File[names.length];
+        for (int i = 0; i < names.length; i++) {
+            files[i] = new File(names[i]);
+        }
+        return files;
+    }
+
+    public URLConnection getResourceConnection(String name) throws ResourceException {
+        for (int i = 0; i < roots.length; i++) {
+            File file = new File(roots[i], name);
+            if (!file.isFile()) continue;
+            // record the state of the file before it is read
+            watch(name, file);
+            try {
+                return file.toURI().toURL().openConnection();
+            } catch (IOException e) {
+                throw new ResourceException("Cannot open " + file, e);
+            }
+        }
+        throw new ResourceException("Cannot find " + name + " in any of the roots");
+    }
+
+    /**
+     * Watches a file for changes, unless a file is watched under this name already.
+     * Listeners are notified with the given name once the file is modified or deleted.
+     *
+     * @param name the name to notify the listeners with
+     * @param file the file to watch
+     */
+    public void watch(String name, File file) {
+        if (watched.containsKey(name)) return;
+        synchronized (this) {
+            if (watched.containsKey(name)) return;
+            watched.put(name, new WatchedFile(file));
+            if (timer == null) {
+                timer = new Timer("FileResourceConnector", true);
+                timer.schedule(new TimerTask() {
+                    public void run() {
+                        poll();
+                    }
+                }, pollInterval, pollInterval);
+            }
+        }
+    }
+
+    /**
+     * Checks all watched files once and notifies the listeners about the changed ones.
+     */
+    public void poll() {
+        for (Iterator it = watched.entrySet().iterator(); it.hasNext();) {
+            Map.Entry entry = (Map.Entry) it.next();
+            WatchedFile file = (WatchedFile) entry.getValue();
+            if (!file.isModified()) continue;
+            String name = (String) entry.getKey();
+            watched.put(name, new WatchedFile(file.file));
+            fireResourceChanged(name);
+        }
+    }
+
+    private void fireResourceChanged(String name) {
+        for (Iterator it = listeners.iterator(); it.hasNext();) {
+            ((ResourceChangeListener) it.next()).resourceChanged(name);
+        }
+    }
+
+    public void addResourceChangeListener(ResourceChangeListener listener) {
+        listeners.add(listener);
+    }
+
+    public void removeResourceChangeListener(ResourceChangeListener listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * @return the time between two checks of the watched files in milliseconds
+     */
+    public long getPollInterval() {
+        return pollInterval;
+    }
+
+    /**
+     * Stops watching the files. Files requested later on are watched again.
+     */
+    public synchronized void close() {
+        if (timer != null) {
+            timer.cancel();
+            timer = null;
+        }
+        watched.clear();
+    }
+}
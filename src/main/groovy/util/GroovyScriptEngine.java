@@ -21,20 +21,40 @@ import groovy.lang.Script;
 
 import java.io.*;
 import java.net.MalformedURLException;
+import java.net.URI;
+import java.net.URISyntaxException;
 import java.net.URL;
 import java.net.URLConnection;
 import java.security.AccessController;
+import java.security.CodeSource;
 import java.security.PrivilegedAction;
 import java.util.Collections;
-import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Iterator;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
+import org.codehaus.groovy.ast.ClassNode;
+import org.codehaus.groovy.classgen.GeneratorContext;
 import org.codehaus.groovy.control.CompilationFailedException;
+import org.codehaus.groovy.control.CompilationUnit;
+import org.codehaus.groovy.control.CompilerConfiguration;
+import org.codehaus.groovy.control.Phases;
+import org.codehaus.groovy.control.SourceUnit;
 import org.codehaus.groovy.runtime.InvokerHelper;
+import org.codehaus.groovy.tools.gse.DependencyTracker;
 
 /**
  * Specific script engine able to reload modified scripts as well as dealing properly with dependent scripts.
+ * <p/>
+ * Scripts used by other scripts are compiled and cached on their own. The classes each script
+ * refers to are recorded during compilation, so when a script changes only this script and the
+ * scripts depending on it are compiled again. The sources are checked for modifications at most
+ * once per {@link CompilerConfiguration#getMinimumRecompilationInterval() minimum recompilation interval}
+ * of the configuration, unless the {@link ResourceConnector} is a {@link ResourceChangeNotifier}
+ * like {@link FileResourceConnector}. In this case scripts are only compiled again when the
+ * connector reports a change.
  *
  * @author sam
  * @author Marc Palmer
@@ -66,16 +86,30 @@ public class GroovyScriptEngine implements ResourceConnector {
     }
 
     private URL[] roots;
-    private Map scriptCache = Collections.synchronizedMap(new HashMap());
+    private final Map scriptCache = new ConcurrentHashMap();
+    private final Map scriptNames = new ConcurrentHashMap();
     private ResourceConnector rc;
+    private boolean notified;
 
     private static ThreadLocal currentCacheEntryHolder = new ThreadLocal();
     private GroovyClassLoader groovyLoader = null;
+    private CompilerConfiguration config = null;
 
     private static class ScriptCacheEntry {
+        private final String name;
+        private final URL url;
+        private final long lastModified;
         private Class scriptClass;
-        private long lastModified;
-        private Map dependencies = new HashMap();
+        private final Set classNames = new HashSet();
+        private final Set references = new HashSet();
+        private final Set dependencies = new HashSet();
+        private volatile long lastCheck;
+
+        private ScriptCacheEntry(String name, URL url, long lastModified) {
+            this.name = name;
+            this.url = url;
+            this.lastModified = lastModified;
+        }
     }
 
     private class ScriptClassLoader extends GroovyClassLoader {
@@ -87,31 +121,54 @@ public class GroovyScriptEngine implements ResourceConnector {
             super(parent);
         }
 
+        public ScriptClassLoader(ClassLoader loader, CompilerConfiguration config) {
+            super(loader, config);
+        }
+
         protected Class findClass(String className) throws ClassNotFoundException {
+            // another thread may have compiled the script meanwhile
+            Class cls = getClassCacheEntry(className);
+            if (cls != null) return cls;
+
             String filename = className.replace('.', File.separatorChar) + ".groovy";
-            URLConnection dependentScriptConn = null;
             try {
-                dependentScriptConn = rc.getResourceConnection(filename);
-                ScriptCacheEntry currentCacheEntry = (ScriptCacheEntry) currentCacheEntryHolder.get();
-                if(currentCacheEntry != null)
-                    currentCacheEntry.dependencies.put(
-                            dependentScriptConn.getURL(),
-                            new Long(dependentScriptConn.getLastModified()));
-                return parseClass(dependentScriptConn.getInputStream(), filename);
+                return compileScript(filename, rc.getResourceConnection(filename)).scriptClass;
             } catch (ResourceException e1) {
                 throw new ClassNotFoundException("Could not read " + className + ": " + e1);
             } catch (CompilationFailedException e2) {
                 throw new ClassNotFoundException("Syntax error in " + className + ": " + e2);
             } catch (IOException e3) {
                 throw new ClassNotFoundException("Problem reading " + className + ": " + e3);
-            } finally {
-                try {
-                    if (dependentScriptConn != null && dependentScriptConn.getInputStream() != null) {
-                        dependentScriptConn.getInputStream().close();
-                    }
-                } catch (IOException e) {
-                    // IGNORE
+            }
+        }
+
+        /**
+         * scripts are always compiled, so that their dependencies are known.
+         */
+        protected boolean isPersistentClassCacheUsed() {
+            return false;
+        }
+
+        /**
+         * records the classes defined and referenced by the script currently compiled
+         * in this thread, once all classes have been resolved.
+         */
+        protected CompilationUnit createCompilationUnit(CompilerConfiguration config, CodeSource source) {
+            CompilationUnit unit = super.createCompilationUnit(config, source);
+            final ScriptCacheEntry entry = (ScriptCacheEntry) currentCacheEntryHolder.get();
+            if (entry == null) return unit;
+            unit.addPhaseOperation(new CompilationUnit.PrimaryClassNodeOperation() {
+                public void call(SourceUnit source, GeneratorContext context, ClassNode classNode) {
+                    entry.classNames.add(classNode.getName());
+                    new DependencyTracker(source, entry.references).visitClass(classNode);
                 }
+            }, Phases.CANONICALIZATION);
+            return unit;
+        }
+
+        private void removeClasses(Set classNames) {
+            for (Iterator it = classNames.iterator(); it.hasNext();) {
+                removeClassCacheEntry((String) it.next());
             }
         }
     }
@@ -131,7 +188,9 @@ public class GroovyScriptEngine implements ResourceConnector {
                     (GroovyClassLoader) AccessController.doPrivileged(new PrivilegedAction() {
                         public Object run() {
                             ScriptClassLoader loader;
-                            if (parentClassLoader instanceof GroovyClassLoader)
+                            if (config != null)
+                                loader = new ScriptClassLoader(parentClassLoader, config);
+                            else if (parentClassLoader instanceof GroovyClassLoader)
                                 loader = new ScriptClassLoader((GroovyClassLoader)parentClassLoader);
                             else
                                 loader = new ScriptClassLoader(parentClassLoader);
@@ -240,6 +299,14 @@ public class GroovyScriptEngine implements ResourceConnector {
     public GroovyScriptEngine(ResourceConnector rc) {
         this.rc = rc;
         initGroovyLoader(getClass().getClassLoader());
+        if (rc instanceof ResourceChangeNotifier) {
+            ((ResourceChangeNotifier) rc).addResourceChangeListener(new ResourceChangeListener() {
+                public void resourceChanged(String name) {
+                    removeDependentScripts(Collections.singleton(name));
+                }
+            });
+            notified = true;
+        }
     }
 
     public GroovyScriptEngine(ResourceConnector rc, ClassLoader parentClassLoader) {
@@ -269,6 +336,32 @@ public class GroovyScriptEngine implements ResourceConnector {
         initGroovyLoader(parentClassLoader);
     }
 
+    /**
+     * Get the compiler configuration used for scripts. If no configuration has been
+     * set, the configuration of a GroovyClassLoader parent or the default configuration is used.
+     *
+     * @return the configuration or null if none has been set
+     */
+    public CompilerConfiguration getConfig() {
+        return config;
+    }
+
+    /**
+     * Set the compiler configuration used for scripts. Scripts loaded before are
+     * compiled again. The persistent class cache of the configuration is not used
+     * for scripts, as the engine has to compile them to track their dependencies.
+     *
+     * @param config the configuration to use
+     */
+    public void setConfig(CompilerConfiguration config) {
+        this.config = config;
+        ClassLoader parentClassLoader = groovyLoader.getParent();
+        groovyLoader = null;
+        scriptCache.clear();
+        scriptNames.clear();
+        initGroovyLoader(parentClassLoader);
+    }
+
     /**
      * Get the class of the scriptName in question, so that you can instantiate Groovy objects with caching and reloading.
      *
@@ -310,67 +403,164 @@ public class GroovyScriptEngine implements ResourceConnector {
      */
     private ScriptCacheEntry updateCacheEntry(String scriptName)
             throws ResourceException, ScriptException {
-        ScriptCacheEntry entry;
+        ScriptCacheEntry entry = (ScriptCacheEntry) scriptCache.get(scriptName);
+        if (entry != null && isUpToDate(entry)) return entry;
 
         scriptName = scriptName.intern();
         synchronized (scriptName) {
+            // check if the script has been compiled again meanwhile
+            entry = (ScriptCacheEntry) scriptCache.get(scriptName);
+            if (entry != null) return entry;
 
             URLConnection groovyScriptConn = rc.getResourceConnection(scriptName);
+            try {
+                return compileScript(scriptName, groovyScriptConn);
+            } catch (Exception e) {
+                throw new ScriptException("Could not parse scriptName: " + scriptName, e);
+            }
+        }
+    }
 
-            // URL last modified
-            long lastModified = groovyScriptConn.getLastModified();
-            // Check the cache for the scriptName
-            entry = (ScriptCacheEntry) scriptCache.get(scriptName);
+    /**
+     * Compiles a script and adds it to the cache together with the scripts it depends on.
+     * Scripts referenced by the script are compiled first, while resolving its classes.
+     *
+     * @param scriptName resource name pointing to the script
+     * @param groovyScriptConn the connection to read the script from
+     * @return the new cache entry for scriptName
+     */
+    private ScriptCacheEntry compileScript(String scriptName, URLConnection groovyScriptConn)
+            throws CompilationFailedException, IOException {
+        ScriptCacheEntry entry = new ScriptCacheEntry(scriptName, groovyScriptConn.getURL(), groovyScriptConn.getLastModified());
+        Object previous = currentCacheEntryHolder.get();
+        currentCacheEntryHolder.set(entry);
+        InputStream in = null;
+        try {
+            in = groovyScriptConn.getInputStream();
+            entry.scriptClass = groovyLoader.parseClass(in, scriptName);
+        } finally {
+            currentCacheEntryHolder.set(previous);
+            try {
+                if (in != null)
+                    in.close();
+            } catch (IOException e) {
+                // Do nothing: Just want to make sure it is closed
+            }
+        }
 
-            if (entry == null || entry.lastModified < lastModified || dependencyOutOfDate(entry)) {
-                // Make a new entry
-                ScriptCacheEntry currentCacheEntry = new ScriptCacheEntry();
-                currentCacheEntryHolder.set(currentCacheEntry);
-                InputStream in = null;
-
-                try {
-                    in = groovyScriptConn.getInputStream();
-                    currentCacheEntry.scriptClass = groovyLoader.parseClass(in, scriptName);
-                } catch (Exception e) {
-                    throw new ScriptException("Could not parse scriptName: " + scriptName, e);
-                } finally {
-                    currentCacheEntryHolder.set(null);
-                    try {
-                        if (in != null)
-                            in.close();
-                    } catch (IOException e) {
-                        // Do nothing: Just want to make sure it is closed
-                    }
-                }
+        for (Iterator it = entry.references.iterator(); it.hasNext();) {
+            String dependency = (String) scriptNames.get(it.next());
+            if (dependency != null && !dependency.equals(scriptName)) entry.dependencies.add(dependency);
+        }
+        entry.references.clear();
+        for (Iterator it = entry.classNames.iterator(); it.hasNext();) {
+            scriptNames.put(it.next(), scriptName);
+        }
+
+        entry.lastCheck = System.currentTimeMillis();
+        scriptCache.put(scriptName, entry);
+        // a change reported while compiling may have found no entry to remove
+        if (notified && isSourceNewer(entry)) removeDependentScripts(Collections.singleton(scriptName));
+        return entry;
+    }
+
+    /**
+     * Checks the script and the scripts it depends on for modifications, unless this has been
+     * done within the minimum recompilation interval. Modified scripts and all scripts depending
+     * on them are removed from the cache.
+     *
+     * @param entry the cache entry of the script
+     * @return true if neither the script nor any of its dependencies have been modified
+     */
+    private boolean isUpToDate(ScriptCacheEntry entry) {
+        if (notified) return true;
+        long now = System.currentTimeMillis();
+        if (now - entry.lastCheck < getRecheckInterval()) return true;
+
+        Set modified = new HashSet();
+        collectModifiedScripts(entry, now, new HashSet(), modified);
+        if (modified.isEmpty()) return true;
+
+        removeDependentScripts(modified);
+        return false;
+    }
 
-                currentCacheEntry.lastModified = lastModified;
-                scriptCache.put(scriptName, currentCacheEntry);
-                entry = currentCacheEntry;
-                currentCacheEntry = null;
+    private long getRecheckInterval() {
+        CompilerConfiguration configuration = config != null ? config : CompilerConfiguration.DEFAULT;
+        return configuration.getMinimumRecompilationInterval();
+    }
+
+    private void collectModifiedScripts(ScriptCacheEntry entry, long now, Set visited, Set modified) {
+        if (!visited.add(entry.name)) return;
+        entry.lastCheck = now;
+        if (isSourceNewer(entry)) modified.add(entry.name);
+
+        for (Iterator it = entry.dependencies.iterator(); it.hasNext();) {
+            ScriptCacheEntry dependency = (ScriptCacheEntry) scriptCache.get(it.next());
+            if (dependency == null) {
+                // the dependency has been removed from the cache in another thread
+                modified.add(entry.name);
+            } else if (now - dependency.lastCheck >= getRecheckInterval()) {
+                collectModifiedScripts(dependency, now, visited, modified);
             }
         }
-        return entry;
     }
 
-    private boolean dependencyOutOfDate(ScriptCacheEntry entry) {
-        if (entry != null) {
-            for (Iterator i = entry.dependencies.keySet().iterator(); i.hasNext();) {
-                URLConnection urlc = null;
-                URL url = (URL) i.next();
-                try {
-                    urlc = url.openConnection();
-                    urlc.setDoInput(false);
-                    urlc.setDoOutput(false);
-                    long dependentLastModified = urlc.getLastModified();
-                    if (dependentLastModified > ((Long) entry.dependencies.get(url)).longValue()) {
-                        return true;
+    private static boolean isSourceNewer(ScriptCacheEntry entry) {
+        try {
+            return getLastModified(entry.url) > entry.lastModified;
+        } catch (IOException ioe) {
+            return true;
+        }
+    }
+
+    private static long getLastModified(URL url) throws IOException {
+        if ("file".equals(url.getProtocol())) {
+            // avoid opening the file like a URLConnection would do
+            try {
+                return new File(new URI(url.toExternalForm())).lastModified();
+            } catch (URISyntaxException e) {
+                // fall through
+            } catch (IllegalArgumentException e) {
+                // fall through
+            }
+        }
+        URLConnection urlc = url.openConnection();
+        urlc.setDoInput(false);
+        urlc.setDoOutput(false);
+        return urlc.getLastModified();
+    }
+
+    /**
+     * Removes the given scripts and all scripts depending on them directly or indirectly
+     * from the cache, so they are compiled again on their next use.
+     */
+    private void removeDependentScripts(Set modified) {
+        Set removed = new HashSet(modified);
+        boolean changed = true;
+        while (changed) {
+            changed = false;
+            for (Iterator it = scriptCache.values().iterator(); it.hasNext();) {
+                ScriptCacheEntry entry = (ScriptCacheEntry) it.next();
+                if (removed.contains(entry.name)) continue;
+                for (Iterator deps = entry.dependencies.iterator(); deps.hasNext();) {
+                    if (removed.contains(deps.next())) {
+                        removed.add(entry.name);
+                        changed = true;
+                        break;
                     }
-                } catch (IOException ioe) {
-                    return true;
                 }
             }
         }
-        return false;
+
+        for (Iterator it = removed.iterator(); it.hasNext();) {
+            ScriptCacheEntry entry = (ScriptCacheEntry) scriptCache.remove(it.next());
+            if (entry == null) continue;
+            ((ScriptClassLoader) groovyLoader).removeClasses(entry.classNames);
+            for (Iterator names = entry.classNames.iterator(); names.hasNext();) {
+                scriptNames.remove(names.next());
+            }
+        }
     }
 
     /**
@@ -21,8 +21,11 @@ import org.codehaus.groovy.runtime.ConversionHandler;
 import org.codehaus.groovy.runtime.DefaultGroovyMethods;
 import org.codehaus.groovy.runtime.InvokerHelper;
 
+import java.lang.ref.SoftReference;
 import java.lang.reflect.Method;
 import java.lang.reflect.Modifier;
+import java.security.AccessController;
+import java.security.PrivilegedAction;
 import java.util.*;
 
 /**
@@ -40,6 +43,11 @@ public class ProxyGenerator {
         setMetaClass(GroovySystem.getMetaClassRegistry().getMetaClass(ProxyGenerator.class));
     }
 
+    /**
+     * Generated proxy classes per class loader, keyed by the shape of the proxy.
+     */
+    private static final Map PROXY_CLASSES = new WeakHashMap();
+
     private ClassLoader override = null;
     private boolean debug = false;
     private boolean emptyMethods = false;
@@ -141,7 +149,24 @@ public class ProxyGenerator {
             baseClass = clazz;
         }
         boolean hasArgs = constructorArgs != null && constructorArgs.length > 0;
-        String name = shortName(baseClass.getName()) + "_groovyProxy";
+        ClassLoader cl = override != null ? override : baseClass.getClassLoader();
+        if (clazz == null && interfacesToImplement.size() > 0) {
+            Class c = (Class) interfacesToImplement.get(0);
+            cl = c.getClassLoader();
+        }
+
+        String key = createCacheKey("aggregate", baseClass, null, interfacesToImplement, map, hasArgs);
+        Class proxyClass = getCachedProxyClass(cl, key);
+        if (proxyClass == null) {
+            String name = shortName(baseClass.getName()) + "_groovyProxy";
+            String source = createAggregateSource(name, map, interfacesToImplement, clazz, baseClass, hasArgs);
+            proxyClass = compileProxyClass(cl, key, name, source);
+        }
+        Object[] args = hasArgs ? new Object[]{map, constructorArgs} : new Object[]{map};
+        return InvokerHelper.invokeConstructorOf(proxyClass, args);
+    }
+
+    private String createAggregateSource(String name, Map map, List interfacesToImplement, Class clazz, Class baseClass, boolean hasArgs) {
         StringBuffer buffer = new StringBuffer();
 
         // add class header and fields
@@ -214,30 +239,8 @@ public class ProxyGenerator {
         }
 
         // end class
-
-        buffer.append("}\n").append("new ").append(name);
-        buffer.append("(map");
-        if (hasArgs) {
-            buffer.append(", constructorArgs");
-        }
-        buffer.append(")");
-
-        Binding binding = new Binding();
-        binding.setVariable("map", map);
-        binding.setVariable("constructorArgs", constructorArgs);
-        ClassLoader cl = override != null ? override : baseClass.getClassLoader();
-        if (clazz == null && interfacesToImplement.size() > 0) {
-            Class c = (Class) interfacesToImplement.get(0);
-            cl = c.getClassLoader();
-        }
-        GroovyShell shell = new GroovyShell(cl, binding);
-        if (debug)
-            System.out.println("proxy source:\n------------------\n" + buffer.toString() + "\n------------------");
-        try {
-            return shell.evaluate(buffer.toString());
-        } catch (MultipleCompilationErrorsException err) {
-            throw new GroovyRuntimeException("Error creating proxy: " + err.getMessage());
-        }
+        buffer.append("}\n");
+        return buffer.toString();
     }
 
     public Object instantiateDelegate(Object delegate) {
@@ -266,11 +269,23 @@ public class ProxyGenerator {
         if (closureMap != null) {
             map = closureMap;
         }
-        List selectedMethods = new ArrayList();
         List interfacesToImplement = new ArrayList();
         if (interfaces != null) {
             interfacesToImplement = interfaces;
         }
+        ClassLoader cl = override != null ? override : delegate.getClass().getClassLoader();
+
+        String key = createCacheKey(name, baseClass, delegate.getClass(), interfacesToImplement, map, false);
+        Class proxyClass = getCachedProxyClass(cl, key);
+        if (proxyClass == null) {
+            String source = createDelegateSource(name, map, interfacesToImplement, delegate.getClass(), baseClass);
+            proxyClass = compileProxyClass(cl, key, name, source);
+        }
+        return InvokerHelper.invokeConstructorOf(proxyClass, new Object[]{map, delegate});
+    }
+
+    private String createDelegateSource(String name, Map map, List interfacesToImplement, Class delegateClass, Class baseClass) {
+        List selectedMethods = new ArrayList();
         StringBuffer buffer = new StringBuffer();
 
         // add class header and fields
@@ -310,7 +325,7 @@ public class ProxyGenerator {
                 addWrappedCall(buffer, method, map);
             }
         }
-        List additionalMethods = getInheritedMethods(delegate.getClass(), new ArrayList());
+        List additionalMethods = getInheritedMethods(delegateClass, new ArrayList());
         for (int i = 0; i < additionalMethods.size(); i++) {
             Method method = (Method) additionalMethods.get(i);
             if (method.getName().indexOf('$') != -1)
@@ -331,22 +346,70 @@ public class ProxyGenerator {
         }
 
         // end class
+        buffer.append("}\n");
+        return buffer.toString();
+    }
+
+    /**
+     * The generated source only depends on the types involved, the names found in the
+     * closure map and a few flags, so the resulting class can be shared by all proxies
+     * created with the same combination. Class names rather than classes are used so the
+     * cache does not keep the class loaders alive; it is partitioned by loader anyway.
+     */
+    private String createCacheKey(String kind, Class baseClass, Class delegateClass, List interfaces, Map map, boolean hasArgs) {
+        StringBuffer key = new StringBuffer(kind);
+        key.append('|').append(baseClass == null ? "" : baseClass.getName());
+        key.append('|').append(delegateClass == null ? "" : delegateClass.getName());
+        key.append('|');
+        for (int i = 0; i < interfaces.size(); i++) {
+            key.append(((Class) interfaces.get(i)).getName()).append(',');
+        }
+        key.append('|');
+        List names = new ArrayList();
+        for (Iterator iterator = map.keySet().iterator(); iterator.hasNext();) {
+            names.add(String.valueOf(iterator.next()));
+        }
+        Collections.sort(names);
+        for (int i = 0; i < names.size(); i++) {
+            key.append(names.get(i)).append(',');
+        }
+        key.append('|').append(hasArgs).append('|').append(emptyMethods);
+        return key.toString();
+    }
 
-        buffer.append("}\n").append("new ").append(name);
-        buffer.append("(map, delegate)");
+    private static Class getCachedProxyClass(ClassLoader cl, String key) {
+        synchronized (PROXY_CLASSES) {
+            Map classes = (Map) PROXY_CLASSES.get(cl);
+            if (classes == null) return null;
+            SoftReference ref = (SoftReference) classes.get(key);
+            return ref == null ? null : (Class) ref.get();
+        }
+    }
 
-        Binding binding = new Binding();
-        binding.setVariable("map", map);
-        binding.setVariable("delegate", delegate);
-        ClassLoader cl = override != null ? override : delegate.getClass().getClassLoader();
-        GroovyShell shell = new GroovyShell(cl, binding);
+    private Class compileProxyClass(final ClassLoader cl, String key, String name, String source) {
         if (debug)
-            System.out.println("proxy source:\n------------------\n" + buffer.toString() + "\n------------------");
+            System.out.println("proxy source:\n------------------\n" + source + "\n------------------");
+        GroovyClassLoader loader = (GroovyClassLoader) AccessController.doPrivileged(new PrivilegedAction() {
+            public Object run() {
+                // bootstrap classes have no loader, the proxy still needs the Groovy runtime
+                return new GroovyClassLoader(cl != null ? cl : ProxyGenerator.class.getClassLoader());
+            }
+        });
+        Class proxyClass;
         try {
-            return shell.evaluate(buffer.toString());
+            proxyClass = loader.parseClass(source, name + ".groovy");
         } catch (MultipleCompilationErrorsException err) {
             throw new GroovyRuntimeException("Error creating proxy: " + err.getMessage());
         }
+        synchronized (PROXY_CLASSES) {
+            Map classes = (Map) PROXY_CLASSES.get(cl);
+            if (classes == null) {
+                classes = new HashMap();
+                PROXY_CLASSES.put(cl, classes);
+            }
+            classes.put(key, new SoftReference(proxyClass));
+        }
+        return proxyClass;
     }
 
     private void addWrappedCall(StringBuffer buffer, Method method, Map map) {
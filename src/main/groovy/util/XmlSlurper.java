@@ -19,6 +19,7 @@ package groovy.util;
 import groovy.util.slurpersupport.GPathResult;
 import groovy.util.slurpersupport.Node;
 import groovy.util.slurpersupport.NodeChild;
+import groovy.util.slurpersupport.NodeTable;
 import groovy.xml.FactorySupport;
 
 import java.io.File;
@@ -60,6 +61,8 @@ public class XmlSlurper extends DefaultHandler {
   private final StringBuffer charBuffer = new StringBuffer();
   private final Map namespaceTagHints = new Hashtable();
   private boolean keepWhitespace = false;
+  private boolean compact = false;
+  private NodeTable table = null;
 
   public XmlSlurper() throws ParserConfigurationException, SAXException {
     this(false, true);
@@ -90,6 +93,18 @@ public class XmlSlurper extends DefaultHandler {
       this.keepWhitespace = keepWhitespace;
   }
   
+  /**
+   * @param compact
+   * 
+   * If true then documents are kept in a compact table with an index of the
+   * element names instead of a tree of nodes. Nodes are only created for the
+   * elements a GPath expression visits and text is copied out of a shared
+   * buffer when it is requested. The default is to build the tree of nodes.
+   */
+  public void setCompact(boolean compact) {
+      this.compact = compact;
+  }
+
   /**
    * @return The GPathResult instance created by consuming a stream of SAX events
    * Note if one of the parse methods has been called then this returns null
@@ -98,9 +113,13 @@ public class XmlSlurper extends DefaultHandler {
    */
   public GPathResult getDocument() {
     try {
+      if (this.table != null) {
+        return new NodeChild(this.table.getRoot(), null, this.namespaceTagHints);
+      }
       return new NodeChild(this.currentNode, null, this.namespaceTagHints);
     } finally {
       this.currentNode = null;
+      this.table = null;
     }
   }
   
@@ -284,6 +303,7 @@ public class XmlSlurper extends DefaultHandler {
   public void startDocument() throws SAXException {
     this.currentNode = null;
     this.charBuffer.setLength(0);
+    this.table = this.compact ? new NodeTable(this.keepWhitespace) : null;
   }
   
   /* (non-Javadoc)
@@ -297,7 +317,9 @@ public class XmlSlurper extends DefaultHandler {
    * @see org.xml.sax.ContentHandler#startElement(java.lang.String, java.lang.String, java.lang.String, org.xml.sax.Attributes)
    */
   public void startElement(final String namespaceURI, final String localName, final String qName, final Attributes atts) throws SAXException {
-    addCdata();
+    if (this.table == null) {
+      addCdata();
+    }
     
     final Map attributes = new HashMap();
     final Map attributeNamespaces = new HashMap();
@@ -312,6 +334,11 @@ public class XmlSlurper extends DefaultHandler {
       
     }
     
+    if (this.table != null) {
+      this.table.startElement(namespaceURI.length() == 0 ? qName : localName, namespaceURI, attributes, attributeNamespaces);
+      return;
+    }
+    
     final Node newElement;
     
     if (namespaceURI.length() == 0){
@@ -332,13 +359,22 @@ public class XmlSlurper extends DefaultHandler {
    * @see org.xml.sax.ContentHandler#characters(char[], int, int)
    */
   public void characters(final char[] ch, final int start, final int length) throws SAXException {
-    this.charBuffer.append(ch, start, length);
+    if (this.table != null) {
+      this.table.characters(ch, start, length);
+    } else {
+      this.charBuffer.append(ch, start, length);
+    }
   }
   
   /* (non-Javadoc)
    * @see org.xml.sax.ContentHandler#endElement(java.lang.String, java.lang.String, java.lang.String)
    */
   public void endElement(final String namespaceURI, final String localName, final String qName) throws SAXException {
+    if (this.table != null) {
+      this.table.endElement();
+      return;
+    }
+    
     addCdata();
     
     final Object oldCurrentNode = this.stack.pop();
@@ -352,6 +388,9 @@ public class XmlSlurper extends DefaultHandler {
    * @see org.xml.sax.ContentHandler#endDocument()
    */
   public void endDocument() throws SAXException {
+    if (this.table != null) {
+      this.table.finish();
+    }
   }
   
   // Implementation methods
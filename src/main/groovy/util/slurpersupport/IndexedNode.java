@@ -0,0 +1,63 @@
+/*
+ * Copyright 2003-2009 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package groovy.util.slurpersupport;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Node of an element kept in a {@link NodeTable}. Text and child nodes are read from
+ * the table until the children are requested as a list, which may be changed.
+ */
+class IndexedNode extends Node {
+    private final NodeTable table;
+    private final int element;
+    private boolean loaded;
+
+    IndexedNode(final NodeTable table, final int element) {
+        super(null, table.name(element), table.attributes(element), table.attributeNamespaces(element), table.namespaceURI(element));
+        this.table = table;
+        this.element = element;
+    }
+
+    public List children() {
+        if (!this.loaded) {
+            this.loaded = true;
+            this.table.addChildren(this.element, super.children());
+        }
+        return super.children();
+    }
+
+    public String text() {
+        return this.loaded ? super.text() : this.table.text(this.element);
+    }
+
+    public Iterator childNodes() {
+        return this.loaded ? super.childNodes() : this.table.childNodes(this.element);
+    }
+
+    public Iterator childNodes(final String name) {
+        return this.loaded ? super.childNodes(name) : this.table.childNodes(this.element, name);
+    }
+
+    public Writer writeTo(final Writer out) throws IOException {
+        if (this.loaded || isReplaced()) return super.writeTo(out);
+        this.table.writeTo(this.element, out);
+        return out;
+    }
+}
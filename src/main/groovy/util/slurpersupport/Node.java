@@ -39,8 +39,8 @@ public class Node implements Writable {
     private final Map attributes;
     private final Map attributeNamespaces;
     private final String namespaceURI;
-    private final List children = new LinkedList();
-    private final Stack replacementNodeStack = new Stack();
+    private List children;
+    private Stack replacementNodeStack;
 
     public Node(final Node parent, final String name, final Map attributes, final Map attributeNamespaces, final String namespaceURI) {
         this.name = name;
@@ -62,14 +62,20 @@ public class Node implements Writable {
     }
 
     public List children() {
+        if (this.children == null) this.children = new LinkedList();
         return this.children;
     }
 
     public void addChild(final Object child) {
-        this.children.add(child);
+        children().add(child);
+    }
+
+    boolean isReplaced() {
+        return this.replacementNodeStack != null && !this.replacementNodeStack.empty();
     }
 
     public void replaceNode(final Closure replacementClosure, final GPathResult result) {
+        if (this.replacementNodeStack == null) this.replacementNodeStack = new Stack();
         this.replacementNodeStack.push(new ReplacementNode() {
             public void build(final GroovyObject builder, final Map namespaceMap, final Map namespaceTagHints) {
                 final Closure c = (Closure) replacementClosure.clone();
@@ -83,13 +89,13 @@ public class Node implements Writable {
 
 
     protected void replaceBody(final Object newValue) {
-        this.children.clear();
-        this.children.add(newValue);
+        children().clear();
+        children().add(newValue);
     }
 
     protected void appendNode(final Object newValue, final GPathResult result) {
         if (newValue instanceof Closure) {
-            this.children.add(new ReplacementNode() {
+            children().add(new ReplacementNode() {
                 public void build(final GroovyObject builder, final Map namespaceMap, final Map namespaceTagHints) {
                     final Closure c = (Closure) ((Closure) newValue).clone();
                     c.setDelegate(builder);
@@ -97,7 +103,7 @@ public class Node implements Writable {
                 }
             });
         } else {
-            this.children.add(newValue);
+            children().add(newValue);
         }
     }
 
@@ -106,7 +112,7 @@ public class Node implements Writable {
     */
     public String text() {
         final StringBuffer buff = new StringBuffer();
-        final Iterator iter = this.children.iterator();
+        final Iterator iter = children().iterator();
         while (iter.hasNext()) {
             final Object child = iter.next();
 
@@ -125,7 +131,7 @@ public class Node implements Writable {
 
     public Iterator childNodes() {
         return new Iterator() {
-            private final Iterator iter = Node.this.children.iterator();
+            private final Iterator iter = Node.this.children().iterator();
             private Object nextElementNodes = getNextElementNodes();
 
             public boolean hasNext() {
@@ -157,12 +163,30 @@ public class Node implements Writable {
         };
     }
 
+    /**
+     * Returns the child nodes with the given name.
+     *
+     * @param name the local name of the child nodes
+     * @return an iterator over the matching child nodes
+     */
+    public Iterator childNodes(final String name) {
+        return new NodeIterator(childNodes()) {
+            protected Object getNextNode(final Iterator iter) {
+                while (iter.hasNext()) {
+                    final Node node = (Node) iter.next();
+                    if (name.equals(node.name())) return node;
+                }
+                return null;
+            }
+        };
+    }
+
     /* (non-Javadoc)
     * @see org.codehaus.groovy.sandbox.util.slurpersupport.Node#writeTo(java.io.Writer)
     */
     public Writer writeTo(final Writer out) throws IOException {
-        if (this.replacementNodeStack.empty()) {
-            final Iterator iter = this.children.iterator();
+        if (!isReplaced()) {
+            final Iterator iter = children().iterator();
             while (iter.hasNext()) {
                 final Object child = iter.next();
                 if (child instanceof Writable) {
@@ -179,7 +203,7 @@ public class Node implements Writable {
     }
 
     public void build(final GroovyObject builder, final Map namespaceMap, final Map namespaceTagHints) {
-        if (this.replacementNodeStack.empty()) {
+        if (!isReplaced()) {
             final Closure rest = new Closure(null) {
                 public Object doCall(final Object o) {
                     buildChildren(builder, namespaceMap, namespaceTagHints);
@@ -284,7 +308,7 @@ public class Node implements Writable {
     }
 
     private void buildChildren(final GroovyObject builder, final Map namespaceMap, final Map namespaceTagHints) {
-        final Iterator iter = this.children.iterator();
+        final Iterator iter = children().iterator();
         while (iter.hasNext()) {
             final Object child = iter.next();
             if (child instanceof Node) {
@@ -25,6 +25,7 @@ import java.io.IOException;
 import java.io.Writer;
 import java.util.Iterator;
 import java.util.Map;
+import java.util.NoSuchElementException;
 
 import org.codehaus.groovy.runtime.typehandling.DefaultTypeTransformation;
 
@@ -64,7 +65,7 @@ class NodeChildren extends GPathResult {
 
     public Iterator childNodes() {
         return new Iterator() {
-            private final Iterator iter = parent.childNodes();
+            private final Iterator iter = parentChildNodes();
             private Iterator childIter = nextChildIter();
 
             /* (non-Javadoc)
@@ -140,7 +141,7 @@ class NodeChildren extends GPathResult {
         if ("*".equals(name)) {
             return parent.childNodes();
         } else {
-            return new NodeIterator(parent.childNodes()) {
+            return new NodeIterator(parentChildNodes()) {
                 /* (non-Javadoc)
                 * @see org.codehaus.groovy.sandbox.util.slurpersupport.NodeIterator#getNextNode(java.util.Iterator)
                 */
@@ -161,6 +162,45 @@ class NodeChildren extends GPathResult {
         }
     }
 
+    /**
+     * Returns the child nodes of the parent which may match this step. For a single
+     * node or a plain path step as parent only the nodes with the name of this step
+     * are returned, so nodes with an index of their children do not have to look
+     * at all of them.
+     */
+    private Iterator parentChildNodes() {
+        if ("*".equals(name) || !(parent instanceof NodeChild || parent.getClass() == NodeChildren.class)) {
+            return parent.childNodes();
+        }
+        return new Iterator() {
+            private final Iterator nodes = parent.nodeIterator();
+            private Iterator children = nextChildren();
+
+            private Iterator nextChildren() {
+                while (nodes.hasNext()) {
+                    final Iterator result = ((Node) nodes.next()).childNodes(name);
+                    if (result.hasNext()) return result;
+                }
+                return null;
+            }
+
+            public boolean hasNext() {
+                return children != null;
+            }
+
+            public Object next() {
+                if (children == null) throw new NoSuchElementException();
+                final Object next = children.next();
+                if (!children.hasNext()) children = nextChildren();
+                return next;
+            }
+
+            public void remove() {
+                throw new UnsupportedOperationException();
+            }
+        };
+    }
+
     public GPathResult parents() {
         // TODO Auto-generated method stub
         throw new GroovyRuntimeException("parents() not implemented yet");
@@ -0,0 +1,409 @@
+/*
+ * Copyright 2003-2009 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package groovy.util.slurpersupport;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+/**
+ * Compact representation of a parsed document, built by the XmlSlurper in compact mode.
+ * <p/>
+ * Elements and text segments are kept in document order in a few parallel arrays instead
+ * of {@link Node} objects, and all text shares a single character buffer until it is
+ * requested. An index from element names to elements lets a path step pick the children
+ * with a given name without looking at the other children. Nodes are only created for the
+ * elements a GPath expression visits.
+ */
+public class NodeTable {
+    private static final int TEXT = -1;
+    private static final int NONE = -1;
+
+    private final boolean keepWhitespace;
+
+    // element names and namespace URIs
+    private final List strings = new ArrayList();
+    private final Map stringIds = new HashMap();
+
+    private int size;
+    private int[] names = new int[64];      // string id of the element name, TEXT for text segments
+    private int[] namespaces = new int[64]; // string id of the element namespace URI
+    private int[] parents = new int[64];
+    private int[] siblings = new int[64];   // next item with the same parent
+    private int[] firsts = new int[64];     // elements: first child, text: start in the character buffer
+    private int[] ends = new int[64];       // elements: end of the subtree, text: end in the character buffer
+    private Map[] attributes = new Map[64];
+    private Map[] attributeNamespaces = new Map[64];
+
+    private char[] chars = new char[1024];
+    private int charCount;
+    private int textStart;
+
+    // elements not closed yet and their last child
+    private int[] open = new int[16];
+    private int[] lastChildren = new int[16];
+    private int depth;
+
+    private int[][] nameIndex;
+    private Node[] nodes;
+
+    /**
+     * @param keepWhitespace if true then whitespace before elements is kept
+     */
+    public NodeTable(final boolean keepWhitespace) {
+        this.keepWhitespace = keepWhitespace;
+    }
+
+    // Building the table
+    //-------------------------------------------------------------------------
+
+    public void startElement(final String name, final String namespaceURI, final Map attributes, final Map attributeNamespaces) {
+        addText();
+        final int element = add(id(name));
+        this.namespaces[element] = id(namespaceURI);
+        this.firsts[element] = NONE;
+        this.attributes[element] = attributes.isEmpty() ? null : attributes;
+        this.attributeNamespaces[element] = attributeNamespaces.isEmpty() ? null : attributeNamespaces;
+
+        if (this.depth == this.open.length) {
+            this.open = grow(this.open, this.depth * 2);
+            this.lastChildren = grow(this.lastChildren, this.depth * 2);
+        }
+        this.open[this.depth] = element;
+        this.lastChildren[this.depth] = NONE;
+        this.depth++;
+    }
+
+    public void characters(final char[] ch, final int start, final int length) {
+        if (this.charCount + length > this.chars.length) {
+            final char[] copy = new char[Math.max(this.chars.length * 2, this.charCount + length)];
+            System.arraycopy(this.chars, 0, copy, 0, this.charCount);
+            this.chars = copy;
+        }
+        System.arraycopy(ch, start, this.chars, this.charCount, length);
+        this.charCount += length;
+    }
+
+    public void endElement() {
+        addText();
+        this.depth--;
+        this.ends[this.open[this.depth]] = this.size;
+    }
+
+    /**
+     * Releases the unused space of the table and builds the element name index.
+     */
+    public void finish() {
+        this.names = grow(this.names, this.size);
+        this.namespaces = grow(this.namespaces, this.size);
+        this.parents = grow(this.parents, this.size);
+        this.siblings = grow(this.siblings, this.size);
+        this.firsts = grow(this.firsts, this.size);
+        this.ends = grow(this.ends, this.size);
+        this.attributes = grow(this.attributes, this.size);
+        this.attributeNamespaces = grow(this.attributeNamespaces, this.size);
+        final char[] text = new char[this.charCount];
+        System.arraycopy(this.chars, 0, text, 0, this.charCount);
+        this.chars = text;
+
+        final int[] counts = new int[this.strings.size()];
+        for (int i = 0; i < this.size; i++) {
+            if (this.names[i] != TEXT) counts[this.names[i]]++;
+        }
+        this.nameIndex = new int[counts.length][];
+        for (int i = 0; i < counts.length; i++) {
+            if (counts[i] != 0) this.nameIndex[i] = new int[counts[i]];
+            counts[i] = 0;
+        }
+        for (int i = 0; i < this.size; i++) {
+            final int name = this.names[i];
+            if (name != TEXT) this.nameIndex[name][counts[name]++] = i;
+        }
+    }
+
+    private int id(final String string) {
+        Integer id = (Integer) this.stringIds.get(string);
+        if (id == null) {
+            id = new Integer(this.strings.size());
+            this.strings.add(string);
+            this.stringIds.put(string, id);
+        }
+        return id.intValue();
+    }
+
+    private int add(final int name) {
+        if (this.size == this.names.length) {
+            final int length = this.size + (this.size >> 1);
+            this.names = grow(this.names, length);
+            this.namespaces = grow(this.namespaces, length);
+            this.parents = grow(this.parents, length);
+            this.siblings = grow(this.siblings, length);
+            this.firsts = grow(this.firsts, length);
+            this.ends = grow(this.ends, length);
+            this.attributes = grow(this.attributes, length);
+            this.attributeNamespaces = grow(this.attributeNamespaces, length);
+        }
+        final int item = this.size++;
+        this.names[item] = name;
+        this.siblings[item] = NONE;
+        if (this.depth == 0) {
+            this.parents[item] = NONE;
+        } else {
+            final int parent = this.open[this.depth - 1];
+            final int last = this.lastChildren[this.depth - 1];
+            this.parents[item] = parent;
+            if (last == NONE) {
+                this.firsts[parent] = item;
+            } else {
+                this.siblings[last] = item;
+            }
+            this.lastChildren[this.depth - 1] = item;
+        }
+        return item;
+    }
+
+    private void addText() {
+        if (this.charCount == this.textStart) return;
+        if (this.depth == 0 || (!this.keepWhitespace && isWhitespace(this.textStart, this.charCount))) {
+            // drop the text like the XmlSlurper does
+            this.charCount = this.textStart;
+            return;
+        }
+        final int text = add(TEXT);
+        this.firsts[text] = this.textStart;
+        this.ends[text] = this.charCount;
+        this.textStart = this.charCount;
+    }
+
+    private boolean isWhitespace(final int start, final int end) {
+        for (int i = start; i < end; i++) {
+            if (this.chars[i] > ' ') return false;
+        }
+        return true;
+    }
+
+    private static int[] grow(final int[] array, final int length) {
+        final int[] copy = new int[length];
+        System.arraycopy(array, 0, copy, 0, Math.min(array.length, length));
+        return copy;
+    }
+
+    private static Map[] grow(final Map[] array, final int length) {
+        final Map[] copy = new Map[length];
+        System.arraycopy(array, 0, copy, 0, Math.min(array.length, length));
+        return copy;
+    }
+
+    // Navigation
+    //-------------------------------------------------------------------------
+
+    /**
+     * @return the node of the document element
+     */
+    public Node getRoot() {
+        return this.size == 0 ? null : node(0);
+    }
+
+    /**
+     * @return the number of elements and text segments in the table
+     */
+    public int size() {
+        return this.size;
+    }
+
+    /**
+     * Returns the node of an element, creating it on first use. There is only one node
+     * per element, so changes made through a GPath expression are kept.
+     */
+    Node node(final int element) {
+        if (this.nodes == null) this.nodes = new Node[this.size];
+        Node node = this.nodes[element];
+        if (node == null) {
+            node = new IndexedNode(this, element);
+            this.nodes[element] = node;
+        }
+        return node;
+    }
+
+    private Node existingNode(final int element) {
+        return this.nodes == null ? null : this.nodes[element];
+    }
+
+    String name(final int element) {
+        return (String) this.strings.get(this.names[element]);
+    }
+
+    String namespaceURI(final int element) {
+        return (String) this.strings.get(this.namespaces[element]);
+    }
+
+    Map attributes(final int element) {
+        final Map map = this.attributes[element];
+        return map == null ? new HashMap(2) : map;
+    }
+
+    Map attributeNamespaces(final int element) {
+        final Map map = this.attributeNamespaces[element];
+        return map == null ? new HashMap(2) : map;
+    }
+
+    void addChildren(final int element, final List children) {
+        for (int child = this.firsts[element]; child != NONE; child = this.siblings[child]) {
+            if (this.names[child] == TEXT) {
+                children.add(new String(this.chars, this.firsts[child], this.ends[child] - this.firsts[child]));
+            } else {
+                children.add(node(child));
+            }
+        }
+    }
+
+    String text(final int element) {
+        final StringBuffer buff = new StringBuffer();
+        appendText(element, buff);
+        return buff.toString();
+    }
+
+    private void appendText(final int element, final StringBuffer buff) {
+        for (int child = this.firsts[element]; child != NONE; child = this.siblings[child]) {
+            if (this.names[child] == TEXT) {
+                buff.append(this.chars, this.firsts[child], this.ends[child] - this.firsts[child]);
+            } else {
+                // a node may have been changed by a GPath expression
+                final Node node = existingNode(child);
+                if (node == null) {
+                    appendText(child, buff);
+                } else {
+                    buff.append(node.text());
+                }
+            }
+        }
+    }
+
+    void writeTo(final int element, final Writer out) throws IOException {
+        for (int child = this.firsts[element]; child != NONE; child = this.siblings[child]) {
+            if (this.names[child] == TEXT) {
+                out.write(this.chars, this.firsts[child], this.ends[child] - this.firsts[child]);
+            } else {
+                final Node node = existingNode(child);
+                if (node == null) {
+                    writeTo(child, out);
+                } else {
+                    node.writeTo(out);
+                }
+            }
+        }
+    }
+
+    Iterator childNodes(final int element) {
+        return new Iterator() {
+            private int next = nextElement(NodeTable.this.firsts[element]);
+
+            public boolean hasNext() {
+                return this.next != NONE;
+            }
+
+            public Object next() {
+                if (this.next == NONE) throw new NoSuchElementException();
+                final Node node = node(this.next);
+                this.next = nextElement(NodeTable.this.siblings[this.next]);
+                return node;
+            }
+
+            public void remove() {
+                throw new UnsupportedOperationException();
+            }
+        };
+    }
+
+    private int nextElement(int item) {
+        while (item != NONE && this.names[item] == TEXT) {
+            item = this.siblings[item];
+        }
+        return item;
+    }
+
+    Iterator childNodes(final int element, final String name) {
+        final Integer id = (Integer) this.stringIds.get(name);
+        if (id == null) return childNodes(element, new int[0]);
+        if (this.nameIndex == null) {
+            // not finished yet, look at all children
+            return new NodeIterator(childNodes(element)) {
+                protected Object getNextNode(final Iterator iter) {
+                    while (iter.hasNext()) {
+                        final Node node = (Node) iter.next();
+                        if (name.equals(node.name())) return node;
+                    }
+                    return null;
+                }
+            };
+        }
+        final int[] index = this.nameIndex[id.intValue()];
+        return childNodes(element, index == null ? new int[0] : index);
+    }
+
+    /**
+     * Iterates over the elements of the index that are children of the element.
+     * Since the items are in document order, these are found in the part of the index
+     * between the element and the end of its subtree.
+     */
+    private Iterator childNodes(final int element, final int[] index) {
+        return new Iterator() {
+            private int position = nextChild(firstAfter(index, element));
+
+            private int nextChild(int position) {
+                while (position < index.length && index[position] < NodeTable.this.ends[element]) {
+                    if (NodeTable.this.parents[index[position]] == element) return position;
+                    position++;
+                }
+                return index.length;
+            }
+
+            public boolean hasNext() {
+                return this.position < index.length;
+            }
+
+            public Object next() {
+                if (this.position >= index.length) throw new NoSuchElementException();
+                final Node node = node(index[this.position]);
+                this.position = nextChild(this.position + 1);
+                return node;
+            }
+
+            public void remove() {
+                throw new UnsupportedOperationException();
+            }
+        };
+    }
+
+    private static int firstAfter(final int[] index, final int element) {
+        int low = 0;
+        int high = index.length;
+        while (low < high) {
+            final int middle = (low + high) >>> 1;
+            if (index[middle] <= element) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+}
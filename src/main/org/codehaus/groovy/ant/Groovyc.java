@@ -87,6 +87,7 @@ public class Groovyc extends MatchingTask {
     private Path compileSourcepath;
     private String encoding;
     private boolean stacktrace = false;
+    private int parallelism = 1;
     private boolean verbose = false;
     private boolean includeAntRuntime = true;
     private boolean includeJavaRuntime = false;
@@ -513,6 +514,25 @@ public class Groovyc extends MatchingTask {
         this.stacktrace = stacktrace;
     }
 
+    /**
+     * Sets the number of threads used to compile the source files; defaults to 1.
+     * A value less than 1 uses one thread per available processor.
+     *
+     * @param parallelism the number of compiler threads
+     */
+    public void setParallelism(int parallelism) {
+        this.parallelism = parallelism;
+    }
+
+    /**
+     * Gets the number of threads used to compile the source files.
+     *
+     * @return the number of compiler threads
+     */
+    public int getParallelism() {
+        return parallelism;
+    }
+
     /**
      * Executes the task.
      *
@@ -711,6 +731,10 @@ public class Groovyc extends MatchingTask {
                 if (stacktrace) {
                     commandLineList.add("-e");
                 }
+                if (parallelism != 1) {
+                    commandLineList.add("--parallelism");
+                    commandLineList.add(String.valueOf(parallelism));
+                }
 
                 // check to see if an external file is needed
                 int count = 0;
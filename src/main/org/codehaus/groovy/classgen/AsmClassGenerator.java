@@ -17,6 +17,7 @@
 package org.codehaus.groovy.classgen;
 
 import groovy.lang.GroovyRuntimeException;
+import groovy.lang.IntRange;
 import org.codehaus.groovy.GroovyBugError;
 import org.codehaus.groovy.ast.*;
 import org.codehaus.groovy.ast.expr.*;
@@ -26,6 +27,7 @@ import org.codehaus.groovy.control.SourceUnit;
 import org.codehaus.groovy.runtime.MetaClassHelper;
 import org.codehaus.groovy.runtime.ScriptBytecodeAdapter;
 import org.codehaus.groovy.runtime.callsite.CallSite;
+import org.codehaus.groovy.runtime.callsite.ComparisonSite;
 import org.codehaus.groovy.runtime.typehandling.DefaultTypeTransformation;
 import org.codehaus.groovy.syntax.RuntimeParserException;
 import org.codehaus.groovy.syntax.Types;
@@ -63,6 +65,8 @@ public class AsmClassGenerator extends ClassGenerator {
      * maps the variable names to the JVM indices
      */
     private CompileStack compileStack;
+    // local variables of type int, long or double which are never assigned a possibly null value
+    private Set nonNullPrimitiveLocals = Collections.EMPTY_SET;
 
     /*
      * have we output a return statement yet
@@ -119,6 +123,15 @@ public class AsmClassGenerator extends ClassGenerator {
     static final MethodCaller compareLessThanEqualMethod = MethodCaller.newStatic(ScriptBytecodeAdapter.class, "compareLessThanEqual");
     static final MethodCaller compareGreaterThanMethod = MethodCaller.newStatic(ScriptBytecodeAdapter.class, "compareGreaterThan");
     static final MethodCaller compareGreaterThanEqualMethod = MethodCaller.newStatic(ScriptBytecodeAdapter.class, "compareGreaterThanEqual");
+
+    // comparison operators dispatched through call sites specializing on the operand classes
+    static final MethodCaller compareEqualSiteMethod = MethodCaller.newStatic(ComparisonSite.class, "compareEqual");
+    static final MethodCaller compareNotEqualSiteMethod = MethodCaller.newStatic(ComparisonSite.class, "compareNotEqual");
+    static final MethodCaller compareToSiteMethod = MethodCaller.newStatic(ComparisonSite.class, "compareTo");
+    static final MethodCaller compareLessThanSiteMethod = MethodCaller.newStatic(ComparisonSite.class, "compareLessThan");
+    static final MethodCaller compareLessThanEqualSiteMethod = MethodCaller.newStatic(ComparisonSite.class, "compareLessThanEqual");
+    static final MethodCaller compareGreaterThanSiteMethod = MethodCaller.newStatic(ComparisonSite.class, "compareGreaterThan");
+    static final MethodCaller compareGreaterThanEqualSiteMethod = MethodCaller.newStatic(ComparisonSite.class, "compareGreaterThanEqual");
     //regexpr
     static final MethodCaller findRegexMethod = MethodCaller.newStatic(ScriptBytecodeAdapter.class, "findRegex");
     static final MethodCaller matchRegexMethod = MethodCaller.newStatic(ScriptBytecodeAdapter.class, "matchRegex");
@@ -141,6 +154,12 @@ public class AsmClassGenerator extends ClassGenerator {
     static final MethodCaller createTupleMethod = MethodCaller.newStatic(ScriptBytecodeAdapter.class, "createTuple");
     static final MethodCaller createMapMethod = MethodCaller.newStatic(ScriptBytecodeAdapter.class, "createMap");
     static final MethodCaller createRangeMethod = MethodCaller.newStatic(ScriptBytecodeAdapter.class, "createRange");
+    // counted loops over int ranges
+    static final MethodCaller rangeLoopCountMethod = MethodCaller.newStatic(ScriptBytecodeAdapter.class, "rangeLoopCount");
+    static final MethodCaller rangeLoopStepMethod = MethodCaller.newStatic(ScriptBytecodeAdapter.class, "rangeLoopStep");
+    static final MethodCaller rangeLoopFirstMethod = MethodCaller.newStatic(ScriptBytecodeAdapter.class, "rangeLoopFirst");
+    static final MethodCaller rangeLoopFromMethod = MethodCaller.newStatic(ScriptBytecodeAdapter.class, "rangeLoopFrom");
+    static final MethodCaller rangeLoopToMethod = MethodCaller.newStatic(ScriptBytecodeAdapter.class, "rangeLoopTo");
 
     // wrapper creation methods
     static final MethodCaller createPojoWrapperMethod = MethodCaller.newStatic(ScriptBytecodeAdapter.class, "createPojoWrapper");
@@ -532,6 +551,7 @@ public class AsmClassGenerator extends ClassGenerator {
         }
 
         compileStack.init(node.getVariableScope(), parameters, mv, classNode);
+        nonNullPrimitiveLocals = getNonNullPrimitiveLocals(parameters, code);
 
 
         if (isNotClinit()) {
@@ -671,6 +691,10 @@ public class AsmClassGenerator extends ClassGenerator {
         if (o == EmptyExpression.INSTANCE) return;
         if (o instanceof Expression) {
             Expression expr = (Expression) o;
+            if (isUnboxedVariableAssignment(expr)) {
+                evaluateUnboxedVariableAssignment((BinaryExpression) expr, false);
+                return;
+            }
             visitAndAutoboxBoolean(expr);
             if (isPopRequired(expr)) mv.visitInsn(POP);
         } else {
@@ -748,6 +772,11 @@ public class AsmClassGenerator extends ClassGenerator {
             return;
         }
 
+        if (getCountedLoopRange(loop.getCollectionExpression()) != null) {
+            visitCountedForLoop(loop);
+            return;
+        }
+
         compileStack.pushLoop(loop.getVariableScope(), loop.getStatementLabel());
 
         // Declare the loop counter.
@@ -782,6 +811,297 @@ public class AsmClassGenerator extends ClassGenerator {
         compileStack.pop();
     }
 
+    /**
+     * @return the range iterated over by a loop of the form <code>for (i in r)</code>
+     * or <code>for (i in r.step(n))</code> with a non-zero int constant n, where r is
+     * a range literal or an expression of type IntRange, or null
+     */
+    private static Expression getCountedLoopRange(Expression collection) {
+        if (isCountedLoopRange(collection))
+          return collection;
+        if (getCountedLoopStep(collection) == 0)
+          return null;
+        return ((MethodCallExpression) collection).getObjectExpression();
+    }
+
+    private static boolean isCountedLoopRange(Expression expression) {
+        return expression instanceof RangeExpression || expression.getType().getName().equals(IntRange.class.getName());
+    }
+
+    /**
+     * @return the step of a loop over a range, 0 if the loop can't be counted
+     */
+    private static int getCountedLoopStep(Expression collection) {
+        if (isCountedLoopRange(collection))
+          return 1;
+        if (!(collection instanceof MethodCallExpression))
+          return 0;
+
+        final MethodCallExpression call = (MethodCallExpression) collection;
+        if (call.isSafe() || call.isSpreadSafe() || !isCountedLoopRange(call.getObjectExpression())
+                || !"step".equals(call.getMethodAsString()) || !(call.getArguments() instanceof TupleExpression))
+          return 0;
+
+        final List args = ((TupleExpression) call.getArguments()).getExpressions();
+        if (args.size() != 1)
+          return 0;
+
+        Expression arg = (Expression) args.get(0);
+        boolean negate = false;
+        if (arg instanceof UnaryMinusExpression) {
+            arg = ((UnaryMinusExpression) arg).getExpression();
+            negate = true;
+        }
+        if (!(arg instanceof ConstantExpression) || !(((ConstantExpression) arg).getValue() instanceof Integer))
+          return 0;
+
+        final int step = ((Integer) ((ConstantExpression) arg).getValue()).intValue();
+        return negate ? -step : step;
+    }
+
+    /**
+     * @return true if the variable is assigned to or incremented anywhere in the statement
+     */
+    private static boolean isAssignedInLoop(final String name, Statement block) {
+        final boolean[] assigned = new boolean[1];
+        block.visit(new CodeVisitorSupport() {
+            public void visitBinaryExpression(BinaryExpression expression) {
+                if (Types.ofType(expression.getOperation().getType(), Types.ASSIGNMENT_OPERATOR)
+                        && isVariable(expression.getLeftExpression()))
+                  assigned[0] = true;
+                super.visitBinaryExpression(expression);
+            }
+
+            public void visitPrefixExpression(PrefixExpression expression) {
+                if (isVariable(expression.getExpression()))
+                  assigned[0] = true;
+                super.visitPrefixExpression(expression);
+            }
+
+            public void visitPostfixExpression(PostfixExpression expression) {
+                if (isVariable(expression.getExpression()))
+                  assigned[0] = true;
+                super.visitPostfixExpression(expression);
+            }
+
+            private boolean isVariable(Expression expression) {
+                if (expression instanceof TupleExpression) {
+                    for (Iterator it = ((TupleExpression) expression).getExpressions().iterator(); it.hasNext();) {
+                        if (isVariable((Expression) it.next()))
+                          return true;
+                    }
+                    return false;
+                }
+                return expression instanceof VariableExpression && name.equals(((VariableExpression) expression).getName());
+            }
+        });
+        return assigned[0];
+    }
+
+    /**
+     * Compiles a loop over a range literal to a loop counting on primitive ints,
+     * producing the same values the iterator of the IntRange would.
+     * If the bounds are not statically known to be ints, they are checked at runtime
+     * and the loop falls back to the iterator of the range unless both are Integers.
+     * The loop variable is kept unboxed if it is an int, or if it is dynamically typed,
+     * not assigned to in the loop and the bounds are ints.
+     */
+    private void visitCountedForLoop(ForStatement loop) {
+        final Parameter loopVar = loop.getVariable();
+        final Expression range = getCountedLoopRange(loop.getCollectionExpression());
+        final int step = getCountedLoopStep(loop.getCollectionExpression());
+        final RangeExpression literal = range instanceof RangeExpression ? (RangeExpression) range : null;
+        // IntRange objects are normalized to inclusive bounds by rangeLoopFrom and rangeLoopTo
+        final boolean inclusive = literal == null || literal.isInclusive();
+        final boolean intBounds = literal != null
+                && getUnboxedType(literal.getFrom()) == ClassHelper.int_TYPE
+                && getUnboxedType(literal.getTo()) == ClassHelper.int_TYPE;
+
+        compileStack.pushLoop(loop.getVariableScope(), loop.getStatementLabel());
+
+        // Declare the loop counter.
+        final Variable variable;
+        final boolean unboxed = intBounds && !loopVar.isClosureSharedVariable()
+                && (loopVar.getType() == ClassHelper.int_TYPE && nonNullPrimitiveLocals.contains(loopVar)
+                    || loopVar.isDynamicTyped() && !isAssignedInLoop(loopVar.getName(), loop.getLoopBlock()));
+        if (unboxed) {
+            mv.visitInsn(ICONST_0);
+            variable = compileStack.defineUnboxedVariable(loopVar, ClassHelper.int_TYPE);
+        } else {
+            variable = compileStack.defineVariable(loopVar, false);
+        }
+
+        final int fromIdx = compileStack.defineTemporaryVariable("from", ClassHelper.int_TYPE, false);
+        final int toIdx = compileStack.defineTemporaryVariable("to", ClassHelper.int_TYPE, false);
+        final int valueIdx = compileStack.defineTemporaryVariable("value", ClassHelper.int_TYPE, false);
+        final int strideIdx = compileStack.defineTemporaryVariable("stride", ClassHelper.int_TYPE, false);
+        final int countIdx = compileStack.defineTemporaryVariable("count", ClassHelper.long_TYPE, false);
+        int iteratorIdx = -1;
+
+        Label continueLabel = compileStack.getContinueLabel();
+        Label breakLabel = compileStack.getBreakLabel();
+        Label counted = new Label();
+        Label check = new Label();
+        Label body = new Label();
+
+        if (intBounds) {
+            loadUnboxed(literal.getFrom(), ClassHelper.int_TYPE);
+            mv.visitVarInsn(ISTORE, fromIdx);
+            loadUnboxed(literal.getTo(), ClassHelper.int_TYPE);
+            mv.visitVarInsn(ISTORE, toIdx);
+        } else {
+            int fromObjIdx = -1;
+            int toObjIdx = -1;
+            int rangeObjIdx = -1;
+            if (literal != null) {
+                visitAndAutoboxBoolean(literal.getFrom());
+                fromObjIdx = compileStack.defineTemporaryVariable("fromObject", true);
+                visitAndAutoboxBoolean(literal.getTo());
+                toObjIdx = compileStack.defineTemporaryVariable("toObject", true);
+            } else {
+                visitAndAutoboxBoolean(range);
+                rangeObjIdx = compileStack.defineTemporaryVariable("range", true);
+            }
+
+            // the iterator is null if the loop is counted, all slots used in
+            // the loop are initialized on both paths for the verifier
+            mv.visitInsn(ACONST_NULL);
+            iteratorIdx = compileStack.defineTemporaryVariable("iterator", ClassHelper.make(java.util.Iterator.class), true);
+            mv.visitInsn(ICONST_0);
+            mv.visitVarInsn(ISTORE, valueIdx);
+            mv.visitInsn(ICONST_0);
+            mv.visitVarInsn(ISTORE, strideIdx);
+            mv.visitInsn(LCONST_0);
+            mv.visitVarInsn(LSTORE, countIdx);
+
+            Label iterate = new Label();
+            Expression collection;
+            if (literal != null) {
+                mv.visitVarInsn(ALOAD, fromObjIdx);
+                mv.visitTypeInsn(INSTANCEOF, "java/lang/Integer");
+                mv.visitJumpInsn(IFEQ, iterate);
+                mv.visitVarInsn(ALOAD, toObjIdx);
+                mv.visitTypeInsn(INSTANCEOF, "java/lang/Integer");
+                mv.visitJumpInsn(IFEQ, iterate);
+                mv.visitVarInsn(ALOAD, fromObjIdx);
+                helper.unbox(ClassHelper.int_TYPE);
+                mv.visitVarInsn(ISTORE, fromIdx);
+                mv.visitVarInsn(ALOAD, toObjIdx);
+                helper.unbox(ClassHelper.int_TYPE);
+                mv.visitVarInsn(ISTORE, toIdx);
+                // not an int range, iterate over the range created from the evaluated bounds
+                collection = new RangeExpression(
+                        new LoadTemporaryExpression(fromObjIdx), new LoadTemporaryExpression(toObjIdx), literal.isInclusive());
+            } else {
+                mv.visitVarInsn(ALOAD, rangeObjIdx);
+                mv.visitTypeInsn(INSTANCEOF, "groovy/lang/IntRange");
+                mv.visitJumpInsn(IFEQ, iterate);
+                mv.visitVarInsn(ALOAD, rangeObjIdx);
+                mv.visitTypeInsn(CHECKCAST, "groovy/lang/IntRange");
+                rangeLoopFromMethod.call(mv);
+                mv.visitVarInsn(ISTORE, fromIdx);
+                mv.visitVarInsn(ALOAD, rangeObjIdx);
+                mv.visitTypeInsn(CHECKCAST, "groovy/lang/IntRange");
+                rangeLoopToMethod.call(mv);
+                mv.visitVarInsn(ISTORE, toIdx);
+                // a null range is iterated like any other null collection
+                collection = new LoadTemporaryExpression(rangeObjIdx);
+            }
+            mv.visitJumpInsn(GOTO, counted);
+
+            mv.visitLabel(iterate);
+            if (!isCountedLoopRange(loop.getCollectionExpression())) {
+                collection = new MethodCallExpression(collection, "step", ((MethodCallExpression) loop.getCollectionExpression()).getArguments());
+            }
+            MethodCallExpression iterator = new MethodCallExpression(collection, "iterator", new ArgumentListExpression());
+            iterator.visit(this);
+            mv.visitVarInsn(ASTORE, iteratorIdx);
+            mv.visitJumpInsn(GOTO, check);
+        }
+
+        mv.visitLabel(counted);
+        loadRangeLoopArguments(fromIdx, toIdx, inclusive, step);
+        rangeLoopCountMethod.call(mv);
+        mv.visitVarInsn(LSTORE, countIdx);
+        loadRangeLoopArguments(fromIdx, toIdx, inclusive, step);
+        rangeLoopStepMethod.call(mv);
+        mv.visitVarInsn(ISTORE, strideIdx);
+        loadRangeLoopArguments(fromIdx, toIdx, inclusive, step);
+        rangeLoopFirstMethod.call(mv);
+        mv.visitVarInsn(ISTORE, valueIdx);
+
+        mv.visitLabel(check);
+        if (iteratorIdx != -1) {
+            Label countedCheck = new Label();
+            mv.visitVarInsn(ALOAD, iteratorIdx);
+            mv.visitJumpInsn(IFNULL, countedCheck);
+            mv.visitVarInsn(ALOAD, iteratorIdx);
+            iteratorHasNextMethod.call(mv);
+            // note: ifeq tests for ==0, a boolean is 0 if it is false
+            mv.visitJumpInsn(IFEQ, breakLabel);
+            mv.visitVarInsn(ALOAD, iteratorIdx);
+            iteratorNextMethod.call(mv);
+            helper.storeVar(variable);
+            mv.visitJumpInsn(GOTO, body);
+            mv.visitLabel(countedCheck);
+        }
+        mv.visitVarInsn(LLOAD, countIdx);
+        mv.visitInsn(LCONST_0);
+        mv.visitInsn(LCMP);
+        mv.visitJumpInsn(IFLE, breakLabel);
+        mv.visitVarInsn(LLOAD, countIdx);
+        mv.visitInsn(LCONST_1);
+        mv.visitInsn(LSUB);
+        mv.visitVarInsn(LSTORE, countIdx);
+        mv.visitVarInsn(ILOAD, valueIdx);
+        if (unboxed) {
+            helper.store(ClassHelper.int_TYPE, variable.getIndex());
+        } else {
+            helper.box(ClassHelper.int_TYPE);
+            helper.storeVar(variable);
+        }
+
+        // Generate the loop body
+        mv.visitLabel(body);
+        loop.getLoopBlock().visit(this);
+
+        mv.visitLabel(continueLabel);
+        if (iteratorIdx != -1) {
+            mv.visitVarInsn(ALOAD, iteratorIdx);
+            mv.visitJumpInsn(IFNONNULL, check);
+        }
+        mv.visitVarInsn(ILOAD, valueIdx);
+        mv.visitVarInsn(ILOAD, strideIdx);
+        mv.visitInsn(IADD);
+        mv.visitVarInsn(ISTORE, valueIdx);
+        mv.visitJumpInsn(GOTO, check);
+        mv.visitLabel(breakLabel);
+
+        compileStack.pop();
+    }
+
+    private void loadRangeLoopArguments(int fromIdx, int toIdx, boolean inclusive, int step) {
+        mv.visitVarInsn(ILOAD, fromIdx);
+        mv.visitVarInsn(ILOAD, toIdx);
+        helper.pushConstant(inclusive);
+        helper.pushConstant(step);
+    }
+
+    /**
+     * Loads a temporary variable holding an object
+     */
+    private static class LoadTemporaryExpression extends BytecodeExpression {
+        private final int index;
+
+        LoadTemporaryExpression(int index) {
+            this.index = index;
+        }
+
+        public void visit(MethodVisitor mv) {
+            mv.visitVarInsn(ALOAD, index);
+        }
+    }
+
     public void visitWhileLoop(WhileStatement loop) {
         onLineNumber(loop, "visitWhileLoop");
         visitStatement(loop);
@@ -1303,6 +1623,11 @@ public class AsmClassGenerator extends ClassGenerator {
 
         Expression expression = statement.getExpression();
 
+        if (isUnboxedVariableAssignment(expression)) {
+            evaluateUnboxedVariableAssignment((BinaryExpression) expression, false);
+            return;
+        }
+
         visitAndAutoboxBoolean(expression);
 
         if (isPopRequired(expression)) {
@@ -1330,11 +1655,11 @@ public class AsmClassGenerator extends ClassGenerator {
                 break;
 
             case Types.COMPARE_EQUAL: // ==
-                evaluateBinaryExpression(compareEqualMethod, expression);
+                evaluateCompareExpression(compareEqualMethod, compareEqualSiteMethod, expression);
                 break;
 
             case Types.COMPARE_NOT_EQUAL:
-                evaluateBinaryExpression(compareNotEqualMethod, expression);
+                evaluateCompareExpression(compareNotEqualMethod, compareNotEqualSiteMethod, expression);
                 break;
 
             case Types.COMPARE_TO:
@@ -1342,19 +1667,19 @@ public class AsmClassGenerator extends ClassGenerator {
                 break;
 
             case Types.COMPARE_GREATER_THAN:
-                evaluateBinaryExpression(compareGreaterThanMethod, expression);
+                evaluateCompareExpression(compareGreaterThanMethod, compareGreaterThanSiteMethod, expression);
                 break;
 
             case Types.COMPARE_GREATER_THAN_EQUAL:
-                evaluateBinaryExpression(compareGreaterThanEqualMethod, expression);
+                evaluateCompareExpression(compareGreaterThanEqualMethod, compareGreaterThanEqualSiteMethod, expression);
                 break;
 
             case Types.COMPARE_LESS_THAN:
-                evaluateBinaryExpression(compareLessThanMethod, expression);
+                evaluateCompareExpression(compareLessThanMethod, compareLessThanSiteMethod, expression);
                 break;
 
             case Types.COMPARE_LESS_THAN_EQUAL:
-                evaluateBinaryExpression(compareLessThanEqualMethod, expression);
+                evaluateCompareExpression(compareLessThanEqualMethod, compareLessThanEqualSiteMethod, expression);
                 break;
 
             case Types.LOGICAL_AND:
@@ -1891,6 +2216,36 @@ public class AsmClassGenerator extends ClassGenerator {
         leftHandExpression = lhs;
     }
 
+    private void makeSetPropertySite(Expression receiver, String methodName, boolean safe, boolean implicitThis, boolean groovyObject) {
+        // value to assign is already on the stack
+        if (isNotClinit()) {
+            mv.visitVarInsn(ALOAD, callSiteArrayVarIndex);
+        }
+        else {
+            mv.visitMethodInsn(INVOKESTATIC,internalClassName,"$getCallSiteArray","()[Lorg/codehaus/groovy/runtime/callsite/CallSite;");
+        }
+        final int index = allocateIndex(methodName);
+        mv.visitLdcInsn(index);
+        mv.visitInsn(AALOAD);
+        mv.visitInsn(SWAP);
+
+        // site, value
+        boolean lhs = leftHandExpression;
+        leftHandExpression = false;
+        boolean oldVal = this.implicitThis;
+        this.implicitThis = implicitThis;
+        visitAndAutoboxBoolean(receiver);
+        this.implicitThis = oldVal;
+        mv.visitInsn(SWAP);
+
+        // site, receiver, value
+        String callName = groovyObject ? "callGroovyObjectSetProperty" : "callSetProperty";
+        if (safe)
+          callName += "Safe";
+        mv.visitMethodInsn(INVOKEINTERFACE,"org/codehaus/groovy/runtime/callsite/CallSite", callName,"(Ljava/lang/Object;Ljava/lang/Object;)V");
+        leftHandExpression = lhs;
+    }
+
     private String getMethodName(Expression message) {
         String methodName = null;
         if (message instanceof CastExpression) {
@@ -2027,171 +2382,382 @@ public class AsmClassGenerator extends ClassGenerator {
     private final static HashSet<String> basic = new HashSet<String>();
 
     static {
-        Collections.addAll(names, "plus", "minus", "multiply", "div", "compareTo", "or", "and", "xor", "intdiv", "mod", "leftShift", "rightShift", "rightShiftUnsigned");
+        Collections.addAll(names, "plus", "minus", "multiply", "div", "or", "and", "xor", "intdiv", "mod", "leftShift", "rightShift", "rightShiftUnsigned");
         Collections.addAll(basic, "plus", "minus", "multiply", "div");
     }
 
-    private void makeBinopCallSite(BinaryExpression bin, String message) {
-        final Expression left = bin.getLeftExpression();
-        final Expression right = bin.getRightExpression();
-        if (!names.contains(message)) {
-           makeBinopCallSite(left, message, right);
+    private static String getArithmeticMethodName(int operationType) {
+        switch (operationType) {
+            case Types.BITWISE_AND:
+            case Types.BITWISE_AND_EQUAL:
+                return "and";
+
+            case Types.BITWISE_OR:
+            case Types.BITWISE_OR_EQUAL:
+                return "or";
+
+            case Types.BITWISE_XOR:
+            case Types.BITWISE_XOR_EQUAL:
+                return "xor";
+
+            case Types.PLUS:
+            case Types.PLUS_EQUAL:
+                return "plus";
+
+            case Types.MINUS:
+            case Types.MINUS_EQUAL:
+                return "minus";
+
+            case Types.MULTIPLY:
+            case Types.MULTIPLY_EQUAL:
+                return "multiply";
+
+            case Types.DIVIDE:
+            case Types.DIVIDE_EQUAL:
+                return "div";
+
+            case Types.INTDIV:
+            case Types.INTDIV_EQUAL:
+                return "intdiv";
+
+            case Types.MOD:
+            case Types.MOD_EQUAL:
+                return "mod";
+
+            case Types.LEFT_SHIFT:
+                return "leftShift";
+
+            case Types.RIGHT_SHIFT:
+                return "rightShift";
+
+            case Types.RIGHT_SHIFT_UNSIGNED:
+                return "rightShiftUnsigned";
         }
-        else {
-            improveExprType(bin);
+        return null;
+    }
 
-            ClassNode type1 = getLHSType(left);
-            ClassNode type2 = getLHSType(right);
-            if (ClassHelper.isNumberType(type1) && ClassHelper.isNumberType(type2)) {
-                ClassNode prim1 = ClassHelper.getUnwrapper(type1);
-                ClassNode prim2 = ClassHelper.getUnwrapper(type2);
+    /**
+     * Local variables of these types are kept unboxed in their slots
+     * and arithmetic on them is done without boxing intermediate results.
+     */
+    private static boolean isUnboxedType(ClassNode type) {
+        return type == ClassHelper.int_TYPE || type == ClassHelper.long_TYPE || type == ClassHelper.double_TYPE;
+    }
 
-                if (message.equals("div") && prim1 == ClassHelper.int_TYPE && prim2 == ClassHelper.int_TYPE) {
-                    makeBinopCallSite(left, message, right);
-                    return;
-                }
+    /**
+     * @return the local variable or parameter held unboxed in its slot, or null
+     */
+    private Variable getUnboxedVariable(Expression expression) {
+        if (!(expression instanceof VariableExpression))
+          return null;
 
-                ClassNode retType;
-                if (prim1 == ClassHelper.double_TYPE || prim2 == ClassHelper.double_TYPE) {
-                    retType = ClassHelper.double_TYPE;
-                }
-                else
-                if (prim1 == ClassHelper.float_TYPE || prim2 == ClassHelper.float_TYPE) {
-                    retType = ClassHelper.double_TYPE;
-                }
-                else
-                if (prim1 == ClassHelper.long_TYPE || prim2 == ClassHelper.long_TYPE) {
-                    retType = ClassHelper.long_TYPE;
-                }
-                else
-                    retType = ClassHelper.int_TYPE;
+        final VariableExpression varExp = (VariableExpression) expression;
+        if (varExp.isThisExpression() || varExp.isSuperExpression())
+          return null;
 
-                if (retType == ClassHelper.double_TYPE && !basic.contains(message)) {
-                    makeBinopCallSite(left, message, right);
-                    return;
-                }
+        final Variable variable = compileStack.getVariable(varExp.getName(), false);
+        if (variable == null || variable.isHolder() || !isUnboxedType(variable.getType()))
+          return null;
+        return variable;
+    }
 
-                if (left instanceof ConstantExpression) {
-                  mv.visitLdcInsn(((ConstantExpression)left).getValue());
-                }
-                else {
-                  visitAndAutoboxBoolean(left);
-                  helper.unbox(prim1);
-                }
+    /**
+     * @return the primitive type the expression can be evaluated to without boxing, or null
+     */
+    private ClassNode getUnboxedType(Expression expression) {
+        if (expression instanceof ConstantExpression) {
+            final Object value = ((ConstantExpression) expression).getValue();
+            if (value instanceof Integer)
+              return ClassHelper.int_TYPE;
+            if (value instanceof Long)
+              return ClassHelper.long_TYPE;
+            if (value instanceof Double)
+              return ClassHelper.double_TYPE;
+            return null;
+        }
+
+        final Variable variable = getUnboxedVariable(expression);
+        if (variable != null)
+          return variable.getType();
+
+        if (expression instanceof BinaryExpression && !(expression instanceof DeclarationExpression)) {
+            final BinaryExpression bin = (BinaryExpression) expression;
+            final String message = getArithmeticMethodName(bin.getOperation().getType());
+            if (message != null && getAssignmentOperationType(bin) == Types.UNKNOWN)
+              return getUnboxedBinopType(bin, message);
+        }
+        return null;
+    }
 
-                if (right instanceof ConstantExpression) {
-                    mv.visitLdcInsn(((ConstantExpression)right).getValue());
+    /**
+     * Determines the parameters and local variables declared int, long or double which
+     * never get a value assigned that might be null. Only those locals are held unboxed,
+     * others keep the boxed value so that they can hold null like any other local variable.
+     */
+    private static Set getNonNullPrimitiveLocals(Parameter[] parameters, Statement code) {
+        final Set candidates = new HashSet();
+        final Map assignments = new HashMap();
+        for (int i = 0; i < parameters.length; i++) {
+            if (isUnboxedType(parameters[i].getOriginType()))
+              candidates.add(parameters[i]);
+        }
+        if (code == null)
+          return candidates;
+
+        code.visit(new CodeVisitorSupport() {
+            public void visitDeclarationExpression(DeclarationExpression expression) {
+                final Expression left = expression.getLeftExpression();
+                if (left instanceof VariableExpression && isUnboxedType(((VariableExpression) left).getOriginType())) {
+                    candidates.add(getDeclaredVariable((VariableExpression) left));
+                    addAssignment(left, expression.getRightExpression());
                 }
-                else {
-                  visitAndAutoboxBoolean(right);
-                    helper.unbox(prim2);
+                visitBinaryExpression(expression);
+            }
+
+            public void visitBinaryExpression(BinaryExpression expression) {
+                if (!(expression instanceof DeclarationExpression) && expression.getOperation().getType() == Types.EQUAL) {
+                    final Expression left = expression.getLeftExpression();
+                    if (left instanceof TupleExpression) {
+                        for (Iterator it = ((TupleExpression) left).getExpressions().iterator(); it.hasNext();)
+                          addAssignment((Expression) it.next(), null);
+                    }
+                    else
+                      addAssignment(left, expression.getRightExpression());
                 }
+                super.visitBinaryExpression(expression);
+            }
 
-                mv.visitMethodInsn(INVOKESTATIC, "org/codehaus/groovy/runtime/typehandling/NumberMathModificationInfo", message, "(" + BytecodeHelper.getTypeDescription(prim1) + BytecodeHelper.getTypeDescription(prim2) + ")" + BytecodeHelper.getTypeDescription(retType));
-                helper.box(retType);
+            public void visitForLoop(ForStatement loop) {
+                // values of counted loops over ranges are never null
+                if (loop.getVariable().getOriginType() == ClassHelper.int_TYPE && getCountedLoopRange(loop.getCollectionExpression()) != null)
+                  candidates.add(loop.getVariable());
+                super.visitForLoop(loop);
             }
-            else {
-                makeBinopCallSite(left, message, right);
+
+            private void addAssignment(Expression left, Expression value) {
+                if (!(left instanceof VariableExpression))
+                  return;
+                final Object variable = getDeclaredVariable((VariableExpression) left);
+                List values = (List) assignments.get(variable);
+                if (values == null) {
+                    values = new ArrayList();
+                    assignments.put(variable, values);
+                }
+                values.add(value);
+            }
+        });
+
+        // a variable assigned from a variable which might be null might be null too
+        boolean changed = true;
+        while (changed) {
+            changed = false;
+            for (Iterator it = candidates.iterator(); it.hasNext();) {
+                final List values = (List) assignments.get(it.next());
+                if (values == null)
+                  continue;
+                for (int i = 0; i != values.size(); ++i) {
+                    if (!isNonNullValue((Expression) values.get(i), candidates)) {
+                        it.remove();
+                        changed = true;
+                        break;
+                    }
+                }
             }
         }
+        return candidates;
     }
 
-    private void improveExprType(Expression expr) {
-        if (expr instanceof BinaryExpression) {
-            if (ClassHelper.isNumberType(expr.getType()))
-              return;
+    private static Object getDeclaredVariable(VariableExpression expression) {
+        final org.codehaus.groovy.ast.Variable accessed = expression.getAccessedVariable();
+        return accessed == null ? expression : accessed;
+    }
 
-            final BinaryExpression bin = (BinaryExpression) expr;
-            String message = "";
-            switch (bin.getOperation().getType()) {
-                case Types.BITWISE_AND:
-                    message = "and";
-                    break;
+    /**
+     * @return true if the expression is known to evaluate to a value other than null
+     */
+    private static boolean isNonNullValue(Expression expression, Set nonNullLocals) {
+        if (expression == null)
+          return false;
+        if (expression instanceof ConstantExpression)
+          return ((ConstantExpression) expression).getValue() instanceof Number;
+        if (expression instanceof VariableExpression)
+          return nonNullLocals.contains(getDeclaredVariable((VariableExpression) expression));
+        if (expression instanceof BinaryExpression && !(expression instanceof DeclarationExpression)) {
+            final BinaryExpression bin = (BinaryExpression) expression;
+            return getArithmeticMethodName(bin.getOperation().getType()) != null && getAssignmentOperationType(bin) == Types.UNKNOWN;
+        }
+        return false;
+    }
 
-                case Types.BITWISE_OR:
-                    message = "or";
-                    break;
+    /**
+     * @return the operation type if the expression is a compound assignment, Types.UNKNOWN otherwise
+     */
+    private static int getAssignmentOperationType(BinaryExpression bin) {
+        switch (bin.getOperation().getType()) {
+            case Types.BITWISE_AND_EQUAL:
+            case Types.BITWISE_OR_EQUAL:
+            case Types.BITWISE_XOR_EQUAL:
+            case Types.PLUS_EQUAL:
+            case Types.MINUS_EQUAL:
+            case Types.MULTIPLY_EQUAL:
+            case Types.DIVIDE_EQUAL:
+            case Types.INTDIV_EQUAL:
+            case Types.MOD_EQUAL:
+                return bin.getOperation().getType();
+        }
+        return Types.UNKNOWN;
+    }
 
-                case Types.BITWISE_XOR:
-                    message = "xor";
-                    break;
+    /**
+     * Determines whether the operator can be evaluated by the primitive methods of
+     * NumberMathModificationInfo, which fall back to dynamic dispatch if the
+     * corresponding method of the number class has been replaced.
+     *
+     * @return the primitive result type, or null if the operator has to be dispatched dynamically
+     */
+    private ClassNode getUnboxedBinopType(BinaryExpression bin, String message) {
+        if (!names.contains(message))
+          return null;
 
-                case Types.PLUS:
-                    message = "plus";
-                    break;
+        final ClassNode prim1 = getUnboxedType(bin.getLeftExpression());
+        if (prim1 == null)
+          return null;
+        final ClassNode prim2 = getUnboxedType(bin.getRightExpression());
+        if (prim2 == null)
+          return null;
 
-                case Types.MINUS:
-                    message = "minus";
-                    break;
+        final ClassNode retType;
+        if (prim1 == ClassHelper.double_TYPE || prim2 == ClassHelper.double_TYPE) {
+            retType = ClassHelper.double_TYPE;
+        }
+        else
+        if (prim1 == ClassHelper.long_TYPE || prim2 == ClassHelper.long_TYPE) {
+            retType = ClassHelper.long_TYPE;
+        }
+        else
+            retType = ClassHelper.int_TYPE;
 
-                case Types.MULTIPLY:
-                    message = "multiply";
-                    break;
+        // division of integral numbers results in a BigDecimal
+        if (message.equals("div") && retType != ClassHelper.double_TYPE)
+          return null;
 
-                case Types.DIVIDE:
-                    message = "div";
-                    break;
+        if (retType == ClassHelper.double_TYPE && !basic.contains(message))
+          return null;
 
-                case Types.INTDIV:
-                    message = "intdiv";
-                    break;
+        return retType;
+    }
 
-                case Types.MOD:
-                    message = "mod";
-                    break;
+    /**
+     * Evaluates the operator and leaves the result unboxed on the stack
+     */
+    private void evaluateUnboxedBinop(Expression left, String message, Expression right, ClassNode retType) {
+        final ClassNode prim1 = getUnboxedType(left);
+        final ClassNode prim2 = getUnboxedType(right);
+        loadUnboxed(left, prim1);
+        loadUnboxed(right, prim2);
+        mv.visitMethodInsn(INVOKESTATIC, "org/codehaus/groovy/runtime/typehandling/NumberMathModificationInfo", message, "(" + BytecodeHelper.getTypeDescription(prim1) + BytecodeHelper.getTypeDescription(prim2) + ")" + BytecodeHelper.getTypeDescription(retType));
+    }
 
-                case Types.LEFT_SHIFT:
-                    message = "leftShift";
-                    break;
+    /**
+     * Loads the value of the expression converted to the given primitive type
+     */
+    private void loadUnboxed(Expression expression, ClassNode type) {
+        final boolean lhs = leftHandExpression;
+        leftHandExpression = false;
 
-                case Types.RIGHT_SHIFT:
-                    message = "rightShift";
-                    break;
+        final ClassNode exprType = getUnboxedType(expression);
+        if (exprType == null) {
+            visitAndAutoboxBoolean(expression);
+            helper.unbox(type);
+        }
+        else {
+            if (expression instanceof ConstantExpression) {
+                mv.visitLdcInsn(((ConstantExpression) expression).getValue());
+            }
+            else
+            if (expression instanceof VariableExpression) {
+                helper.load(getUnboxedVariable(expression));
+            }
+            else {
+                final BinaryExpression bin = (BinaryExpression) expression;
+                final String message = getArithmeticMethodName(bin.getOperation().getType());
+                evaluateUnboxedBinop(bin.getLeftExpression(), message, bin.getRightExpression(), exprType);
+            }
 
-                case Types.RIGHT_SHIFT_UNSIGNED:
-                    message = "rightShiftUnsigned";
-                    break;
+            if (exprType != type) {
+                helper.box(exprType);
+                helper.unbox(type);
             }
+        }
 
-            if (!names.contains(message))
-              return;
+        leftHandExpression = lhs;
+    }
 
-            improveExprType(bin.getLeftExpression());
-            improveExprType(bin.getRightExpression());
+    private void makeBinopCallSite(BinaryExpression bin, String message) {
+        final ClassNode retType = getUnboxedBinopType(bin, message);
+        if (retType == null) {
+            makeBinopCallSite(bin.getLeftExpression(), message, bin.getRightExpression());
+        }
+        else {
+            evaluateUnboxedBinop(bin.getLeftExpression(), message, bin.getRightExpression(), retType);
+            helper.box(retType);
+        }
+    }
 
-            ClassNode type1 = getLHSType(bin.getLeftExpression());
-            ClassNode type2 = getLHSType(bin.getRightExpression());
+    /**
+     * @return true if the expression assigns to a local variable held unboxed in its slot
+     */
+    private boolean isUnboxedVariableAssignment(Expression expression) {
+        if (!(expression instanceof BinaryExpression) || expression instanceof DeclarationExpression)
+          return false;
 
-            if (ClassHelper.isNumberType(type1) && ClassHelper.isNumberType(type2)) {
-                ClassNode prim1 = ClassHelper.getUnwrapper(type1);
-                ClassNode prim2 = ClassHelper.getUnwrapper(type2);
+        final BinaryExpression bin = (BinaryExpression) expression;
+        final int type = bin.getOperation().getType();
+        if (type != Types.EQUAL && getAssignmentOperationType(bin) == Types.UNKNOWN)
+          return false;
 
-                if (message.equals("div") && prim1 == ClassHelper.int_TYPE && prim2 == ClassHelper.int_TYPE) {
-                    return;
-                }
+        return getUnboxedVariable(bin.getLeftExpression()) != null;
+    }
 
-                ClassNode retType;
-                if (prim1 == ClassHelper.double_TYPE || prim2 == ClassHelper.double_TYPE) {
-                    retType = ClassHelper.double_TYPE;
-                }
-                else
-                if (prim1 == ClassHelper.float_TYPE || prim2 == ClassHelper.float_TYPE) {
-                    retType = ClassHelper.double_TYPE;
-                }
-                else
-                if (prim1 == ClassHelper.long_TYPE || prim2 == ClassHelper.long_TYPE) {
-                    retType = ClassHelper.long_TYPE;
-                }
-                else
-                    retType = ClassHelper.int_TYPE;
+    /**
+     * Assigns to a local variable held unboxed in its slot, evaluating the
+     * right hand side and compound operators unboxed where possible.
+     *
+     * @param valueNeeded if true the assigned value is left boxed on the stack
+     */
+    private void evaluateUnboxedVariableAssignment(BinaryExpression expression, boolean valueNeeded) {
+        final Variable variable = getUnboxedVariable(expression.getLeftExpression());
+        final ClassNode type = variable.getType();
 
-                if (retType == ClassHelper.double_TYPE && !basic.contains(message)) {
-                    return;
+        if (expression.getOperation().getType() == Types.EQUAL) {
+            loadUnboxed(expression.getRightExpression(), type);
+        }
+        else {
+            final String message = getArithmeticMethodName(expression.getOperation().getType());
+            final ClassNode retType = getUnboxedBinopType(expression, message);
+            if (retType == null) {
+                makeBinopCallSite(expression.getLeftExpression(), message, expression.getRightExpression());
+                helper.unbox(type);
+            }
+            else {
+                evaluateUnboxedBinop(expression.getLeftExpression(), message, expression.getRightExpression(), retType);
+                if (retType != type) {
+                    helper.box(retType);
+                    helper.unbox(type);
                 }
-
-                bin.setType(retType);
             }
         }
+
+        if (valueNeeded) {
+            if (type == ClassHelper.long_TYPE || type == ClassHelper.double_TYPE)
+              mv.visitInsn(DUP2);
+            else
+              mv.visitInsn(DUP);
+        }
+        helper.store(type, variable.getIndex());
+        if (valueNeeded) {
+            helper.box(type);
+        }
     }
 
     private void makeBinopCallSite(Expression receiver, String message, Expression arguments) {
@@ -2588,6 +3154,9 @@ public class AsmClassGenerator extends ClassGenerator {
             if (adapter == getGroovyObjectProperty && !expression.isSpreadSafe() && methodName != null) {
                 makeGroovyObjectGetPropertySite(objectExpression, methodName, expression.isSafe(), expression.isImplicitThis());
             }
+            else if ((adapter == setProperty || adapter == setGroovyObjectProperty) && !expression.isSpreadSafe() && methodName != null) {
+                makeSetPropertySite(objectExpression, methodName, expression.isSafe(), expression.isImplicitThis(), adapter == setGroovyObjectProperty);
+            }
             else {
                 makeCall(
                         objectExpression, // receiver
@@ -3637,6 +4206,7 @@ public class AsmClassGenerator extends ClassGenerator {
                                     new ArgumentListExpression(parameters))));
             call.setSourcePosition(expression);
         }
+        addDirectCallMethods(answer, parameters);
 
         // let's make the constructor
         BlockStatement block = new BlockStatement();
@@ -3703,6 +4273,55 @@ public class AsmClassGenerator extends ClassGenerator {
         return answer;
     }
 
+    /**
+     * Overrides the fixed arity directCall methods of Closure, which invoke
+     * doCall without going through the meta class. Only closures with untyped
+     * parameters get them, any other doCall may need argument coercion.
+     */
+    private void addDirectCallMethods(InnerClassNode closureClass, Parameter[] parameters) {
+        if (parameters.length > 2) return;
+        for (int i = 0; i < parameters.length; i++) {
+            if (!ClassHelper.OBJECT_TYPE.equals(parameters[i].getType())) return;
+        }
+        addDirectCallMethod(closureClass, parameters.length, parameters.length);
+        // a single parameter defaults to null when called without arguments
+        if (parameters.length == 1
+                && (!parameters[0].hasInitialExpression() || parameters[0].getInitialExpression() == ConstantExpression.NULL)) {
+            addDirectCallMethod(closureClass, 0, 1);
+        }
+    }
+
+    private void addDirectCallMethod(InnerClassNode closureClass, final int arity, final int doCallArity) {
+        final String closureType = BytecodeHelper.getClassInternalName(closureClass);
+        Parameter[] params = new Parameter[arity];
+        StringBuffer descriptor = new StringBuffer("(");
+        for (int i = 0; i < doCallArity; i++) {
+            if (i < arity) params[i] = new Parameter(ClassHelper.OBJECT_TYPE, "p" + i);
+            descriptor.append("Ljava/lang/Object;");
+        }
+        final String doCallDescriptor = descriptor.append(")Ljava/lang/Object;").toString();
+        closureClass.addSyntheticMethod(
+                "directCall",
+                ACC_PROTECTED,
+                ClassHelper.OBJECT_TYPE,
+                params,
+                ClassNode.EMPTY_ARRAY,
+                new BytecodeSequence(new BytecodeInstruction() {
+                    public void visit(MethodVisitor mv) {
+                        mv.visitVarInsn(ALOAD, 0);
+                        for (int i = 0; i < doCallArity; i++) {
+                            if (i < arity) {
+                                mv.visitVarInsn(ALOAD, i + 1);
+                            } else {
+                                mv.visitInsn(ACONST_NULL);
+                            }
+                        }
+                        mv.visitMethodInsn(INVOKEVIRTUAL, closureType, "doCall", doCallDescriptor);
+                        mv.visitInsn(ARETURN);
+                    }
+                }));
+    }
+
     /**
      * this method is called for local variables shared between scopes.
      * These variables must not have init values because these would
@@ -3805,11 +4424,15 @@ public class AsmClassGenerator extends ClassGenerator {
     }
 
     protected void evaluateBinaryExpression(String method, BinaryExpression expression) {
-//        makeBinopCallSite(expression, method);
-        makeBinopCallSite(expression.getLeftExpression(), method, expression.getRightExpression());
+        makeBinopCallSite(expression, method);
     }
 
     protected void evaluateCompareTo(BinaryExpression expression) {
+        final boolean useSite = !classNode.isInterface();
+        if (useSite) {
+            prepareCallSite("compareTo");
+        }
+
         Expression leftExpression = expression.getLeftExpression();
         leftExpression.visit(this);
         if (isComparisonExpression(leftExpression)) {
@@ -3822,10 +4445,18 @@ public class AsmClassGenerator extends ClassGenerator {
         if (isComparisonExpression(rightExpression)) {
             helper.boxBoolean();
         }
-        compareToMethod.call(mv);
+        if (useSite)
+          compareToSiteMethod.call(mv);
+        else
+          compareToMethod.call(mv);
     }
 
     protected void evaluateBinaryExpressionWithAssignment(String method, BinaryExpression expression) {
+        if (isUnboxedVariableAssignment(expression)) {
+            evaluateUnboxedVariableAssignment(expression, true);
+            return;
+        }
+
         Expression leftExpression = expression.getLeftExpression();
         if (leftExpression instanceof BinaryExpression) {
             BinaryExpression leftBinExpr = (BinaryExpression) leftExpression;
@@ -3880,6 +4511,22 @@ public class AsmClassGenerator extends ClassGenerator {
         compareMethod.call(mv);
     }
 
+    /**
+     * Comparisons go through a call site specializing on the operand classes,
+     * interfaces have no call site array and use the static helper instead.
+     */
+    private void evaluateCompareExpression(MethodCaller compareMethod, MethodCaller siteMethod, BinaryExpression expression) {
+        if (classNode.isInterface()) {
+            evaluateBinaryExpression(compareMethod, expression);
+            return;
+        }
+
+        prepareCallSite("compareTo");
+        load(expression.getLeftExpression());
+        load(expression.getRightExpression());
+        siteMethod.call(mv);
+    }
+
     protected void evaluateEqual(BinaryExpression expression, boolean defineVariable) {
         Expression leftExpression = expression.getLeftExpression();
         if (leftExpression instanceof BinaryExpression) {
@@ -3907,8 +4554,23 @@ public class AsmClassGenerator extends ClassGenerator {
             }
         }
 
+        if (!defineVariable && isUnboxedVariableAssignment(expression)) {
+            evaluateUnboxedVariableAssignment(expression, true);
+            return;
+        }
+
         // let's evaluate the RHS then hopefully the LHS will be a field
         Expression rightExpression = expression.getRightExpression();
+        if (defineVariable && leftExpression instanceof VariableExpression) {
+            VariableExpression var = (VariableExpression) leftExpression;
+            ClassNode type = var.getOriginType();
+            if (isUnboxedType(type) && !var.isClosureSharedVariable() && nonNullPrimitiveLocals.contains(getDeclaredVariable(var))) {
+                // keep the value unboxed
+                loadUnboxed(rightExpression, type);
+                compileStack.defineUnboxedVariable(var, type);
+                return;
+            }
+        }
         if (!(leftExpression instanceof TupleExpression)) {
         	ClassNode type = null;
         	if(expression instanceof DeclarationExpression) {
@@ -361,8 +361,10 @@ public class BytecodeHelper implements Opcodes {
     public void store(Variable v, boolean markStart) {
         ClassNode type = v.getType();
         unbox(type);
-        int idx = v.getIndex();
+        store(type, v.getIndex());
+    }
 
+    public void store(ClassNode type, int idx) {
         if (type == ClassHelper.double_TYPE) {
             mv.visitVarInsn(DSTORE, idx);
         } else if (type == ClassHelper.float_TYPE) {
@@ -515,6 +515,22 @@ public class CompileStack implements Opcodes {
         return answer;
     }
 
+    /**
+     * Defines a new Variable of primitive type, held unboxed in its slot.
+     * The unboxed value of the variable is expected on the stack.
+     */
+    public Variable defineUnboxedVariable(org.codehaus.groovy.ast.Variable v, ClassNode type) {
+        String name = v.getName();
+        Variable answer = defineVar(name, type, false);
+        stackVariables.put(name, answer);
+
+        Label startLabel  = new Label();
+        answer.setStartLabel(startLabel);
+        helper.store(type, currentVariableIndex);
+        mv.visitLabel(startLabel);
+        return answer;
+    }
+
     /**
      * @param name the name of the variable of interest
      * @return true if a variable is already defined
@@ -0,0 +1,152 @@
+/*
+ * Copyright 2003-2009 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.codehaus.groovy.control;
+
+import groovy.lang.GroovyClassLoader;
+
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Remembers the class and script lookups {@link ResolveVisitor} makes through a
+ * {@link GroovyClassLoader}, so that compilations using the same loader don't
+ * repeat them. Most lookups of a compilation fail, as a simple name is probed
+ * against every default import package before it is found, and a failed
+ * <code>loadClass</code> is the most expensive kind of lookup.
+ * <p/>
+ * Only classes not defined by a GroovyClassLoader are cached. Failed lookups
+ * are cached only for plain GroovyClassLoader instances, as subclasses may find
+ * classes and scripts dynamically; failed class lookups only if no parent of the
+ * loader is a GroovyClassLoader, failed script lookups only while the loader
+ * uses its own resource loader. Missing
+ * scripts are looked up again after the minimum recompilation interval, also
+ * if recompilation is disabled, as sources may be added at any time. The loader
+ * drops the entries of a name when it defines a class of that name and all
+ * failed lookups when its class path changes.
+ */
+public class ClassResolutionCache {
+
+    private static final Object MISSING = new Object();
+
+    private final GroovyClassLoader loader;
+    private final CompilerConfiguration configuration;
+    private final boolean cacheMissingClasses;
+    private volatile boolean cacheMissingSources;
+
+    private final Map classes = new ConcurrentHashMap();
+    private final Map missingSources = new ConcurrentHashMap();
+
+    public ClassResolutionCache(GroovyClassLoader loader, CompilerConfiguration configuration) {
+        this.loader = loader;
+        this.configuration = configuration;
+
+        boolean groovyParent = false;
+        for (ClassLoader parent = loader.getParent(); parent != null; parent = parent.getParent()) {
+            if (parent instanceof GroovyClassLoader) {
+                groovyParent = true;
+                break;
+            }
+        }
+        cacheMissingSources = loader.getClass() == GroovyClassLoader.class;
+        cacheMissingClasses = cacheMissingSources && !groovyParent;
+    }
+
+    /**
+     * Loads a class without looking up script files, like
+     * <code>loadClass(name, false, true)</code> on the loader does.
+     *
+     * @param name the name of the class
+     * @return the class or null if there is no such class
+     * @throws CompilationFailedException if the loader failed to compile a source
+     */
+    public Class loadClass(String name) throws CompilationFailedException {
+        Object cached = classes.get(name);
+        if (cached == MISSING) return null;
+        if (cached != null) return (Class) cached;
+
+        Class cls;
+        try {
+            cls = loader.loadClass(name, false, true);
+        } catch (ClassNotFoundException cnfe) {
+            if (cacheMissingClasses) classes.put(name, MISSING);
+            return null;
+        }
+        if (cls != null && !(cls.getClassLoader() instanceof GroovyClassLoader)) {
+            classes.put(name, cls);
+        }
+        return cls;
+    }
+
+    /**
+     * Looks up the source of a script with the resource loader of the loader.
+     *
+     * @param name the name of the class
+     * @return the URL of the source or null if there is no such script
+     */
+    public URL loadGroovySource(String name) throws MalformedURLException {
+        if (cacheMissingSources) {
+            Long since = (Long) missingSources.get(name);
+            if (since != null && !isExpired(since.longValue())) return null;
+        }
+
+        URL url = loader.getResourceLoader().loadGroovySource(name);
+        if (url == null) {
+            if (cacheMissingSources) missingSources.put(name, new Long(System.currentTimeMillis()));
+        } else {
+            missingSources.remove(name);
+        }
+        return url;
+    }
+
+    private boolean isExpired(long since) {
+        return System.currentTimeMillis() - since >= configuration.getMinimumRecompilationInterval();
+    }
+
+    /**
+     * Enables or disables caching of failed script lookups, for example because
+     * a resource loader with sources that may appear at any time is used.
+     */
+    public void setCacheMissingSources(boolean cache) {
+        cacheMissingSources = cache;
+        if (!cache) missingSources.clear();
+    }
+
+    /**
+     * Drops all entries for the given name.
+     */
+    public void remove(String name) {
+        classes.remove(name);
+        missingSources.remove(name);
+    }
+
+    /**
+     * Drops the entries of all failed lookups.
+     */
+    public void removeMissing() {
+        for (Iterator it = classes.values().iterator(); it.hasNext();) {
+            if (it.next() == MISSING) it.remove();
+        }
+        missingSources.clear();
+    }
+
+    public void clear() {
+        classes.clear();
+        missingSources.clear();
+    }
+}
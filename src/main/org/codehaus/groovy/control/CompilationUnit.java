@@ -43,6 +43,11 @@ import java.io.InputStream;
 import java.net.URL;
 import java.security.CodeSource;
 import java.util.*;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 /**
  * Collects all compilation data as it is generated by the compiler system.
@@ -82,6 +87,8 @@ public class CompilationUnit extends ProcessingUnit {
     protected StaticImportVisitor staticImportVisitor;
     protected OptimizerVisitor optimizer;
 
+    private ExecutorService executor;   // Runs the parallel parts of compile(), null if compiling sequentially
+
     LinkedList[] phaseOperations;
 
 
@@ -155,12 +162,9 @@ public class CompilationUnit extends ProcessingUnit {
         for (int i = 0; i < phaseOperations.length; i++) {
             phaseOperations[i] = new LinkedList();
         }
-        addPhaseOperation(new SourceUnitOperation() {
-            public void call(SourceUnit source) throws CompilationFailedException {
-                source.parse();
-            }
-        }, Phases.PARSING);
+        addPhaseOperation(parse, Phases.PARSING);
         addPhaseOperation(convert, Phases.CONVERSION);
+        addPhaseOperation(addModule, Phases.CONVERSION);
         addPhaseOperation(new PrimaryClassNodeOperation() {
             public void call(SourceUnit source, GeneratorContext context,
                              ClassNode classNode) throws CompilationFailedException {
@@ -456,29 +460,47 @@ public class CompilationUnit extends ProcessingUnit {
         gotoPhase(Phases.INITIALIZATION);
         throughPhase = Math.min(throughPhase, Phases.ALL);
 
-        while (throughPhase >= phase && phase <= Phases.ALL) {
-
-            for (Iterator it = phaseOperations[phase].iterator(); it.hasNext();) {
-                Object operation = it.next();
-                if (operation instanceof PrimaryClassNodeOperation) {
-                    applyToPrimaryClassNodes((PrimaryClassNodeOperation) operation);
-                } else if (operation instanceof SourceUnitOperation) {
-                    applyToSourceUnits((SourceUnitOperation) operation);
-                } else {
-                    applyToGeneratedGroovyClasses((GroovyClassOperation) operation);
+        if (configuration.getParallelism() > 1) {
+            executor = Executors.newFixedThreadPool(configuration.getParallelism());
+        }
+        try {
+            while (throughPhase >= phase && phase <= Phases.ALL) {
+
+                for (Iterator it = phaseOperations[phase].iterator(); it.hasNext();) {
+                    Object operation = it.next();
+                    if (operation instanceof PrimaryClassNodeOperation) {
+                        if (operation == classgen && executor != null) {
+                            applyClassgenInParallel();
+                        } else {
+                            applyToPrimaryClassNodes((PrimaryClassNodeOperation) operation);
+                        }
+                    } else if (operation instanceof SourceUnitOperation) {
+                        if ((operation == parse || operation == convert) && executor != null) {
+                            applyToSourceUnitsInParallel((SourceUnitOperation) operation);
+                        } else {
+                            applyToSourceUnits((SourceUnitOperation) operation);
+                        }
+                    } else {
+                        applyToGeneratedGroovyClasses((GroovyClassOperation) operation);
+                    }
                 }
-            }
 
-            if (progressCallback != null) progressCallback.call(this, phase);
-            completePhase();
-            applyToSourceUnits(mark);
+                if (progressCallback != null) progressCallback.call(this, phase);
+                completePhase();
+                applyToSourceUnits(mark);
 
-            if (dequeued()) continue;
+                if (dequeued()) continue;
 
-            gotoPhase(phase + 1);
+                gotoPhase(phase + 1);
 
-            if (phase == Phases.CLASS_GENERATION) {
-                sortClasses();
+                if (phase == Phases.CLASS_GENERATION) {
+                    sortClasses();
+                }
+            }
+        } finally {
+            if (executor != null) {
+                executor.shutdown();
+                executor = null;
             }
         }
 
@@ -568,12 +590,29 @@ public class CompilationUnit extends ProcessingUnit {
         }
     };
 
+    /**
+     * Runs parse() on a single SourceUnit.
+     */
+    private final SourceUnitOperation parse = new SourceUnitOperation() {
+        public void call(SourceUnit source) throws CompilationFailedException {
+            source.parse();
+        }
+    };
+
     /**
      * Runs convert() on a single SourceUnit.
      */
-    private SourceUnitOperation convert = new SourceUnitOperation() {
+    private final SourceUnitOperation convert = new SourceUnitOperation() {
         public void call(SourceUnit source) throws CompilationFailedException {
             source.convert();
+        }
+    };
+
+    /**
+     * Adds the AST of a converted SourceUnit to the overall AST.
+     */
+    private SourceUnitOperation addModule = new SourceUnitOperation() {
+        public void call(SourceUnit source) throws CompilationFailedException {
             CompilationUnit.this.ast.addModule(source.getAST());
 
 
@@ -668,75 +707,193 @@ public class CompilationUnit extends ProcessingUnit {
     /**
      * Runs classgen() on a single ClassNode.
      */
-    private PrimaryClassNodeOperation classgen = new PrimaryClassNodeOperation() {
+    private final PrimaryClassNodeOperation classgen = new PrimaryClassNodeOperation() {
         public boolean needSortedInput() {
             return true;
         }
 
         public void call(SourceUnit source, GeneratorContext context, ClassNode classNode) throws CompilationFailedException {
+            classgen(verifier, source, context, classNode, null);
+        }
+    };
 
-            //
-            // Run the Verifier on the outer class
-            //
-            try {
-                verifier.visitClass(classNode);
-            } catch (GroovyRuntimeException rpe) {
-                ASTNode node = rpe.getNode();
-                getErrorCollector().addError(
-                        new SyntaxException(rpe.getMessage(), null, node.getLineNumber(), node.getColumnNumber()),
-                        source
-                );
-            }
+    /**
+     * Runs the verifiers on a single ClassNode, the first half of classgen().
+     */
+    private PrimaryClassNodeOperation verify = new PrimaryClassNodeOperation() {
+        public boolean needSortedInput() {
+            return true;
+        }
 
-            LabelVerifier lv = new LabelVerifier(source);
-            lv.visitClass(classNode);
+        public void call(SourceUnit source, GeneratorContext context, ClassNode classNode) throws CompilationFailedException {
+            verify(verifier, source, classNode);
+        }
+    };
 
-            ClassCompletionVerifier completionVerifier = new ClassCompletionVerifier(source);
-            completionVerifier.visitClass(classNode);
+    private void classgen(Verifier verifier, SourceUnit source, GeneratorContext context, ClassNode classNode, List generated) throws CompilationFailedException {
+        verify(verifier, source, classNode);
 
-            ExtendedVerifier xverifier = new ExtendedVerifier(source);
-            xverifier.visitClass(classNode);
+        // because the class may be generated even if a error was found
+        // and that class may have an invalid format we fail here if needed
+        getErrorCollector(source).failIfErrors();
 
-            // because the class may be generated even if a error was found
-            // and that class may have an invalid format we fail here if needed
-            getErrorCollector().failIfErrors();
+        generate(verifier, source, context, classNode, generated);
+    }
 
-            //
-            // Prep the generator machinery
-            //
-            ClassVisitor visitor = createClassVisitor();
+    private void verify(Verifier verifier, SourceUnit source, ClassNode classNode) throws CompilationFailedException {
+        //
+        // Run the Verifier on the outer class
+        //
+        try {
+            verifier.visitClass(classNode);
+        } catch (GroovyRuntimeException rpe) {
+            ASTNode node = rpe.getNode();
+            getErrorCollector(source).addError(
+                    new SyntaxException(rpe.getMessage(), null, node.getLineNumber(), node.getColumnNumber()),
+                    source
+            );
+        }
 
+        LabelVerifier lv = new LabelVerifier(source);
+        lv.visitClass(classNode);
 
-            String sourceName = (source == null ? classNode.getModule().getDescription() : source.getName());
-            // only show the file name and its extension like javac does in its stacktraces rather than the full path
-            // also takes care of both \ and / depending on the host compiling environment
-            if (sourceName != null)
-                sourceName = sourceName.substring(Math.max(sourceName.lastIndexOf('\\'), sourceName.lastIndexOf('/')) + 1);
-            ClassGenerator generator = new AsmClassGenerator(context, visitor, classLoader, sourceName);
+        ClassCompletionVerifier completionVerifier = new ClassCompletionVerifier(source);
+        completionVerifier.visitClass(classNode);
 
-            //
-            // Run the generation and create the class (if required)
-            //
-            generator.visitClass(classNode);
+        ExtendedVerifier xverifier = new ExtendedVerifier(source);
+        xverifier.visitClass(classNode);
+    }
 
+    /**
+     * Generates the bytecode of a verified ClassNode and of its inner classes. The classes
+     * are handed to output() right away, or added to generated in the same order.
+     */
+    private void generate(Verifier verifier, SourceUnit source, GeneratorContext context, ClassNode classNode, List generated) throws CompilationFailedException {
+        //
+        // Prep the generator machinery
+        //
+        ClassVisitor visitor = createClassVisitor();
 
-            byte[] bytes = ((ClassWriter) visitor).toByteArray();
-            generatedClasses.add(new GroovyClass(classNode.getName(), bytes));
 
-            //
-            // Handle any callback that's been set
-            //
-            if (CompilationUnit.this.classgenCallback != null) {
-                classgenCallback.call(visitor, classNode);
+        String sourceName = (source == null ? classNode.getModule().getDescription() : source.getName());
+        // only show the file name and its extension like javac does in its stacktraces rather than the full path
+        // also takes care of both \ and / depending on the host compiling environment
+        if (sourceName != null)
+            sourceName = sourceName.substring(Math.max(sourceName.lastIndexOf('\\'), sourceName.lastIndexOf('/')) + 1);
+        ClassGenerator generator = new AsmClassGenerator(context, visitor, classLoader, sourceName);
+
+        //
+        // Run the generation and create the class (if required)
+        //
+        generator.visitClass(classNode);
+
+
+        byte[] bytes = ((ClassWriter) visitor).toByteArray();
+        if (generated == null) {
+            output(classNode, visitor, bytes);
+        } else {
+            generated.add(new Object[]{classNode, visitor, bytes});
+        }
+
+        //
+        // Recurse for inner classes
+        //
+        LinkedList innerClasses = generator.getInnerClasses();
+        while (!innerClasses.isEmpty()) {
+            classgen(verifier, source, context, (ClassNode) innerClasses.removeFirst(), generated);
+        }
+    }
+
+    private void output(ClassNode classNode, ClassVisitor visitor, byte[] bytes) throws CompilationFailedException {
+        generatedClasses.add(new GroovyClass(classNode.getName(), bytes));
+
+        //
+        // Handle any callback that's been set
+        //
+        if (CompilationUnit.this.classgenCallback != null) {
+            classgenCallback.call(visitor, classNode);
+        }
+    }
+
+    private ErrorCollector getErrorCollector(SourceUnit source) {
+        return source == null ? getErrorCollector() : source.getErrorCollector();
+    }
+
+    /**
+     * Parallel version of applyToPrimaryClassNodes(classgen). All classes are verified
+     * first, as the Verifier changes class nodes other classes are generated against.
+     * Then the bytecode is generated for the classes of each source unit in a task of
+     * its own and handed to output() in the sorted order of the primary classes.
+     */
+    private void applyClassgenInParallel() throws CompilationFailedException {
+        applyToPrimaryClassNodes(verify);
+
+        final Map classesBySource = new LinkedHashMap();
+        final List classNodes = new ArrayList();
+        for (Iterator it = getPrimaryClassNodes(true).iterator(); it.hasNext();) {
+            ClassNode classNode = (ClassNode) it.next();
+            SourceUnit context = classNode.getModule().getContext();
+            if (context == null) {
+                // the error collector of such classes can't be separated
+                applyToPrimaryClassNodes(generate);
+                return;
+            }
+            if (context.phase <= phase) {
+                List classes = (List) classesBySource.get(context);
+                if (classes == null) {
+                    classes = new ArrayList();
+                    classesBySource.put(context, classes);
+                }
+                classes.add(classNode);
+                classNodes.add(classNode);
             }
+        }
 
-            //
-            // Recurse for inner classes
-            //
-            LinkedList innerClasses = generator.getInnerClasses();
-            while (!innerClasses.isEmpty()) {
-                classgen.call(source, context, (ClassNode) innerClasses.removeFirst());
+        final Map generatedByClass = new HashMap();
+        applyInParallel(new ArrayList(classesBySource.keySet()), new SourceUnitOperation() {
+            public void call(SourceUnit source) throws CompilationFailedException {
+                Verifier verifier = new Verifier();
+                List classes = (List) classesBySource.get(source);
+                for (Iterator it = classes.iterator(); it.hasNext();) {
+                    ClassNode classNode = (ClassNode) it.next();
+                    List generated = new ArrayList();
+                    try {
+                        generate(verifier, source, new GeneratorContext(ast), classNode, generated);
+                    } catch (CompilationFailedException e) {
+                        // fall through, the errors are in the error collector
+                    } catch (NullPointerException npe) {
+                        throw npe;
+                    } catch (GroovyBugError e) {
+                        throw e;
+                    } catch (Exception e) {
+                        addException(source.getErrorCollector(), e);
+                    }
+                    synchronized (generatedByClass) {
+                        generatedByClass.put(classNode, generated);
+                    }
+                }
             }
+        });
+
+        for (Iterator it = classNodes.iterator(); it.hasNext();) {
+            List generated = (List) generatedByClass.get(it.next());
+            for (Iterator git = generated.iterator(); git.hasNext();) {
+                Object[] entry = (Object[]) git.next();
+                output((ClassNode) entry[0], (ClassVisitor) entry[1], (byte[]) entry[2]);
+            }
+        }
+    }
+
+    /**
+     * Runs the second half of classgen() on a single verified ClassNode.
+     */
+    private PrimaryClassNodeOperation generate = new PrimaryClassNodeOperation() {
+        public boolean needSortedInput() {
+            return true;
+        }
+
+        public void call(SourceUnit source, GeneratorContext context, ClassNode classNode) throws CompilationFailedException {
+            generate(verifier, source, context, classNode, null);
         }
     };
 
@@ -816,6 +973,101 @@ public class CompilationUnit extends ProcessingUnit {
         getErrorCollector().failIfErrors();
     }
 
+    /**
+     * Parallel version of applyToSourceUnits().
+     */
+    private void applyToSourceUnitsInParallel(SourceUnitOperation body) throws CompilationFailedException {
+        List pending = new ArrayList();
+        for (Iterator keys = names.iterator(); keys.hasNext();) {
+            SourceUnit source = (SourceUnit) sources.get(keys.next());
+            if ((source.phase < phase) || (source.phase == phase && !source.phaseComplete)) {
+                pending.add(source);
+            }
+        }
+
+        if (pending.size() < 2) {
+            applyToSourceUnits(body);
+            return;
+        }
+        applyInParallel(pending, body);
+        getErrorCollector().failIfErrors();
+    }
+
+    /**
+     * Runs body on the given SourceUnits using the executor of compile(). While its
+     * task runs, every SourceUnit reports to an error collector of its own. The messages
+     * are then added to the original collectors in the order of the given list, so the
+     * reported errors don't depend on the scheduling of the tasks. As in applyToSourceUnits()
+     * the first failed SourceUnit in that order ends the operation; the results of the
+     * following ones are dropped.
+     */
+    private void applyInParallel(List sourceUnits, final SourceUnitOperation body) throws CompilationFailedException {
+        final int size = sourceUnits.size();
+        final ErrorCollector[] collectors = new ErrorCollector[size];
+        final ErrorCollector[] taskCollectors = new ErrorCollector[size];
+        final Future[] futures = new Future[size];
+        final Throwable[] failures = new Throwable[size];
+
+        for (int i = 0; i != size; ++i) {
+            SourceUnit source = (SourceUnit) sourceUnits.get(i);
+            collectors[i] = source.errorCollector;
+            taskCollectors[i] = new ErrorCollector(configuration);
+            source.errorCollector = taskCollectors[i];
+        }
+
+        try {
+            for (int i = 0; i != size; ++i) {
+                final SourceUnit source = (SourceUnit) sourceUnits.get(i);
+                futures[i] = executor.submit(new Callable() {
+                    public Object call() throws Exception {
+                        body.call(source);
+                        return null;
+                    }
+                });
+            }
+
+            for (int i = 0; i != size; ++i) {
+                try {
+                    futures[i].get();
+                } catch (ExecutionException e) {
+                    failures[i] = e.getCause();
+                }
+            }
+        } catch (InterruptedException e) {
+            for (int i = 0; i != size; ++i) {
+                if (futures[i] != null) futures[i].cancel(true);
+            }
+            Thread.currentThread().interrupt();
+            throw new CompilationFailedException(phase, this, e);
+        } finally {
+            for (int i = 0; i != size; ++i) {
+                ((SourceUnit) sourceUnits.get(i)).errorCollector = collectors[i];
+            }
+        }
+
+        for (int i = 0; i != size; ++i) {
+            SourceUnit source = (SourceUnit) sourceUnits.get(i);
+            collectors[i].addCollectorContents(taskCollectors[i]);
+
+            Throwable failure = failures[i];
+            if (failure == null) continue;
+            if (failure instanceof CompilationFailedException) {
+                collectors[i].failIfErrors();
+                throw (CompilationFailedException) failure;
+            }
+            if (failure instanceof GroovyBugError) {
+                changeBugText((GroovyBugError) failure, source);
+                throw (GroovyBugError) failure;
+            }
+            if (failure instanceof Error) {
+                throw (Error) failure;
+            }
+            GroovyBugError gbe = new GroovyBugError((Exception) failure);
+            changeBugText(gbe, source);
+            throw gbe;
+        }
+    }
+
     //---------------------------------------------------------------------------
     // LOOP SIMPLIFICATION FOR PRIMARY ClassNode OPERATIONS
 
@@ -921,26 +1173,30 @@ public class CompilationUnit extends ProcessingUnit {
                 changeBugText(e, context);
                 throw e;
             } catch (Exception e) {
-                // check the exception for a nested compilation exception
-                ErrorCollector nestedCollector = null;
-                for (Throwable next = e.getCause(); next != e && next != null; next = next.getCause()) {
-                    if (!(next instanceof MultipleCompilationErrorsException)) continue;
-                    MultipleCompilationErrorsException mcee = (MultipleCompilationErrorsException) next;
-                    nestedCollector = mcee.collector;
-                    break;
-                }
-
-                if (nestedCollector != null) {
-                    getErrorCollector().addCollectorContents(nestedCollector);
-                } else {
-                    getErrorCollector().addError(new ExceptionMessage(e, configuration.getDebug(), this));
-                }
+                addException(getErrorCollector(), e);
             }
         }
 
         getErrorCollector().failIfErrors();
     }
 
+    private void addException(ErrorCollector collector, Exception e) throws CompilationFailedException {
+        // check the exception for a nested compilation exception
+        ErrorCollector nestedCollector = null;
+        for (Throwable next = e.getCause(); next != e && next != null; next = next.getCause()) {
+            if (!(next instanceof MultipleCompilationErrorsException)) continue;
+            MultipleCompilationErrorsException mcee = (MultipleCompilationErrorsException) next;
+            nestedCollector = mcee.collector;
+            break;
+        }
+
+        if (nestedCollector != null) {
+            collector.addCollectorContents(nestedCollector);
+        } else {
+            collector.addError(new ExceptionMessage(e, configuration.getDebug(), this));
+        }
+    }
+
     public void applyToGeneratedGroovyClasses(GroovyClassOperation body) throws CompilationFailedException {
         if (this.phase != Phases.OUTPUT && !(this.phase == Phases.CLASS_GENERATION && this.phaseComplete)) {
             throw new GroovyBugError("CompilationUnit not ready for output(). Current phase=" + getPhaseDescription());
@@ -124,6 +124,16 @@ public class CompilerConfiguration {
      * options for joint compilation (null by default == no joint compilation)
      */
     private Map jointCompilationOptions;
+
+    /**
+     * directory for the persistent class cache (null by default == no caching)
+     */
+    private File classCacheDirectory;
+
+    /**
+     * number of threads used to compile the sources of a compilation unit (1 by default == sequential compilation)
+     */
+    private int parallelism;
     
     /**
      * Sets the Flags to defaults.
@@ -144,6 +154,7 @@ public class CompilerConfiguration {
         setMinimumRecompilationInterval(100);
         setTargetBytecode(getVMVersion());
         setDefaultScriptExtension(".groovy");
+        setParallelism(1);
 
         //
         // Source file encoding
@@ -174,6 +185,15 @@ public class CompilerConfiguration {
         } catch (Exception e) {
             // IGNORE
         }
+
+        try {
+            String cache = System.getProperty("groovy.classcache.directory");
+            if (cache != null) {
+                setClassCacheDirectory(cache);
+            }
+        } catch (Exception e) {
+            // IGNORE
+        }
     }
     
     /**
@@ -212,6 +232,8 @@ public class CompilerConfiguration {
         }
         setJointCompilationOptions(jointCompilationOptions);
         setPluginFactory(configuration.getPluginFactory());
+        setClassCacheDirectory(configuration.getClassCacheDirectory());
+        setParallelism(configuration.getParallelism());
     }
 
 
@@ -220,7 +242,7 @@ public class CompilerConfiguration {
      * for those not supplied.
      * Note that those "defaults" here do <em>not</em> include checking the
      * settings in {@link System#getProperties()} in general, only file.encoding, 
-     * groovy.target.directory and groovy.source.encoding are.<br/>
+     * groovy.target.directory, groovy.classcache.directory and groovy.source.encoding are.<br/>
      * If you want to set a few flags but keep Groovy's default
      * configuration behavior then be sure to make your settings in
      * a Properties that is backed by <code>System.getProperties()</code> (which
@@ -264,6 +286,8 @@ public class CompilerConfiguration {
             <tr><td><code>"groovy.script.base"</code></td><td>{@link #getScriptBaseClass}</td></tr>
             <tr><td><code>"groovy.recompile"</code></td><td>{@link #getRecompileGroovySource}</td></tr>
             <tr><td><code>"groovy.recompile.minimumInterval"</code></td><td>{@link #getMinimumRecompilationInterval}</td></tr>
+            <tr><td><code>"groovy.classcache.directory"</code></td><td>{@link #getClassCacheDirectory}</td></tr>
+            <tr><td><code>"groovy.compile.parallelism"</code></td><td>{@link #getParallelism}</td></tr>
             <tr><td>
          </tr>
      </table>
@@ -385,8 +409,24 @@ public class CompilerConfiguration {
             throw new ConfigurationException(e);
         }
         setMinimumRecompilationInterval(numeric);
-        
-        
+
+        //
+        // Persistent class cache
+        //
+        text = configuration.getProperty("groovy.classcache.directory");
+        if (text != null) setClassCacheDirectory(text);
+
+        //
+        // Parallel compilation
+        //
+        text = configuration.getProperty("groovy.compile.parallelism");
+        if (text != null) {
+            try {
+                setParallelism(Integer.parseInt(text));
+            } catch (NumberFormatException e) {
+                throw new ConfigurationException(e);
+            }
+        }
     }
 
 
@@ -659,4 +699,56 @@ public class CompilerConfiguration {
     public void setJointCompilationOptions(Map options) {
         jointCompilationOptions = options;
     }
+
+    /**
+     * Gets the directory of the persistent class cache.
+     * @return the directory or null if classes are always compiled from source
+     * @see #setClassCacheDirectory(File)
+     */
+    public File getClassCacheDirectory() {
+        return classCacheDirectory;
+    }
+
+    /**
+     * Sets the directory of the persistent class cache.
+     */
+    public void setClassCacheDirectory(String directory) {
+        if (directory != null && directory.length() > 0) {
+            this.classCacheDirectory = new File(directory);
+        } else {
+            this.classCacheDirectory = null;
+        }
+    }
+
+    /**
+     * Sets the directory of the persistent class cache. If set, the
+     * GroovyClassLoader stores the classes generated for a source in this
+     * directory and, as long as the source text, the Groovy version and the
+     * relevant settings of this configuration do not change, defines them from
+     * there instead of compiling the source again. Using null disables the cache.
+     * @param directory the cache directory, created if needed
+     */
+    public void setClassCacheDirectory(File directory) {
+        this.classCacheDirectory = directory;
+    }
+
+    /**
+     * Gets the number of threads used to compile the sources of a compilation unit.
+     * @return the number of threads, 1 if the sources are compiled sequentially
+     * @see #setParallelism(int)
+     */
+    public int getParallelism() {
+        return parallelism;
+    }
+
+    /**
+     * Sets the number of threads used to compile the sources of a compilation unit.
+     * With more than one thread, parsing, building the AST and generating the
+     * bytecode are done for several sources at once. The other phases and the
+     * order of the reported errors stay the same as for a sequential compilation.
+     * @param threads the number of threads, a value less than 1 uses one thread per available processor
+     */
+    public void setParallelism(int threads) {
+        this.parallelism = threads < 1 ? Runtime.getRuntime().availableProcessors() : threads;
+    }
 }
@@ -0,0 +1,253 @@
+/*
+ * Copyright 2003-2009 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.codehaus.groovy.control;
+
+import org.codehaus.groovy.GroovyBugError;
+import org.codehaus.groovy.runtime.InvokerHelper;
+
+import java.io.*;
+import java.net.URL;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * On-disk store for the bytecode generated from a single source, used by
+ * {@link groovy.lang.GroovyClassLoader} when
+ * {@link CompilerConfiguration#getClassCacheDirectory()} is set.
+ * <p/>
+ * Entries are keyed by a digest of the source text, the Groovy version, the
+ * parts of the compiler configuration influencing the generated code and the
+ * classpath of the compiling loader, including size and modification time of
+ * the files on it. An entry
+ * holds the bytes of all classes produced for the source, closures and inner
+ * classes included, in the order they were defined. Unreadable entries are
+ * treated as a miss.
+ * <p/>
+ * Classes the source depends on are not part of the key: a class changed within
+ * a classpath directory, or loaded by a parent class loader, does not invalidate
+ * the entry. As method calls and property accesses are resolved at runtime this
+ * only matters for changes the compiler checks, like removed classes, changed
+ * constructors of super classes or new abstract methods. Remove the entries of
+ * the cache directory when such dependencies change.
+ * <p/>
+ * The cache directory must only be writable by trusted users, the stored
+ * bytecode is defined without any further verification of its origin.
+ */
+public class PersistentClassCache {
+
+    private static final int MAGIC = 0x47434331; // "GCC1"
+    private static final String SUFFIX = ".gcc";
+
+    private final File directory;
+
+    public PersistentClassCache(File directory) {
+        this.directory = directory;
+    }
+
+    public File getDirectory() {
+        return directory;
+    }
+
+    /**
+     * The classes stored for one source.
+     */
+    public static class Entry {
+        private final String[] names;
+        private final byte[][] code;
+        private final int mainIndex;
+
+        public Entry(String[] names, byte[][] code, int mainIndex) {
+            this.names = names;
+            this.code = code;
+            this.mainIndex = mainIndex;
+        }
+
+        public int getClassCount() {
+            return names.length;
+        }
+
+        public String getName(int index) {
+            return names[index];
+        }
+
+        public byte[] getCode(int index) {
+            return code[index];
+        }
+
+        /**
+         * @return the index of the class representing the source itself
+         */
+        public int getMainIndex() {
+            return mainIndex;
+        }
+    }
+
+    /**
+     * Creates the key for a source.
+     *
+     * @param sourceName the name of the source, it determines the name of a script class
+     * @param source     the raw source text
+     * @param config     the configuration used for compilation
+     * @param compiler   identifies the compiling class loader, subclasses may add phase operations
+     * @param classpath  the classpath of the compiling class loader, may be null
+     * @return a key usable for {@link #load(String)} and {@link #store(String, List, List, int)}
+     */
+    public static String createKey(String sourceName, byte[] source, CompilerConfiguration config, String compiler, URL[] classpath) {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-1");
+        } catch (NoSuchAlgorithmException e) {
+            throw new GroovyBugError(e);
+        }
+        update(digest, InvokerHelper.getVersion());
+        update(digest, compiler);
+        update(digest, config.getTargetBytecode());
+        update(digest, config.getScriptBaseClass());
+        update(digest, config.getSourceEncoding());
+        update(digest, String.valueOf(config.getDebug()));
+        for (Iterator it = config.getClasspath().iterator(); it.hasNext();) {
+            updateClasspathEntry(digest, new File((String) it.next()));
+        }
+        if (classpath != null) {
+            for (int i = 0; i < classpath.length; i++) {
+                update(digest, classpath[i].toExternalForm());
+                if ("file".equals(classpath[i].getProtocol())) {
+                    updateClasspathEntry(digest, new File(classpath[i].getPath()));
+                }
+            }
+        }
+        update(digest, sourceName);
+        digest.update(source);
+
+        byte[] hash = digest.digest();
+        StringBuffer key = new StringBuffer(hash.length * 2);
+        for (int i = 0; i < hash.length; i++) {
+            int b = hash[i] & 0xff;
+            if (b < 0x10) key.append('0');
+            key.append(Integer.toHexString(b));
+        }
+        return key.toString();
+    }
+
+    private static void updateClasspathEntry(MessageDigest digest, File file) {
+        update(digest, file.getPath());
+        update(digest, String.valueOf(file.lastModified()));
+        update(digest, String.valueOf(file.length()));
+    }
+
+    private static void update(MessageDigest digest, String value) {
+        if (value != null) {
+            try {
+                digest.update(value.getBytes("UTF-8"));
+            } catch (UnsupportedEncodingException e) {
+                throw new GroovyBugError(e);
+            }
+        }
+        digest.update((byte) 0);
+    }
+
+    /**
+     * @return the entry stored for the key or null if there is none or it could not be read
+     */
+    public Entry load(String key) {
+        File file = new File(directory, key + SUFFIX);
+        if (!file.isFile()) return null;
+
+        DataInputStream in = null;
+        try {
+            in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)));
+            if (in.readInt() != MAGIC) return null;
+            int count = in.readInt();
+            int mainIndex = in.readInt();
+            if (count <= 0 || mainIndex < 0 || mainIndex >= count) return null;
+            String[] names = new String[count];
+            byte[][] code = new byte[count][];
+            for (int i = 0; i < count; i++) {
+                names[i] = in.readUTF();
+                code[i] = new byte[in.readInt()];
+                in.readFully(code[i]);
+            }
+            return new Entry(names, code, mainIndex);
+        } catch (IOException e) {
+            return null;
+        } catch (RuntimeException e) {
+            // corrupt length fields
+            return null;
+        } finally {
+            closeQuietly(in);
+        }
+    }
+
+    /**
+     * Stores the classes generated for a source. The entry is written to a
+     * temporary file first, so concurrent readers never see a partial entry.
+     * Failures are ignored, the classes are simply compiled again next time.
+     *
+     * @param key       the key from {@link #createKey}
+     * @param names     the class names in definition order
+     * @param code      the class bytes, in the same order as the names
+     * @param mainIndex the index of the class representing the source
+     */
+    public void store(String key, List names, List code, int mainIndex) {
+        File tmp = null;
+        DataOutputStream out = null;
+        try {
+            if (!directory.isDirectory() && !directory.mkdirs()) return;
+            tmp = File.createTempFile(key, ".tmp", directory);
+            out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tmp)));
+            out.writeInt(MAGIC);
+            out.writeInt(names.size());
+            out.writeInt(mainIndex);
+            Iterator codeIterator = code.iterator();
+            for (Iterator it = names.iterator(); it.hasNext();) {
+                byte[] bytes = (byte[]) codeIterator.next();
+                out.writeUTF((String) it.next());
+                out.writeInt(bytes.length);
+                out.write(bytes);
+            }
+            out.close();
+            out = null;
+
+            File file = new File(directory, key + SUFFIX);
+            if (tmp.renameTo(file)) tmp = null;
+        } catch (IOException e) {
+            // IGNORE
+        } catch (SecurityException e) {
+            // IGNORE
+        } finally {
+            closeQuietly(out);
+            if (tmp != null) tmp.delete();
+        }
+    }
+
+    /**
+     * Removes the entry for the given key, for example because its classes could not be defined.
+     */
+    public void remove(String key) {
+        new File(directory, key + SUFFIX).delete();
+    }
+
+    private static void closeQuietly(Closeable c) {
+        if (c == null) return;
+        try {
+            c.close();
+        } catch (IOException e) {
+            // IGNORE
+        }
+    }
+}
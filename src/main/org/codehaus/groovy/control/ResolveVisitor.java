@@ -322,7 +322,7 @@ public class ResolveVisitor extends ClassCodeExpressionTransformer {
         GroovyClassLoader gcl = compilationUnit.getClassLoader();
         URL url = null;
         try {
-            url = gcl.getResourceLoader().loadGroovySource(name);
+            url = gcl.getResolutionCache().loadGroovySource(name);
         } catch (MalformedURLException e) {
             // fall through and let the URL be null
         }
@@ -596,11 +596,14 @@ public class ResolveVisitor extends ClassCodeExpressionTransformer {
         Class cls;
         try {
             // NOTE: it's important to do no lookup against script files
-            // here since the GroovyClassLoader would create a new CompilationUnit
-            cls = loader.loadClass(name, false, true);
-        } catch (ClassNotFoundException cnfe) {
-            cachedClasses.put(name, SCRIPT);
-            return false;
+            // here since the GroovyClassLoader would create a new CompilationUnit.
+            // The resolution cache of the loader is shared by all compilations
+            // using it, a null result means there is no such class
+            cls = loader.getResolutionCache().loadClass(name);
+            if (cls == null) {
+                cachedClasses.put(name, SCRIPT);
+                return false;
+            }
         } catch (CompilationFailedException cfe) {
             compilationUnit.getErrorCollector().addErrorAndContinue(new ExceptionMessage(cfe, true, source));
             return false;
@@ -614,7 +617,6 @@ public class ResolveVisitor extends ClassCodeExpressionTransformer {
             cachedClasses.put(name,SCRIPT);
             return false;
         }*/
-        if (cls == null) return false;
         ClassNode cn = ClassHelper.make(cls);
         cachedClasses.put(name, cn);
         type.setRedirect(cn);
@@ -1,9 +1,16 @@
 package org.codehaus.groovy.reflection;
 
 import groovy.lang.MetaMethod;
+import org.codehaus.groovy.GroovyBugError;
 
+import java.io.*;
 import java.lang.reflect.Method;
 import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
 
 public abstract class GeneratedMetaMethod extends MetaMethod{
     private final String name;
@@ -29,6 +36,13 @@ public abstract class GeneratedMetaMethod extends MetaMethod{
         throw new NoSuchMethodError();
     }
 
+    public GeneratedMetaMethod(String name, CachedClass declaringClass, Class returnType, Class[] parameters) {
+        this.name = name;
+        this.declaringClass = declaringClass;
+        this.returnType = returnType;
+        nativeParamTypes = parameters;
+    }
+
     public int getModifiers() {
         return Modifier.PUBLIC;
     }
@@ -44,4 +58,159 @@ public abstract class GeneratedMetaMethod extends MetaMethod{
     public CachedClass getDeclaringClass() {
         return declaringClass;
     }
+
+    /**
+     * Stands in for a generated dgm$N class until the method is first invoked.
+     * Signature information comes from the index written by DgmConverter,
+     * so neither the generated class nor its marker method need to be reflected on at startup.
+     */
+    public static class Proxy extends GeneratedMetaMethod {
+        private final String className;
+        private final boolean numberPair;
+        private volatile MetaMethod proxy;
+
+        public Proxy(String className, String name, CachedClass declaringClass, Class returnType, Class[] parameters) {
+            super(name, declaringClass, returnType, parameters);
+            this.className = className;
+            // DgmConverter generates its own isValidMethod for methods on two numbers
+            numberPair = declaringClass.isNumber && parameters.length == 1 && ReflectionCache.getCachedClass(parameters[0]).isNumber;
+        }
+
+        public String getClassName() {
+            return className;
+        }
+
+        public boolean isLoaded() {
+            return proxy != null;
+        }
+
+        public boolean isValidMethod(Class[] arguments) {
+            if (numberPair)
+              return proxy().isValidMethod(arguments);
+            return super.isValidMethod(arguments);
+        }
+
+        public Object invoke(Object object, Object[] arguments) {
+            return proxy().invoke(object, arguments);
+        }
+
+        public Object doMethodInvoke(Object object, Object[] argumentArray) {
+            return proxy().doMethodInvoke(object, argumentArray);
+        }
+
+        public final MetaMethod proxy() {
+            MetaMethod method = proxy;
+            if (method == null) {
+                synchronized (this) {
+                    method = proxy;
+                    if (method == null) {
+                        method = createProxy();
+                        proxy = method;
+                    }
+                }
+            }
+            return method;
+        }
+
+        private MetaMethod createProxy() {
+            try {
+                final Class aClass = Class.forName(className, true, GeneratedMetaMethod.class.getClassLoader());
+                return (MetaMethod) aClass.newInstance();
+            } catch (ClassNotFoundException e) {
+                throw new GroovyBugError("Failed to load generated meta method " + className, e);
+            } catch (InstantiationException e) {
+                throw new GroovyBugError("Failed to create generated meta method " + className, e);
+            } catch (IllegalAccessException e) {
+                throw new GroovyBugError("Failed to create generated meta method " + className, e);
+            }
+        }
+    }
+
+    /**
+     * Entry of the index of generated dgm$N classes, written at build time by DgmConverter
+     * and read by MetaClassRegistryImpl to register {@link Proxy} instances.
+     */
+    public static class DgmMethodRecord {
+        public static final String RESOURCE = "META-INF/dgminfo";
+
+        private static final Map PRIMITIVES = new HashMap();
+
+        static {
+            final Class[] primitives = {boolean.class, char.class, byte.class, short.class, int.class,
+                    long.class, float.class, double.class, void.class};
+            for (int i = 0; i != primitives.length; ++i)
+              PRIMITIVES.put(primitives[i].getName(), primitives[i]);
+        }
+
+        public String className;
+        public String methodName;
+        public Class returnType;
+        public Class[] parameters;
+
+        public static void saveDgmInfo(List records, String file) throws IOException {
+            final DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file)));
+            try {
+                out.writeInt(records.size());
+                for (Iterator it = records.iterator(); it.hasNext();) {
+                    DgmMethodRecord record = (DgmMethodRecord) it.next();
+                    out.writeUTF(record.className);
+                    out.writeUTF(record.methodName);
+                    out.writeUTF(record.returnType.getName());
+                    out.writeInt(record.parameters.length);
+                    for (int i = 0; i != record.parameters.length; ++i)
+                      out.writeUTF(record.parameters[i].getName());
+                }
+            } finally {
+                out.close();
+            }
+        }
+
+        /**
+         * @return the records in the order the classes were generated,
+         *         or null if the index is not available
+         */
+        public static List loadDgmInfo() throws IOException {
+            final ClassLoader loader = GeneratedMetaMethod.class.getClassLoader();
+            final InputStream resource = loader == null
+                    ? ClassLoader.getSystemResourceAsStream(RESOURCE)
+                    : loader.getResourceAsStream(RESOURCE);
+            if (resource == null)
+              return null;
+
+            final DataInputStream in = new DataInputStream(new BufferedInputStream(resource));
+            try {
+                final Map classes = new HashMap(PRIMITIVES);
+                final int size = in.readInt();
+                final List records = new ArrayList(size);
+                for (int i = 0; i != size; ++i) {
+                    DgmMethodRecord record = new DgmMethodRecord();
+                    record.className = in.readUTF();
+                    record.methodName = in.readUTF();
+                    record.returnType = loadClass(in.readUTF(), classes, loader);
+                    record.parameters = new Class[in.readInt()];
+                    for (int j = 0; j != record.parameters.length; ++j)
+                      record.parameters[j] = loadClass(in.readUTF(), classes, loader);
+                    records.add(record);
+                }
+                return records;
+            } finally {
+                in.close();
+            }
+        }
+
+        private static Class loadClass(String name, Map classes, ClassLoader loader) {
+            Class type = (Class) classes.get(name);
+            if (type == null) {
+                try {
+                    type = Class.forName(name, false, loader);
+                } catch (ClassNotFoundException e) {
+                    NoClassDefFoundError err = new NoClassDefFoundError(name);
+                    err.initCause(e);
+                    throw err;
+                }
+                classes.put(name, type);
+            }
+            return type;
+        }
+    }
 }
@@ -18,6 +18,7 @@ package org.codehaus.groovy.runtime;
 import groovy.io.EncodingAwareBufferedWriter;
 import groovy.io.GroovyPrintWriter;
 import groovy.lang.*;
+import groovy.sql.ColumnIndex;
 import groovy.sql.GroovyRowResult;
 import groovy.util.*;
 import org.codehaus.groovy.reflection.ClassInfo;
@@ -46,7 +47,6 @@ import java.net.*;
 import java.security.AccessController;
 import java.security.PrivilegedAction;
 import java.sql.ResultSet;
-import java.sql.ResultSetMetaData;
 import java.sql.SQLException;
 import java.text.DateFormat;
 import java.text.SimpleDateFormat;
@@ -969,6 +969,17 @@ public class DefaultGroovyMethods extends DefaultGroovyMethodsSupport {
         if (self instanceof Set)
             return self;
         List answer = new ArrayList();
+        if (NumberAwareKey.isHashable(self, null)) {
+            Set seen = new HashSet();
+            for (Iterator it = self.iterator(); it.hasNext();) {
+                Object o = it.next();
+                if (seen.add(new NumberAwareKey(o)))
+                    answer.add(o);
+            }
+            self.clear();
+            self.addAll(answer);
+            return self;
+        }
         NumberAwareComparator numberAwareComparator = new NumberAwareComparator();
         for (Iterator it = self.iterator(); it.hasNext();) {
             Object o = it.next();
@@ -4250,6 +4261,16 @@ public class DefaultGroovyMethods extends DefaultGroovyMethodsSupport {
         // boolean nlgnSort = sameType(new Collection[]{left, right});
 
         Collection result = createSimilarCollection(left, left.size());
+        if (NumberAwareKey.isHashable(left, right)) {
+            Set pickFrom = NumberAwareKey.keySet(left);
+            for (Iterator iter = right.iterator(); iter.hasNext();) {
+                final Object o = iter.next();
+                if (pickFrom.contains(new NumberAwareKey(o)))
+                    result.add(o);
+            }
+            return result;
+        }
+
         //creates the collection to look for values.
         Collection pickFrom = new TreeSet(new NumberAwareComparator());
         pickFrom.addAll(left);
@@ -4276,6 +4297,15 @@ public class DefaultGroovyMethods extends DefaultGroovyMethodsSupport {
         if (left.isEmpty() || right.isEmpty())
             return true;
 
+        if (NumberAwareKey.isHashable(left, right)) {
+            Set pickFrom = NumberAwareKey.keySet(right);
+            for (Iterator iter = left.iterator(); iter.hasNext();) {
+                if (pickFrom.contains(new NumberAwareKey(iter.next())))
+                    return false;
+            }
+            return true;
+        }
+
         Collection pickFrom = new TreeSet(new NumberAwareComparator());
         pickFrom.addAll(right);
 
@@ -4310,6 +4340,100 @@ public class DefaultGroovyMethods extends DefaultGroovyMethodsSupport {
         }
     }
 
+    /**
+     * Wraps an element so that hash based collections consider two elements
+     * equal exactly when the NumberAwareComparator does, e.g. 1, 1L and 1.0G.
+     * Numbers and characters hash by their double value, other elements by
+     * their hash code. This is only consistent with the comparator if the
+     * elements don't mix types the comparator relates by other means than
+     * the hash code, which {@link #isHashable(Collection, Collection)} checks.
+     */
+    private static final class NumberAwareKey {
+        private static final NumberAwareComparator COMPARATOR = new NumberAwareComparator();
+
+        private final Object value;
+        private final int hash;
+
+        NumberAwareKey(Object value) {
+            this.value = value;
+            this.hash = hash(value);
+        }
+
+        private static int hash(Object value) {
+            if (value == null) return 0;
+            double d;
+            if (value instanceof Number) {
+                d = ((Number) value).doubleValue();
+            } else if (value instanceof Character) {
+                d = ((Character) value).charValue();
+            } else if (value instanceof GString) {
+                return value.toString().hashCode();
+            } else {
+                return value.hashCode();
+            }
+            // normalised, Double.compare treats -0.0 and 0.0 as different values
+            if (d == 0.0) d = 0.0;
+            long bits = Double.doubleToLongBits(d);
+            return (int) (bits ^ (bits >>> 32));
+        }
+
+        /**
+         * Determines whether the elements of the given collections can be
+         * compared through NumberAwareKey. Numbers and characters may only be
+         * mixed with each other, GStrings only with Strings and other than that
+         * only Strings, Booleans, enums and objects which are not Comparable
+         * are accepted.
+         */
+        static boolean isHashable(Collection first, Collection second) {
+            int kinds = kinds(first, 0);
+            if (kinds < 0) return false;
+            if (second != null) kinds = kinds(second, kinds);
+            if (kinds < 0) return false;
+            if ((kinds & NUMERIC) != 0) return kinds == NUMERIC;
+            if ((kinds & GSTRING) != 0) return (kinds & OTHER) == 0;
+            return true;
+        }
+
+        private static final int NUMERIC = 1, STRING = 2, GSTRING = 4, OTHER = 8;
+
+        private static int kinds(Collection values, int kinds) {
+            for (Iterator iter = values.iterator(); iter.hasNext();) {
+                final Object o = iter.next();
+                if (o == null) continue;
+                if (o instanceof Number || o instanceof Character) {
+                    kinds |= NUMERIC;
+                } else if (o instanceof String) {
+                    kinds |= STRING;
+                } else if (o instanceof GString) {
+                    kinds |= GSTRING;
+                } else if (!(o instanceof Comparable) || o instanceof Boolean || o instanceof Enum) {
+                    kinds |= OTHER;
+                } else {
+                    return -1;
+                }
+            }
+            return kinds;
+        }
+
+        static Set keySet(Collection values) {
+            Set keys = new HashSet();
+            for (Iterator iter = values.iterator(); iter.hasNext();) {
+                keys.add(new NumberAwareKey(iter.next()));
+            }
+            return keys;
+        }
+
+        public int hashCode() {
+            return hash;
+        }
+
+        public boolean equals(Object obj) {
+            return obj instanceof NumberAwareKey
+                    && hash == ((NumberAwareKey) obj).hash
+                    && COMPARATOR.compare(value, ((NumberAwareKey) obj).value) == 0;
+        }
+    }
+
     /**
      * Compare the contents of this array to the contents of the given array.
      *
@@ -4568,6 +4692,17 @@ public class DefaultGroovyMethods extends DefaultGroovyMethodsSupport {
         if (self.size() == 0)
             return new ArrayList();
 
+        if (NumberAwareKey.isHashable(self, removeMe)) {
+            Set removeKeys = NumberAwareKey.keySet(removeMe);
+            List ansList = new ArrayList();
+            for (Iterator it = self.iterator(); it.hasNext();) {
+                Object o = it.next();
+                if (!removeKeys.contains(new NumberAwareKey(o)))
+                    ansList.add(o);
+            }
+            return ansList;
+        }
+
         boolean nlgnSort = sameType(new Collection[]{self, removeMe});
 
         // We can't use the same tactic as for intersection
@@ -8870,6 +9005,24 @@ public class DefaultGroovyMethods extends DefaultGroovyMethodsSupport {
         return splitEachLine(newReader(self), sep, closure);
     }
 
+    /**
+     * Iterates through this file line by line, splitting each line using
+     * the given regex separator Pattern.
+     * The list of tokens for each line is then passed to the given closure.
+     * Finally the resources used for processing the file are closed.
+     *
+     * @param self    a File
+     * @param pattern the regular expression Pattern for the delimiter
+     * @param closure a closure
+     * @throws IOException if an IOException occurs.
+     * @return the last value returned by the closure
+     * @see #splitEachLine(Reader,Pattern,Closure)
+     * @since 1.7
+     */
+    public static Object splitEachLine(File self, Pattern pattern, Closure closure) throws IOException {
+        return splitEachLine(newReader(self), pattern, closure);
+    }
+
     /**
      * Iterates through the given reader line by line, splitting each line using
      * the given separator.  The list of tokens for each line is then passed to
@@ -8884,8 +9037,29 @@ public class DefaultGroovyMethods extends DefaultGroovyMethodsSupport {
      * @since 1.5.5
      */
     public static Object splitEachLine(Reader self, String sep, Closure closure) throws IOException {
+        return splitEachLine(self, Pattern.compile(sep), closure);
+    }
+
+    /**
+     * Iterates through the given reader line by line, splitting each line using
+     * the given regex separator Pattern.  The list of tokens for each line is then
+     * passed to the given closure.  The Reader is closed afterwards.
+     * <p/>
+     * Patterns which only match a literal string, e.g. <code>~/,/</code> or
+     * <code>~/\|/</code>, are split without using the regex engine.
+     *
+     * @param self    a Reader, closed after the method returns
+     * @param pattern the regular expression Pattern for the delimiter
+     * @param closure a closure
+     * @throws IOException if an IOException occurs.
+     * @return the last value returned by the closure
+     * @see java.util.regex.Pattern#split(CharSequence)
+     * @since 1.7
+     */
+    public static Object splitEachLine(Reader self, Pattern pattern, Closure closure) throws IOException {
         BufferedReader br;
         Object result = null;
+        final String literal = getLiteralSeparator(pattern);
 
         if (self instanceof BufferedReader)
             br = (BufferedReader) self;
@@ -8898,7 +9072,7 @@ public class DefaultGroovyMethods extends DefaultGroovyMethodsSupport {
                 if (line == null) {
                     break;
                 } else {
-                    List vals = Arrays.asList(line.split(sep));
+                    List vals = splitLine(line, pattern, literal);
                     result = closure.call(vals);
                 }
             }
@@ -8931,6 +9105,25 @@ public class DefaultGroovyMethods extends DefaultGroovyMethodsSupport {
         return splitEachLine(new BufferedReader(new InputStreamReader(stream, charset)), sep, closure);
     }
 
+    /**
+     * Iterates through the given InputStream line by line using the specified
+     * encoding, splitting each line using the given regex separator Pattern.  The list
+     * of tokens for each line is then passed to the given closure. Finally, the stream
+     * is closed.
+     *
+     * @param stream  an InputStream
+     * @param pattern the regular expression Pattern for the delimiter
+     * @param charset opens the stream with a specified charset
+     * @param closure a closure
+     * @throws IOException if an IOException occurs.
+     * @return the last value returned by the closure
+     * @see #splitEachLine(Reader,Pattern,Closure)
+     * @since 1.7
+     */
+    public static Object splitEachLine(InputStream stream, Pattern pattern, String charset, Closure closure) throws IOException {
+        return splitEachLine(new BufferedReader(new InputStreamReader(stream, charset)), pattern, closure);
+    }
+
     /**
      * Iterates through the given InputStream line by line, splitting each line using
      * the given separator.  The list of tokens for each line is then passed to
@@ -8948,6 +9141,23 @@ public class DefaultGroovyMethods extends DefaultGroovyMethodsSupport {
         return splitEachLine(new BufferedReader(new InputStreamReader(stream)), sep, closure);
     }
 
+    /**
+     * Iterates through the given InputStream line by line, splitting each line using
+     * the given regex separator Pattern.  The list of tokens for each line is then passed to
+     * the given closure. The stream is closed before the method returns.
+     *
+     * @param stream  an InputStream
+     * @param pattern the regular expression Pattern for the delimiter
+     * @param closure a closure
+     * @throws IOException if an IOException occurs.
+     * @return the last value returned by the closure
+     * @see #splitEachLine(Reader,Pattern,Closure)
+     * @since 1.7
+     */
+    public static Object splitEachLine(InputStream stream, Pattern pattern, Closure closure) throws IOException {
+        return splitEachLine(new BufferedReader(new InputStreamReader(stream)), pattern, closure);
+    }
+
     /**
      * Iterates through the given String line by line, splitting each line using
      * the given separator.  The list of tokens for each line is then passed to
@@ -8962,16 +9172,79 @@ public class DefaultGroovyMethods extends DefaultGroovyMethodsSupport {
      * @since 1.5.5
      */
     public static Object splitEachLine(String self, String sep, Closure closure) throws IOException {
+        return splitEachLine(self, Pattern.compile(sep), closure);
+    }
+
+    /**
+     * Iterates through the given String line by line, splitting each line using
+     * the given regex separator Pattern.  The list of tokens for each line is then
+     * passed to the given closure.
+     *
+     * @param self    a String
+     * @param pattern the regular expression Pattern for the delimiter
+     * @param closure a closure
+     * @return the last value returned by the closure
+     * @throws java.io.IOException if an error occurs
+     * @see java.util.regex.Pattern#split(CharSequence)
+     * @since 1.7
+     */
+    public static Object splitEachLine(String self, Pattern pattern, Closure closure) throws IOException {
         final List list = readLines(self);
+        final String literal = getLiteralSeparator(pattern);
         Object result = null;
         for (int i = 0; i < list.size(); i++) {
             String line = (String) list.get(i);
-            List vals = Arrays.asList(line.split(sep));
+            List vals = splitLine(line, pattern, literal);
             result = closure.call(vals);
         }
         return result;
     }
 
+    /**
+     * Returns the string matched by the pattern if it matches nothing but a
+     * fixed, non empty string, otherwise null.
+     */
+    private static String getLiteralSeparator(Pattern pattern) {
+        if (pattern.flags() != 0) return null;
+        final String regex = pattern.pattern();
+        if (regex.length() == 2 && regex.charAt(0) == '\\' && !Character.isLetterOrDigit(regex.charAt(1)))
+            return regex.substring(1);
+        if (regex.length() == 0) return null;
+        for (int i = 0; i < regex.length(); i++) {
+            if (".$|()[]{}^?*+\\".indexOf(regex.charAt(i)) != -1) return null;
+        }
+        return regex;
+    }
+
+    /**
+     * Splits the line like {@link Pattern#split(CharSequence)}, using a plain
+     * string search if the separator is a literal.
+     */
+    private static List splitLine(String line, Pattern pattern, String literal) {
+        if (literal == null)
+            return Arrays.asList(pattern.split(line));
+
+        final List tokens = new ArrayList();
+        int start = 0;
+        int index;
+        while ((index = line.indexOf(literal, start)) != -1) {
+            tokens.add(line.substring(start, index));
+            start = index + literal.length();
+        }
+        if (start == 0) {
+            // no match, the result is the whole line
+            tokens.add(line);
+            return tokens;
+        }
+        tokens.add(line.substring(start));
+        // trailing empty strings are not included
+        int size = tokens.size();
+        while (size > 0 && ((String) tokens.get(size - 1)).length() == 0) {
+            tokens.remove(--size);
+        }
+        return tokens;
+    }
+
     /**
      * Read a single, whole line from the given Reader.
      *
@@ -10788,12 +11061,7 @@ public class DefaultGroovyMethods extends DefaultGroovyMethodsSupport {
      * @since 1.6.0
      */
     public static GroovyRowResult toRowResult(ResultSet rs) throws SQLException {
-        ResultSetMetaData metadata = rs.getMetaData();
-        LinkedHashMap lhm = new LinkedHashMap(metadata.getColumnCount(), 1);
-        for (int i = 1; i <= metadata.getColumnCount(); i++) {
-            lhm.put(metadata.getColumnName(i), rs.getObject(i));
-        }
-        return new GroovyRowResult(lhm);
+        return ColumnIndex.create(rs.getMetaData()).toRowResult(rs);
     }
 
     /**
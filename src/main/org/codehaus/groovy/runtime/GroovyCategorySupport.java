@@ -21,6 +21,7 @@ import org.codehaus.groovy.reflection.CachedMethod;
 import org.codehaus.groovy.reflection.ReflectionCache;
 import org.codehaus.groovy.runtime.metaclass.NewInstanceMetaMethod;
 
+import java.lang.ref.SoftReference;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicInteger;
@@ -55,6 +56,82 @@ public class GroovyCategorySupport {
             usage.incrementAndGet();
             return super.add(o);
         }
+
+        void addSorted(CategoryMethod[] methods) {
+            usage.addAndGet(methods.length);
+            for (int i = 0; i != methods.length; ++i)
+              super.add(methods[i]);
+        }
+    }
+
+    /**
+     * Category methods of a category class and its super classes grouped by name,
+     * in declaration order and in the order a fresh method list sorts them to.
+     * Entering a <code>use</code> block only has to merge them into the thread's lists.
+     */
+    private static class CategoryClassMethods {
+        final Map<String, CategoryMethod[]> declared = new LinkedHashMap<String, CategoryMethod[]>();
+        final Map<String, CategoryMethod[]> sorted = new HashMap<String, CategoryMethod[]>();
+
+        CategoryClassMethods(Class categoryClass) {
+            CachedClass cachedClass = ReflectionCache.getCachedClass(categoryClass);
+            LinkedList classStack = new LinkedList();
+            for (CachedClass superClass = cachedClass; superClass.getTheClass()!=Object.class; superClass = superClass.getCachedSuperClass()) {
+                classStack.add(superClass);
+            }
+
+            final Map<String, List<CategoryMethod>> byName = new LinkedHashMap<String, List<CategoryMethod>>();
+            while (!classStack.isEmpty()) {
+                CachedClass klazz = (CachedClass) classStack.removeLast();
+                CachedMethod[] methods = klazz.getMethods();
+                for (int i = 0; i < methods.length; i++) {
+                    CachedMethod cachedMethod = methods[i];
+                    if (cachedMethod.isStatic() && cachedMethod.isPublic()) {
+                        CachedClass[] paramTypes = cachedMethod.getParameterTypes();
+                        if (paramTypes.length > 0) {
+                            CachedClass metaClass = paramTypes[0];
+                            final String name = cachedMethod.getName();
+                            List<CategoryMethod> list = byName.get(name);
+                            if (list == null) {
+                                list = new ArrayList<CategoryMethod>();
+                                byName.put(name, list);
+                            }
+                            list.add(new CategoryMethod(cachedMethod, metaClass.getTheClass()));
+                        }
+                    }
+                }
+            }
+
+            for (Iterator<Map.Entry<String, List<CategoryMethod>>> it = byName.entrySet().iterator(); it.hasNext(); ) {
+                final Map.Entry<String, List<CategoryMethod>> e = it.next();
+                final List<CategoryMethod> methods = e.getValue();
+                // the comparator only orders related classes, so sort the way use() always did
+                final List<CategoryMethod> list = new ArrayList<CategoryMethod>(methods.size());
+                for (Iterator<CategoryMethod> mit = methods.iterator(); mit.hasNext(); ) {
+                    list.add(mit.next());
+                    Collections.sort(list);
+                }
+                declared.put(e.getKey(), methods.toArray(new CategoryMethod[methods.size()]));
+                sorted.put(e.getKey(), list.toArray(new CategoryMethod[list.size()]));
+            }
+        }
+    }
+
+    private static final Map<Class, SoftReference<CategoryClassMethods>> categoryClassMethods = new WeakHashMap<Class, SoftReference<CategoryClassMethods>>();
+
+    private static CategoryClassMethods getCategoryClassMethods(Class categoryClass) {
+        synchronized (categoryClassMethods) {
+            final SoftReference<CategoryClassMethods> ref = categoryClassMethods.get(categoryClass);
+            final CategoryClassMethods methods = ref == null ? null : ref.get();
+            if (methods != null)
+              return methods;
+        }
+
+        final CategoryClassMethods methods = new CategoryClassMethods(categoryClass);
+        synchronized (categoryClassMethods) {
+            categoryClassMethods.put(categoryClass, new SoftReference<CategoryClassMethods>(methods));
+        }
+        return methods;
     }
 
     public static class ThreadCategoryInfo extends HashMap<String, CategoryMethodList>{
@@ -108,41 +185,30 @@ public class GroovyCategorySupport {
             }
         }
         
-        private void applyUse(CachedClass cachedClass) {
-            CachedMethod[] methods = cachedClass.getMethods();
-            for (int i = 0; i < methods.length; i++) {
-                CachedMethod cachedMethod = methods[i];
-                if (cachedMethod.isStatic() && cachedMethod.isPublic()) {
-                    CachedClass[] paramTypes = cachedMethod.getParameterTypes();
-                    if (paramTypes.length > 0) {
-                        CachedClass metaClass = paramTypes[0];
-                        CategoryMethod mmethod = new CategoryMethod(cachedMethod, metaClass.getTheClass());
-                        final String name = cachedMethod.getName();
-                        CategoryMethodList list = get(name);
-                        if (list == null || list.level != level) {
-                            list = new CategoryMethodList(name,level,list);
-                            put (name, list);
-                        }
-                        list.add(mmethod);
+        private void use(Class categoryClass) {
+            final CategoryClassMethods methods = getCategoryClassMethods(categoryClass);
+            for (Iterator<Map.Entry<String, CategoryMethod[]>> it = methods.declared.entrySet().iterator(); it.hasNext(); ) {
+                final Map.Entry<String, CategoryMethod[]> e = it.next();
+                final String name = e.getKey();
+                CategoryMethodList list = get(name);
+                if (list == null || list.level != level) {
+                    list = new CategoryMethodList(name,level,list);
+                    put (name, list);
+                }
+
+                if (list.isEmpty()) {
+                    list.addSorted(methods.sorted.get(name));
+                }
+                else {
+                    final CategoryMethod[] declared = e.getValue();
+                    for (int i = 0; i != declared.length; ++i) {
+                        list.add(declared[i]);
                         Collections.sort(list);
                     }
                 }
             }
         }
 
-        private void use(Class categoryClass) {
-            CachedClass cachedClass = ReflectionCache.getCachedClass(categoryClass);
-            LinkedList classStack = new LinkedList();
-            for (CachedClass superClass = cachedClass; superClass.getTheClass()!=Object.class; superClass = superClass.getCachedSuperClass()) {
-                classStack.add(superClass);
-            }
-            
-            while (!classStack.isEmpty()) {
-                CachedClass klazz = (CachedClass) classStack.removeLast();
-                applyUse(klazz);
-            }
-        }
-
         public CategoryMethodList getCategoryMethods(String name) {
             return level == 0 ? null : get(name);
         }
@@ -217,6 +283,19 @@ public class GroovyCategorySupport {
         return categoriesInUse.get() != 0 && threadInfo.get().level != 0;
     }
 
+    /**
+     * Checks whether category methods counted by the given usage counter may be active in the current thread.
+     * Call sites use this to validate their cached methods: as long as no thread uses a category method
+     * of that name only the shared counter is read, and threads without an active category keep their
+     * cached methods while other threads enter <code>use</code> blocks.
+     *
+     * @param usage the usage counter of a method name, see {@link #getCategoryNameUsage(String)}
+     * @return true if the current thread has to select methods with categories taken into account
+     */
+    public static boolean isCategoryInUse(AtomicInteger usage) {
+        return usage.get() != 0 && threadInfo.get().level != 0;
+    }
+
     public static boolean hasCategoryInAnyThread() {
         return categoriesInUse.get() != 0;
     }
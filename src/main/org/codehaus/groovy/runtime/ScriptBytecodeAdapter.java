@@ -653,6 +653,51 @@ public class ScriptBytecodeAdapter {
             return new ObjectRange((Comparable) from, (Comparable) to);
     }
 
+    /*
+     * Counted loops: for (i in from..to) and for (i in (from..to).step(step))
+     * are compiled to a loop running rangeLoopCount() times, starting at
+     * rangeLoopFirst() and adding rangeLoopStep() in each iteration.
+     * The values are the same the loop would get from the IntRange
+     * created by createRange(). Loops over IntRange objects use the
+     * inclusive bounds given by rangeLoopFrom() and rangeLoopTo().
+     */
+
+    private static int normalizeRangeLoopTo(int from, int to, boolean inclusive) {
+        if (inclusive || from == to)
+          return to;
+        return from > to ? to + 1 : to - 1;
+    }
+
+    public static long rangeLoopCount(int from, int to, boolean inclusive, int step) {
+        if (!inclusive && from == to)
+          return 0;
+        to = normalizeRangeLoopTo(from, to, inclusive);
+        final int lo = Math.min(from, to);
+        final int hi = Math.max(from, to);
+        if (hi - lo >= Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("range must have no more than " + Integer.MAX_VALUE + " elements");
+        }
+        return ((long) hi - lo) / Math.abs((long) step) + 1;
+    }
+
+    public static int rangeLoopStep(int from, int to, boolean inclusive, int step) {
+        return from > normalizeRangeLoopTo(from, to, inclusive) ? -step : step;
+    }
+
+    public static int rangeLoopFrom(IntRange range) {
+        return range.isReverse() ? range.getToInt() : range.getFromInt();
+    }
+
+    public static int rangeLoopTo(IntRange range) {
+        return range.isReverse() ? range.getFromInt() : range.getToInt();
+    }
+
+    public static int rangeLoopFirst(int from, int to, boolean inclusive, int step) {
+        to = normalizeRangeLoopTo(from, to, inclusive);
+        final int stride = from > to ? -step : step;
+        return stride > 0 ? Math.min(from, to) : Math.max(from, to);
+    }
+
     //assert
     public static void assertFailed(Object expression, Object message) {
         InvokerHelper.assertFailed(expression, message);
@@ -265,6 +265,8 @@ public class AbstractCallSite implements CallSite {
             final Method method = aClass.getMethod("getProperty", String.class);
             if (method != null && method.isSynthetic() && ((GroovyObject)receiver).getMetaClass() instanceof MetaClassImpl)
               return createPogoMetaClassGetPropertySite ((GroovyObject)receiver);
+            if (method != null && method.getDeclaringClass() == Script.class)
+              return createScriptVariableGetPropertySite (aClass);
         } catch (NoSuchMethodException e) {
             // fall threw
         }
@@ -278,8 +280,9 @@ public class AbstractCallSite implements CallSite {
     private CallSite createPojoMetaClassGetPropertySite(Object receiver) {
         final MetaClass metaClass = InvokerHelper.getMetaClass(receiver);
 
+        final boolean categories = GroovyCategorySupport.hasCategoryInCurrentThread();
         CallSite site;
-        if (metaClass.getClass() != MetaClassImpl.class || GroovyCategorySupport.hasCategoryInCurrentThread()) {
+        if (metaClass.getClass() != MetaClassImpl.class || categories) {
             site = new PojoMetaClassGetPropertySite(this);
         }
         else {
@@ -295,7 +298,9 @@ public class AbstractCallSite implements CallSite {
             }
         }
 
-        array.array[index] = site;
+        // category aware sites are not shared, other threads keep the effective property sites
+        if (!categories)
+          array.array[index] = site;
         return site;
     }
 
@@ -308,8 +313,9 @@ public class AbstractCallSite implements CallSite {
     private CallSite createPogoMetaClassGetPropertySite(GroovyObject receiver) {
         final MetaClass metaClass = receiver.getMetaClass();
 
+        final boolean categories = GroovyCategorySupport.hasCategoryInCurrentThread();
         CallSite site;
-        if (metaClass.getClass() != MetaClassImpl.class || GroovyCategorySupport.hasCategoryInCurrentThread()) {
+        if (metaClass.getClass() != MetaClassImpl.class || categories) {
             site = new PogoMetaClassGetPropertySite(this, metaClass);
         }
         else {
@@ -325,6 +331,13 @@ public class AbstractCallSite implements CallSite {
             }
         }
 
+        if (!categories)
+          array.array[index] = site;
+        return site;
+    }
+
+    private CallSite createScriptVariableGetPropertySite(Class aClass) {
+        CallSite site = new ScriptVariableGetPropertySite(this, aClass);
         array.array[index] = site;
         return site;
     }
@@ -335,6 +348,115 @@ public class AbstractCallSite implements CallSite {
         return site;
     }
 
+    public void callSetProperty (Object receiver, Object value) throws Throwable {
+        acceptSetProperty(receiver).setProperty(receiver, value);
+    }
+
+    public void callGroovyObjectSetProperty (Object receiver, Object value) throws Throwable {
+        acceptGroovyObjectSetProperty(receiver).setProperty(receiver, value);
+    }
+
+    public CallSite acceptSetProperty(Object receiver) {
+        return createSetPropertySite(receiver);
+    }
+
+    public CallSite acceptGroovyObjectSetProperty(Object receiver) {
+        if (receiver == null)
+          return createSetPropertySite(receiver);
+        return createGroovyObjectSetPropertySite(receiver);
+    }
+
+    protected final CallSite createSetPropertySite(Object receiver) {
+        if (receiver==null) {
+            return new NullCallSite(this);
+        } else if (receiver instanceof GroovyObject) {
+            return createGroovyObjectSetPropertySite(receiver);
+        } else if (receiver instanceof Class) {
+            CallSite site = new PojoMetaClassSetPropertySite(this);
+            array.array[index] = site;
+            return site;
+        }
+        return createPojoMetaClassSetPropertySite(receiver);
+    }
+
+    protected final CallSite createGroovyObjectSetPropertySite(Object receiver) {
+        Class aClass = receiver.getClass();
+        try {
+            final Method method = aClass.getMethod("setProperty", String.class, Object.class);
+            if (method != null && method.isSynthetic() && ((GroovyObject)receiver).getMetaClass() instanceof MetaClassImpl)
+              return createPogoMetaClassSetPropertySite ((GroovyObject)receiver);
+        } catch (NoSuchMethodException e) {
+            // fall threw
+        }
+        return createPogoSetPropertySite (aClass);
+    }
+
+    public void setProperty(Object receiver, Object value) throws Throwable {
+        throw new UnsupportedOperationException();
+    }
+
+    private CallSite createPojoMetaClassSetPropertySite(Object receiver) {
+        final MetaClass metaClass = InvokerHelper.getMetaClass(receiver);
+
+        final boolean categories = GroovyCategorySupport.hasCategoryInCurrentThread();
+        CallSite site;
+        if (metaClass.getClass() != MetaClassImpl.class || categories) {
+            site = new PojoMetaClassSetPropertySite(this);
+        }
+        else {
+            final MetaProperty effective = ((MetaClassImpl) metaClass).getEffectiveSetMetaProperty(receiver.getClass(), receiver, name);
+            if (effective != null) {
+                site = new SetEffectivePojoPropertySite(this, (MetaClassImpl) metaClass, effective);
+            }
+            else {
+                site = new PojoMetaClassSetPropertySite(this);
+            }
+        }
+
+        if (!categories)
+          array.array[index] = site;
+        return site;
+    }
+
+    private CallSite createPogoMetaClassSetPropertySite(GroovyObject receiver) {
+        final MetaClass metaClass = receiver.getMetaClass();
+
+        final boolean categories = GroovyCategorySupport.hasCategoryInCurrentThread();
+        CallSite site;
+        if (metaClass.getClass() != MetaClassImpl.class || categories) {
+            site = new PogoSetPropertySite(this, receiver.getClass());
+        }
+        else {
+            final MetaProperty effective = ((MetaClassImpl) metaClass).getEffectiveSetMetaProperty(receiver.getClass(), receiver, name);
+            if (effective != null) {
+                site = new SetEffectivePogoPropertySite(this, metaClass, effective);
+            }
+            else {
+                site = new PogoSetPropertySite(this, receiver.getClass());
+            }
+        }
+
+        if (!categories)
+          array.array[index] = site;
+        return site;
+    }
+
+    private CallSite createPogoSetPropertySite(Class aClass) {
+        CallSite site = new PogoSetPropertySite(this, aClass);
+        array.array[index] = site;
+        return site;
+    }
+
+    public final void callSetPropertySafe (Object receiver, Object value) throws Throwable {
+        if (receiver != null)
+          callSetProperty(receiver, value);
+    }
+
+    public final void callGroovyObjectSetPropertySafe (Object receiver, Object value) throws Throwable {
+        if (receiver != null)
+          callGroovyObjectSetProperty(receiver, value);
+    }
+
     public final Object callGetPropertySafe (Object receiver) throws Throwable {
         if (receiver == null)
           return null;
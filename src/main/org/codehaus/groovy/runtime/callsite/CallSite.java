@@ -16,6 +16,12 @@ public interface CallSite {
     Object callGroovyObjectGetProperty (Object receiver) throws Throwable;
     Object callGroovyObjectGetPropertySafe (Object receiver) throws Throwable;
 
+    void setProperty(Object receiver, Object value) throws Throwable;
+    void callSetProperty (Object receiver, Object value) throws Throwable;
+    void callSetPropertySafe (Object receiver, Object value) throws Throwable;
+    void callGroovyObjectSetProperty (Object receiver, Object value) throws Throwable;
+    void callGroovyObjectSetPropertySafe (Object receiver, Object value) throws Throwable;
+
     Object call (Object receiver, Object[] args) throws Throwable;
     Object call (Object receiver) throws Throwable;
     Object call (Object receiver, Object arg1) throws Throwable;
@@ -20,6 +20,7 @@ import groovy.lang.MetaClass;
 import groovy.lang.MetaClassImpl;
 import groovy.lang.GroovyInterceptable;
 import groovy.lang.GroovyObject;
+import org.codehaus.groovy.runtime.GroovyCategorySupport;
 import org.codehaus.groovy.runtime.InvokerHelper;
 import org.codehaus.groovy.runtime.NullObject;
 import org.codehaus.groovy.runtime.ScriptBytecodeAdapter;
@@ -104,7 +105,7 @@ public final class CallSiteArray {
     private static CallSite createPojoSite(CallSite callSite, Object receiver, Object[] args) {
         final Class klazz = receiver.getClass();
         MetaClass metaClass = InvokerHelper.getMetaClass(receiver);
-        if (callSite.getUsage().get() == 0 && metaClass instanceof MetaClassImpl) {
+        if (!GroovyCategorySupport.isCategoryInUse(callSite.getUsage()) && metaClass instanceof MetaClassImpl) {
             final MetaClassImpl mci = (MetaClassImpl) metaClass;
             final ClassInfo info = mci.getTheCachedClass().classInfo;
             if (info.hasPerInstanceMetaClasses()) {
@@ -146,11 +147,15 @@ public final class CallSiteArray {
             site = createPojoSite(callSite, receiver, args);
         }
 
-        replaceCallSite(callSite, site);
+        if (!GroovyCategorySupport.isCategoryInUse(callSite.getUsage()))
+          PolymorphicCallSite.install(callSite, site);
         return site;
     }
 
     private static void replaceCallSite(CallSite oldSite, CallSite newSite) {
-        oldSite.getArray().array [oldSite.getIndex()] = newSite;
+        // sites selected while category methods of this name are active in the current thread
+        // are used for this call only, so that other threads keep their cached methods
+        if (!GroovyCategorySupport.isCategoryInUse(oldSite.getUsage()))
+          oldSite.getArray().array [oldSite.getIndex()] = newSite;
     }
 }
@@ -0,0 +1,237 @@
+/*
+ * Copyright 2003-2009 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.codehaus.groovy.runtime.callsite;
+
+import org.codehaus.groovy.runtime.typehandling.DefaultTypeTransformation;
+
+/**
+ * Call site for the comparison operators <code>==</code>, <code>!=</code>, <code>&lt;</code>,
+ * <code>&lt;=</code>, <code>&gt;</code>, <code>&gt;=</code> and <code>&lt;=&gt;</code>.
+ *
+ * On the first evaluation the site specializes on the classes of both operands
+ * (Integer, Long, Double, String or any other Comparable compared with its own class).
+ * Once a specialized site sees operands it was not created for, it is replaced by the generic site,
+ * which delegates to {@link DefaultTypeTransformation} just like the static helpers
+ * in {@link org.codehaus.groovy.runtime.ScriptBytecodeAdapter} do.
+ * Evaluations with a null operand always use the generic comparison and do not change the site.
+ */
+public class ComparisonSite extends AbstractCallSite {
+
+    private static final Integer ZERO = Integer.valueOf(0);
+    private static final Integer MINUS_ONE = Integer.valueOf(-1);
+    private static final Integer ONE = Integer.valueOf(1);
+
+    private static final ComparisonSite GENERIC = new ComparisonSite(null, -1, "compareTo");
+
+    private ComparisonSite(CallSiteArray array, int index, String name) {
+        super(array, index, name);
+    }
+
+    public ComparisonSite(CallSite prev) {
+        super(prev);
+    }
+
+    /**
+     * @return true if this site is able to compare the given, non null, operands
+     */
+    public boolean accepts(Object left, Object right) {
+        return true;
+    }
+
+    public int compare(Object left, Object right) {
+        return DefaultTypeTransformation.compareTo(left, right);
+    }
+
+    public boolean isEqual(Object left, Object right) {
+        return DefaultTypeTransformation.compareEqual(left, right);
+    }
+
+    public static boolean compareEqual(CallSite site, Object left, Object right) {
+        if (left == right) return true;
+        return select(site, left, right).isEqual(left, right);
+    }
+
+    public static boolean compareNotEqual(CallSite site, Object left, Object right) {
+        return !compareEqual(site, left, right);
+    }
+
+    public static Integer compareTo(CallSite site, Object left, Object right) {
+        final int answer = select(site, left, right).compare(left, right);
+        if (answer == 0) {
+            return ZERO;
+        } else {
+            return answer > 0 ? ONE : MINUS_ONE;
+        }
+    }
+
+    public static boolean compareLessThan(CallSite site, Object left, Object right) {
+        return select(site, left, right).compare(left, right) < 0;
+    }
+
+    public static boolean compareLessThanEqual(CallSite site, Object left, Object right) {
+        return select(site, left, right).compare(left, right) <= 0;
+    }
+
+    public static boolean compareGreaterThan(CallSite site, Object left, Object right) {
+        return select(site, left, right).compare(left, right) > 0;
+    }
+
+    public static boolean compareGreaterThanEqual(CallSite site, Object left, Object right) {
+        return select(site, left, right).compare(left, right) >= 0;
+    }
+
+    private static ComparisonSite select(CallSite site, Object left, Object right) {
+        if (left == null || right == null)
+          return GENERIC;
+
+        if (site instanceof ComparisonSite) {
+            final ComparisonSite comparisonSite = (ComparisonSite) site;
+            if (comparisonSite.accepts(left, right))
+              return comparisonSite;
+
+            // operand classes changed, don't try to specialize again
+            return install(site, new ComparisonSite(site));
+        }
+
+        return install(site, createComparisonSite(site, left, right));
+    }
+
+    private static ComparisonSite install(CallSite oldSite, ComparisonSite newSite) {
+        oldSite.getArray().array[oldSite.getIndex()] = newSite;
+        return newSite;
+    }
+
+    private static ComparisonSite createComparisonSite(CallSite site, Object left, Object right) {
+        final Class leftClass = left.getClass();
+        if (leftClass != right.getClass())
+          return new ComparisonSite(site);
+
+        if (leftClass == Integer.class)
+          return new IntegerIntegerSite(site);
+
+        if (leftClass == Long.class)
+          return new LongLongSite(site);
+
+        if (leftClass == Double.class)
+          return new DoubleDoubleSite(site);
+
+        if (leftClass == String.class)
+          return new StringStringSite(site);
+
+        // numbers and characters are coerced by DefaultTypeTransformation
+        if (left instanceof Comparable && !(left instanceof Number) && !(left instanceof Character))
+          return new ComparableSite(site, leftClass);
+
+        return new ComparisonSite(site);
+    }
+
+    private static class IntegerIntegerSite extends ComparisonSite {
+        IntegerIntegerSite(CallSite prev) {
+            super(prev);
+        }
+
+        public boolean accepts(Object left, Object right) {
+            return left.getClass() == Integer.class && right.getClass() == Integer.class;
+        }
+
+        public int compare(Object left, Object right) {
+            final int leftVal = ((Integer) left).intValue();
+            final int rightVal = ((Integer) right).intValue();
+            return leftVal < rightVal ? -1 : (leftVal == rightVal ? 0 : 1);
+        }
+
+        public boolean isEqual(Object left, Object right) {
+            return ((Integer) left).intValue() == ((Integer) right).intValue();
+        }
+    }
+
+    private static class LongLongSite extends ComparisonSite {
+        LongLongSite(CallSite prev) {
+            super(prev);
+        }
+
+        public boolean accepts(Object left, Object right) {
+            return left.getClass() == Long.class && right.getClass() == Long.class;
+        }
+
+        public int compare(Object left, Object right) {
+            final long leftVal = ((Long) left).longValue();
+            final long rightVal = ((Long) right).longValue();
+            return leftVal < rightVal ? -1 : (leftVal == rightVal ? 0 : 1);
+        }
+
+        public boolean isEqual(Object left, Object right) {
+            return ((Long) left).longValue() == ((Long) right).longValue();
+        }
+    }
+
+    private static class DoubleDoubleSite extends ComparisonSite {
+        DoubleDoubleSite(CallSite prev) {
+            super(prev);
+        }
+
+        public boolean accepts(Object left, Object right) {
+            return left.getClass() == Double.class && right.getClass() == Double.class;
+        }
+
+        public int compare(Object left, Object right) {
+            return Double.compare(((Double) left).doubleValue(), ((Double) right).doubleValue());
+        }
+
+        public boolean isEqual(Object left, Object right) {
+            return compare(left, right) == 0;
+        }
+    }
+
+    private static class StringStringSite extends ComparisonSite {
+        StringStringSite(CallSite prev) {
+            super(prev);
+        }
+
+        public boolean accepts(Object left, Object right) {
+            return left.getClass() == String.class && right.getClass() == String.class;
+        }
+
+        public int compare(Object left, Object right) {
+            return ((String) left).compareTo((String) right);
+        }
+
+        public boolean isEqual(Object left, Object right) {
+            return left.equals(right);
+        }
+    }
+
+    private static class ComparableSite extends ComparisonSite {
+        private final Class type;
+
+        ComparableSite(CallSite prev, Class type) {
+            super(prev);
+            this.type = type;
+        }
+
+        public boolean accepts(Object left, Object right) {
+            return left.getClass() == type && right.getClass() == type;
+        }
+
+        public int compare(Object left, Object right) {
+            return ((Comparable) left).compareTo(right);
+        }
+
+        public boolean isEqual(Object left, Object right) {
+            return compare(left, right) == 0;
+        }
+    }
+}
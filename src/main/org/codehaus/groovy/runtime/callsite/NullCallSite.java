@@ -34,4 +34,16 @@ public final class NullCallSite extends AbstractCallSite {
             return acceptGetProperty(receiver).getProperty(receiver);
         }
     }
-}
\ No newline at end of file
+
+    public void setProperty(Object receiver, Object value) throws Throwable {
+        if (receiver == null) {
+            try{
+                InvokerHelper.setProperty(NullObject.getNullObject(), name, value);
+            } catch (GroovyRuntimeException gre) {
+                throw ScriptBytecodeAdapter.unwrap(gre);
+            }
+        } else {
+            acceptSetProperty(receiver).setProperty(receiver, value);
+        }
+    }
+}
@@ -0,0 +1,55 @@
+/*
+ * Copyright 2003-2009 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.codehaus.groovy.runtime.callsite;
+
+import org.codehaus.groovy.runtime.ScriptBytecodeAdapter;
+
+import groovy.lang.GroovyObject;
+import groovy.lang.GroovyRuntimeException;
+
+/**
+ * POGO property assignment through GroovyObject.setProperty
+ */
+public class PogoSetPropertySite extends AbstractCallSite {
+    private final Class aClass;
+
+    public PogoSetPropertySite(CallSite parent, Class aClass) {
+        super(parent);
+        this.aClass = aClass;
+    }
+
+    public CallSite acceptSetProperty(Object receiver) {
+        if (receiver == null || receiver.getClass() != aClass)
+            return createSetPropertySite(receiver);
+        else
+          return this;
+    }
+
+    public CallSite acceptGroovyObjectSetProperty(Object receiver) {
+        if (receiver == null || receiver.getClass() != aClass)
+            return createSetPropertySite(receiver);
+        else
+          return this;
+    }
+
+    public void setProperty(Object receiver, Object value) throws Throwable {
+        try{
+            ((GroovyObject)receiver).setProperty(name, value);
+        } catch (GroovyRuntimeException gre) {
+            throw ScriptBytecodeAdapter.unwrap(gre);
+        }
+    }
+}
@@ -0,0 +1,49 @@
+/*
+ * Copyright 2003-2009 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.codehaus.groovy.runtime.callsite;
+
+import groovy.lang.GroovyRuntimeException;
+import org.codehaus.groovy.runtime.InvokerHelper;
+import org.codehaus.groovy.runtime.ScriptBytecodeAdapter;
+
+/**
+ * POJO property assignment through the meta class, nothing cached
+ */
+public class PojoMetaClassSetPropertySite extends AbstractCallSite {
+    public PojoMetaClassSetPropertySite(CallSite parent) {
+        super(parent);
+    }
+
+    public final CallSite acceptSetProperty(Object receiver) {
+          return this;
+    }
+
+    public final void setProperty(Object receiver, Object value) throws Throwable {
+        try {
+            InvokerHelper.setProperty(receiver, name, value);
+        } catch (GroovyRuntimeException gre) {
+            throw ScriptBytecodeAdapter.unwrap(gre);
+        }
+    }
+
+    public void callSetProperty(Object receiver, Object value) throws Throwable {
+        try {
+            InvokerHelper.setProperty(receiver, name, value);
+        } catch (GroovyRuntimeException gre) {
+            throw ScriptBytecodeAdapter.unwrap(gre);
+        }
+    }
+}
@@ -0,0 +1,243 @@
+/*
+ * Copyright 2003-2009 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.codehaus.groovy.runtime.callsite;
+
+import groovy.lang.GroovyObject;
+import org.codehaus.groovy.runtime.ArrayUtil;
+
+/**
+ * Bounded polymorphic inline cache.
+ *
+ * Keeps up to {@link #MAX_ENTRIES} specialized sites (one per receiver class for POJOs
+ * or per meta class for POGOs) and dispatches to the first one matching the receiver.
+ * Every entry still performs its own guard (meta class version, argument classes, categories)
+ * and falls back through {@link CallSiteArray}, which in turn refreshes the entry here.
+ * When a new receiver type arrives and the cache is full the site becomes megamorphic:
+ * the existing entries are kept but further misses are served by uncached sites.
+ *
+ * Counters are updated without synchronization and are therefore approximate.
+ */
+public final class PolymorphicCallSite extends AbstractCallSite {
+
+    /**
+     * Maximum number of receiver types cached per call site,
+     * configured with the <code>groovy.callsite.polymorphic.size</code> system property.
+     * A value less than 2 disables polymorphic caching.
+     */
+    public static final int MAX_ENTRIES = getMaxEntries();
+
+    private volatile MetaClassSite[] entries;
+    private volatile boolean megamorphic;
+
+    private int hits;
+    private int misses;
+    private int promotions;
+
+    PolymorphicCallSite(MetaClassSite first, MetaClassSite second) {
+        super(first);
+        entries = new MetaClassSite[]{first, second};
+        misses = 1;
+        promotions = 1;
+    }
+
+    private static int getMaxEntries() {
+        try {
+            return Integer.parseInt(System.getProperty("groovy.callsite.polymorphic.size", "4"));
+        } catch (NumberFormatException e) {
+            return 4;
+        } catch (SecurityException e) {
+            return 4;
+        }
+    }
+
+    /**
+     * Sites for which we can tell cheaply whether they are able to serve a given receiver.
+     */
+    static boolean isCacheable(CallSite site) {
+        return site instanceof PojoMetaMethodSite
+            || site instanceof PogoMetaMethodSite
+            || site instanceof PojoMetaClassSite
+            || site instanceof PogoMetaClassSite;
+    }
+
+    static boolean isPogoSite(MetaClassSite site) {
+        return site instanceof PogoMetaMethodSite || site instanceof PogoMetaClassSite;
+    }
+
+    /**
+     * Identity of the receiver type served by the site: the meta class for POGOs
+     * (they may carry per-instance meta classes), the receiver class for POJOs.
+     */
+    static Object receiverKey(MetaClassSite site) {
+        return isPogoSite(site) ? (Object) site.metaClass : site.metaClass.getTheClass();
+    }
+
+    private static boolean accepts(MetaClassSite site, Object receiver) {
+        if (isPogoSite(site))
+          return receiver instanceof GroovyObject && ((GroovyObject) receiver).getMetaClass() == site.metaClass;
+        else
+          return receiver != null && receiver.getClass() == site.metaClass.getTheClass();
+    }
+
+    /**
+     * Installs a freshly created site into the call site array slot, merging it with
+     * whatever is cached there already.
+     */
+    static void install(CallSite oldSite, CallSite newSite) {
+        final CallSite[] array = oldSite.getArray().array;
+        final int index = oldSite.getIndex();
+        final CallSite current = array[index];
+
+        if (current instanceof PolymorphicCallSite && isCacheable(newSite)) {
+            ((PolymorphicCallSite) current).addEntry((MetaClassSite) newSite);
+            return;
+        }
+
+        if (MAX_ENTRIES > 1 && isCacheable(current) && isCacheable(newSite)
+                && receiverKey((MetaClassSite) current) != receiverKey((MetaClassSite) newSite)) {
+            array[index] = new PolymorphicCallSite((MetaClassSite) current, (MetaClassSite) newSite);
+            return;
+        }
+
+        array[index] = newSite;
+    }
+
+    private synchronized void addEntry(MetaClassSite site) {
+        misses++;
+        final Object key = receiverKey(site);
+        final MetaClassSite[] old = entries;
+        for (int i = 0; i != old.length; ++i) {
+            if (receiverKey(old[i]) == key) {
+                // same receiver type, but meta class or arguments changed
+                final MetaClassSite[] copy = new MetaClassSite[old.length];
+                System.arraycopy(old, 0, copy, 0, old.length);
+                copy[i] = site;
+                entries = copy;
+                return;
+            }
+        }
+
+        if (megamorphic)
+          return;
+
+        if (old.length >= MAX_ENTRIES) {
+            megamorphic = true;
+            promotions++;
+            return;
+        }
+
+        final MetaClassSite[] copy = new MetaClassSite[old.length + 1];
+        System.arraycopy(old, 0, copy, 0, old.length);
+        copy[old.length] = site;
+        entries = copy;
+    }
+
+    private MetaClassSite select(Object receiver) {
+        final MetaClassSite[] sites = entries;
+        for (int i = 0; i != sites.length; ++i) {
+            final MetaClassSite site = sites[i];
+            if (accepts(site, receiver)) {
+                hits++;
+                return site;
+            }
+        }
+        return null;
+    }
+
+    public Object call(Object receiver, Object[] args) throws Throwable {
+        final MetaClassSite site = select(receiver);
+        if (site != null)
+          return site.call(receiver, args);
+        return CallSiteArray.defaultCall(this, receiver, args);
+    }
+
+    public Object call(Object receiver) throws Throwable {
+        final MetaClassSite site = select(receiver);
+        if (site != null)
+          return site.call(receiver);
+        return CallSiteArray.defaultCall(this, receiver, CallSiteArray.NOPARAM);
+    }
+
+    public Object call(Object receiver, Object arg1) throws Throwable {
+        final MetaClassSite site = select(receiver);
+        if (site != null)
+          return site.call(receiver, arg1);
+        return CallSiteArray.defaultCall(this, receiver, ArrayUtil.createArray(arg1));
+    }
+
+    public Object call(Object receiver, Object arg1, Object arg2) throws Throwable {
+        final MetaClassSite site = select(receiver);
+        if (site != null)
+          return site.call(receiver, arg1, arg2);
+        return CallSiteArray.defaultCall(this, receiver, ArrayUtil.createArray(arg1, arg2));
+    }
+
+    public Object call(Object receiver, Object arg1, Object arg2, Object arg3) throws Throwable {
+        final MetaClassSite site = select(receiver);
+        if (site != null)
+          return site.call(receiver, arg1, arg2, arg3);
+        return CallSiteArray.defaultCall(this, receiver, ArrayUtil.createArray(arg1, arg2, arg3));
+    }
+
+    public Object call(Object receiver, Object arg1, Object arg2, Object arg3, Object arg4) throws Throwable {
+        final MetaClassSite site = select(receiver);
+        if (site != null)
+          return site.call(receiver, arg1, arg2, arg3, arg4);
+        return CallSiteArray.defaultCall(this, receiver, ArrayUtil.createArray(arg1, arg2, arg3, arg4));
+    }
+
+    /**
+     * @return number of calls served by one of the cached entries
+     */
+    public int getHitCount() {
+        return hits;
+    }
+
+    /**
+     * @return number of calls for which a new site had to be selected
+     */
+    public int getMissCount() {
+        return misses;
+    }
+
+    /**
+     * @return number of state transitions, monomorphic to polymorphic and polymorphic to megamorphic
+     */
+    public int getPromotionCount() {
+        return promotions;
+    }
+
+    /**
+     * @return number of receiver types currently cached
+     */
+    public int getEntryCount() {
+        return entries.length;
+    }
+
+    public boolean isMegamorphic() {
+        return megamorphic;
+    }
+
+    public String toString() {
+        return "PolymorphicCallSite[" + array.owner.getName() + "#" + name
+                + ", entries=" + entries.length
+                + ", hits=" + hits
+                + ", misses=" + misses
+                + ", promotions=" + promotions
+                + (megamorphic ? ", megamorphic" : "")
+                + "]";
+    }
+}
@@ -0,0 +1,77 @@
+/*
+ * Copyright 2003-2009 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.codehaus.groovy.runtime.callsite;
+
+import groovy.lang.Binding;
+import groovy.lang.GroovyRuntimeException;
+import groovy.lang.MissingPropertyException;
+import groovy.lang.Script;
+import org.codehaus.groovy.runtime.ScriptBytecodeAdapter;
+
+import java.util.Map;
+
+/**
+ * Reads variables of scripts not overriding {@link Script#getProperty(String)}.
+ * Variables of a plain {@link Binding} are read from its map, other bindings
+ * are asked through {@link Binding#lookupVariable(String)}. Names not bound are
+ * resolved by the meta class of the script, as Script.getProperty does,
+ * without a MissingPropertyException being thrown and caught on the way.
+ */
+public class ScriptVariableGetPropertySite extends AbstractCallSite {
+    private final Class aClass;
+
+    public ScriptVariableGetPropertySite(CallSite parent, Class aClass) {
+        super(parent);
+        this.aClass = aClass;
+    }
+
+    public CallSite acceptGetProperty(Object receiver) {
+        if (receiver == null || receiver.getClass() != aClass)
+            return createGetPropertySite(receiver);
+        else
+          return this;
+    }
+
+    public CallSite acceptGroovyObjectGetProperty(Object receiver) {
+        if (receiver.getClass() != aClass)
+            return createGroovyObjectGetPropertySite(receiver);
+        else
+          return this;
+    }
+
+    public Object getProperty(Object receiver) throws Throwable {
+        final Script script = (Script) receiver;
+        final Binding binding = script.getBinding();
+
+        final Object value;
+        if (binding.getClass() == Binding.class) {
+            final Map variables = binding.getVariables();
+            final Object variable = variables.get(name);
+            value = variable != null || variables.containsKey(name) ? variable : MissingPropertyException.MPE;
+        }
+        else
+          value = binding.lookupVariable(name);
+
+        if (value != MissingPropertyException.MPE)
+          return value;
+
+        try {
+            return script.getMetaClass().getProperty(script, name);
+        } catch (GroovyRuntimeException gre) {
+            throw ScriptBytecodeAdapter.unwrap(gre);
+        }
+    }
+}
@@ -0,0 +1,74 @@
+/*
+ * Copyright 2003-2009 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.codehaus.groovy.runtime.callsite;
+
+import groovy.lang.GroovyObject;
+import groovy.lang.GroovyRuntimeException;
+import groovy.lang.MetaClass;
+import groovy.lang.MetaProperty;
+import org.codehaus.groovy.runtime.GroovyCategorySupport;
+import org.codehaus.groovy.runtime.ScriptBytecodeAdapter;
+import org.codehaus.groovy.runtime.wrappers.Wrapper;
+
+/**
+ * POGO property assignment
+ *   meta class - cached
+ *   setter or field - cached
+ */
+class SetEffectivePogoPropertySite extends AbstractCallSite {
+    private final MetaClass metaClass;
+    private final MetaProperty effective;
+
+    public SetEffectivePogoPropertySite(CallSite site, MetaClass metaClass, MetaProperty effective) {
+        super(site);
+        this.metaClass = metaClass;
+        this.effective = effective;
+    }
+
+    public final void callSetProperty (Object receiver, Object value) throws Throwable {
+        acceptSetProperty(receiver).setProperty(receiver, value);
+    }
+
+    public final CallSite acceptSetProperty(Object receiver) {
+        if (GroovyCategorySupport.hasCategoryInCurrentThread() || !(receiver instanceof GroovyObject) || ((GroovyObject)receiver).getMetaClass() != metaClass) {
+            return createSetPropertySite(receiver);
+        } else {
+            return this;
+        }
+    }
+
+    public final void callGroovyObjectSetProperty (Object receiver, Object value) throws Throwable {
+        acceptGroovyObjectSetProperty(receiver).setProperty(receiver, value);
+    }
+
+    public final CallSite acceptGroovyObjectSetProperty(Object receiver) {
+        if (GroovyCategorySupport.hasCategoryInCurrentThread() || !(receiver instanceof GroovyObject) || ((GroovyObject)receiver).getMetaClass() != metaClass) {
+            return createSetPropertySite(receiver);
+        } else {
+            return this;
+        }
+    }
+
+    public final void setProperty(Object receiver, Object value) throws Throwable {
+        if (value instanceof Wrapper)
+          value = ((Wrapper) value).unwrap();
+        try {
+            effective.setProperty(receiver, value);
+        } catch (GroovyRuntimeException gre) {
+            throw ScriptBytecodeAdapter.unwrap(gre);
+        }
+    }
+}
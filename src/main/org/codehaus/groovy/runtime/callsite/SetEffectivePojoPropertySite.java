@@ -0,0 +1,64 @@
+/*
+ * Copyright 2003-2009 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.codehaus.groovy.runtime.callsite;
+
+import groovy.lang.GroovyRuntimeException;
+import groovy.lang.MetaClassImpl;
+import groovy.lang.MetaProperty;
+import org.codehaus.groovy.runtime.GroovyCategorySupport;
+import org.codehaus.groovy.runtime.ScriptBytecodeAdapter;
+import org.codehaus.groovy.runtime.wrappers.Wrapper;
+
+/**
+ * POJO property assignment
+ *   meta class - cached, checked by version
+ *   setter or field - cached
+ */
+class SetEffectivePojoPropertySite extends AbstractCallSite {
+    private final MetaClassImpl metaClass;
+    private final MetaProperty effective;
+    private final int version;
+
+    public SetEffectivePojoPropertySite(CallSite site, MetaClassImpl metaClass, MetaProperty effective) {
+        super(site);
+        this.metaClass = metaClass;
+        this.effective = effective;
+        version = metaClass.getVersion();
+    }
+
+    public final void callSetProperty (Object receiver, Object value) throws Throwable {
+        acceptSetProperty(receiver).setProperty(receiver, value);
+    }
+
+    public final CallSite acceptSetProperty(Object receiver) {
+        if (GroovyCategorySupport.hasCategoryInCurrentThread() || receiver == null
+                || receiver.getClass() != metaClass.getTheClass() || metaClass.getVersion() != version) {
+            return createSetPropertySite(receiver);
+        } else {
+            return this;
+        }
+    }
+
+    public final void setProperty(Object receiver, Object value) throws Throwable {
+        if (value instanceof Wrapper)
+          value = ((Wrapper) value).unwrap();
+        try {
+            effective.setProperty(receiver, value);
+        } catch (GroovyRuntimeException gre) {
+            throw ScriptBytecodeAdapter.unwrap(gre);
+        }
+    }
+}
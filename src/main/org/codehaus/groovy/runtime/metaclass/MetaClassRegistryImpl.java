@@ -25,12 +25,14 @@ import org.codehaus.groovy.util.FastArray;
 import org.codehaus.groovy.util.ManagedLinkedList;
 import org.codehaus.groovy.util.ReferenceBundle;
 
+import java.io.IOException;
 import java.lang.reflect.Constructor;
 import java.lang.reflect.Modifier;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.LinkedList;
+import java.util.List;
 import java.util.Map;
 
 /**
@@ -133,19 +135,20 @@ public class MetaClassRegistryImpl implements MetaClassRegistry{
     }
     
     private void registerMethods(final Class theClass, final boolean useMethodrapper, final boolean useInstanceMethods, Map map) {
-        CachedMethod[] methods = ReflectionCache.getCachedClass(theClass).getMethods();
-
         if (useMethodrapper) {
             // Here we instantiate objects representing MetaMethods for DGM methods.
             // Calls for such meta methods done without reflection, so more effectively.
             // It gives 7-8% improvement for benchmarks involving just several ariphmetic operations
-            for (int i = 0; ; ++i) {
-                try {
-                    final String className = "org.codehaus.groovy.runtime.dgm$" + i;
-                    final Class aClass = Class.forName(className);
-                    createMetaMethodFromClass(map, aClass);
-                } catch (ClassNotFoundException e){
-                    break;
+            // The generated classes are only loaded on first invocation, if the build-time index is available
+            if (!registerGeneratedMethodProxies(map)) {
+                for (int i = 0; ; ++i) {
+                    try {
+                        final String className = "org.codehaus.groovy.runtime.dgm$" + i;
+                        final Class aClass = Class.forName(className);
+                        createMetaMethodFromClass(map, aClass);
+                    } catch (ClassNotFoundException e){
+                        break;
+                    }
                 }
             }
 
@@ -154,6 +157,7 @@ public class MetaClassRegistryImpl implements MetaClassRegistry{
                 createMetaMethodFromClass(map, additionals[i]);
             }
         } else {
+            CachedMethod[] methods = ReflectionCache.getCachedClass(theClass).getMethods();
             for (int i = 0; i < methods.length; i++) {
                 CachedMethod method = methods[i];
                 final int mod = method.getModifiers();
@@ -180,22 +184,45 @@ public class MetaClassRegistryImpl implements MetaClassRegistry{
         }
     }
 
+    private boolean registerGeneratedMethodProxies(Map map) {
+        final List records;
+        try {
+            records = GeneratedMetaMethod.DgmMethodRecord.loadDgmInfo();
+        } catch (IOException e) {
+            return false;
+        }
+        if (records == null)
+          return false;
+
+        for (Iterator it = records.iterator(); it.hasNext();) {
+            GeneratedMetaMethod.DgmMethodRecord record = (GeneratedMetaMethod.DgmMethodRecord) it.next();
+            Class[] params = new Class[record.parameters.length - 1];
+            System.arraycopy(record.parameters, 1, params, 0, params.length);
+            final CachedClass declClass = ReflectionCache.getCachedClass(record.parameters[0]);
+            addNewMopMethod(map, declClass, new GeneratedMetaMethod.Proxy(record.className, record.methodName, declClass, record.returnType, params));
+        }
+        return true;
+    }
+
     private void createMetaMethodFromClass(Map map, Class aClass) {
         try {
             MetaMethod method = (MetaMethod) aClass.newInstance();
-            final CachedClass declClass = method.getDeclaringClass();
-            ArrayList arr = (ArrayList) map.get(declClass);
-            if (arr == null) {
-                arr = new ArrayList(4);
-                map.put(declClass,arr);
-            }
-            arr.add(method);
-            instanceMethods.add(method);
+            addNewMopMethod(map, method.getDeclaringClass(), method);
         } catch (InstantiationException e) {
         } catch (IllegalAccessException e) {
         }
     }
 
+    private void addNewMopMethod(Map map, CachedClass declClass, MetaMethod method) {
+        ArrayList arr = (ArrayList) map.get(declClass);
+        if (arr == null) {
+            arr = new ArrayList(4);
+            map.put(declClass,arr);
+        }
+        arr.add(method);
+        instanceMethods.add(method);
+    }
+
     public final MetaClass getMetaClass(Class theClass) {
         return ClassInfo.getClassInfo(theClass).getMetaClass();
     }
@@ -43,9 +43,49 @@ public class MetaMethodIndex {
         }
     }
 
+    /**
+     * Number of argument type combinations remembered per method entry,
+     * so call sites alternating between overloads do not re-run method selection.
+     */
+    public static final int MAX_CACHE_ENTRIES = 4;
+
+    /**
+     * Immutable node of a short most-recently-added-first list mapping argument types
+     * to the selected method. Readers walk the list without locking, writers replace the head.
+     */
     public static class CacheEntry {
-        public Class [] params;
-        public MetaMethod method;
+        public final Class [] params;
+        public final MetaMethod method;
+        public final CacheEntry next;
+
+        public CacheEntry(Class[] params, MetaMethod method, CacheEntry next) {
+            this.params = params;
+            this.method = method;
+            this.next = next;
+        }
+
+        /**
+         * Creates a new list with the given mapping in front of at most
+         * MAX_CACHE_ENTRIES-1 entries of the old list.
+         */
+        public static CacheEntry prepend(CacheEntry head, Class[] params, MetaMethod method) {
+            return new CacheEntry(params, method, copy(head, MAX_CACHE_ENTRIES - 1));
+        }
+
+        private static CacheEntry copy(CacheEntry head, int count) {
+            if (head == null || count == 0)
+              return null;
+            if (count >= length(head))
+              return head;
+            return new CacheEntry(head.params, head.method, copy(head.next, count - 1));
+        }
+
+        private static int length(CacheEntry head) {
+            int len = 0;
+            for (; head != null; head = head.next)
+              len++;
+            return len;
+        }
     }
 
     public static class Entry {
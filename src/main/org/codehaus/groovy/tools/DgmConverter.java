@@ -3,6 +3,7 @@ package org.codehaus.groovy.tools;
 import org.codehaus.groovy.classgen.BytecodeHelper;
 import org.codehaus.groovy.reflection.CachedClass;
 import org.codehaus.groovy.reflection.CachedMethod;
+import org.codehaus.groovy.reflection.GeneratedMetaMethod;
 import org.codehaus.groovy.reflection.ReflectionCache;
 import org.codehaus.groovy.runtime.DefaultGroovyMethods;
 import org.objectweb.asm.ClassWriter;
@@ -10,8 +11,11 @@ import org.objectweb.asm.Label;
 import org.objectweb.asm.MethodVisitor;
 import org.objectweb.asm.Opcodes;
 
+import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
 
 public class DgmConverter implements Opcodes{
     private static BytecodeHelper helper;
@@ -19,6 +23,7 @@ public class DgmConverter implements Opcodes{
     public static void main(String[] args) throws IOException, ClassNotFoundException {
         final CachedClass dgm = ReflectionCache.getCachedClass(DefaultGroovyMethods.class);
         final CachedMethod[] cachedMethods = dgm.getMethods();
+        final List records = new ArrayList();
         for (int i = 0, cur = 0; i < cachedMethods.length; i++) {
             CachedMethod method = cachedMethods[i];
             if (!method.isStatic() || !method.isPublic())
@@ -176,8 +181,18 @@ public class DgmConverter implements Opcodes{
             fileOutputStream.flush();
             fileOutputStream.close();
 
+            GeneratedMetaMethod.DgmMethodRecord record = new GeneratedMetaMethod.DgmMethodRecord();
+            record.className = className.replace('/', '.');
+            record.methodName = method.getName();
+            record.returnType = returnType;
+            record.parameters = method.getNativeParameterTypes();
+            records.add(record);
+
             cur++;
         }
+
+        new File("target/classes/META-INF").mkdirs();
+        GeneratedMetaMethod.DgmMethodRecord.saveDgmInfo(records, "target/classes/" + GeneratedMetaMethod.DgmMethodRecord.RESOURCE);
     }
 
     protected static void loadParameters(CachedMethod method, int argumentIndex, MethodVisitor mv) {
@@ -225,6 +225,10 @@ public class FileSystemCompiler {
             configuration.setSourceEncoding(cli.getOptionValue("encoding"));
         }
 
+        if (cli.hasOption("parallelism")) {
+            configuration.setParallelism(Integer.parseInt(cli.getOptionValue("parallelism")));
+        }
+
         // joint compilation parameters
         if (cli.hasOption('j')) {
             Map compilerOptions = new HashMap();
@@ -252,6 +256,7 @@ public class FileSystemCompiler {
         options.addOption(OptionBuilder.withLongOpt("temp").hasArg().withArgName("temp").withDescription("").create());
         options.addOption(OptionBuilder.withLongOpt("encoding").hasArg().withArgName("encoding").withDescription("Specify the encoding of the user class files.").create());
         options.addOption(OptionBuilder.hasArg().withDescription("Specify where to place generated class files.").create('d'));
+        options.addOption(OptionBuilder.withLongOpt("parallelism").hasArg().withArgName("threads").withDescription("Specify the number of threads used to compile the source files.").create());
 //            options.addOption(OptionBuilder.withLongOpt("strict").withDescription("Turn on strict type safety.").create('s'));
         options.addOption(OptionBuilder.withLongOpt("help").withDescription("Print a synopsis of standard options.").create('h'));
         options.addOption(OptionBuilder.withLongOpt("version").withDescription("Print the version.").create('v'));
@@ -0,0 +1,162 @@
+/*
+ * Copyright 2003-2009 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.codehaus.groovy.tools.gse;
+
+import java.util.Set;
+
+import org.codehaus.groovy.ast.AnnotatedNode;
+import org.codehaus.groovy.ast.AnnotationNode;
+import org.codehaus.groovy.ast.ClassCodeVisitorSupport;
+import org.codehaus.groovy.ast.ClassNode;
+import org.codehaus.groovy.ast.FieldNode;
+import org.codehaus.groovy.ast.GenericsType;
+import org.codehaus.groovy.ast.MethodNode;
+import org.codehaus.groovy.ast.Parameter;
+import org.codehaus.groovy.ast.expr.ArrayExpression;
+import org.codehaus.groovy.ast.expr.CastExpression;
+import org.codehaus.groovy.ast.expr.ClassExpression;
+import org.codehaus.groovy.ast.expr.ClosureExpression;
+import org.codehaus.groovy.ast.expr.ConstructorCallExpression;
+import org.codehaus.groovy.ast.expr.StaticMethodCallExpression;
+import org.codehaus.groovy.ast.expr.VariableExpression;
+import org.codehaus.groovy.ast.stmt.CatchStatement;
+import org.codehaus.groovy.ast.stmt.ForStatement;
+import org.codehaus.groovy.control.SourceUnit;
+
+/**
+ * Collects the names of all classes a resolved class refers to, be it in its
+ * declaration or in the code of its methods. Used by the GroovyScriptEngine
+ * to find the scripts a compiled script depends on.
+ */
+public class DependencyTracker extends ClassCodeVisitorSupport {
+    private final SourceUnit source;
+    private final Set dependencies;
+
+    /**
+     * @param source       the source the visited classes are compiled from
+     * @param dependencies the set the referenced class names are added to
+     */
+    public DependencyTracker(SourceUnit source, Set dependencies) {
+        this.source = source;
+        this.dependencies = dependencies;
+    }
+
+    private void addDependency(ClassNode node) {
+        if (node == null) return;
+        if (node.isArray()) {
+            addDependency(node.getComponentType());
+            return;
+        }
+        dependencies.add(node.getName());
+        addDependencies(node.getGenericsTypes());
+    }
+
+    private void addDependencies(ClassNode[] nodes) {
+        if (nodes == null) return;
+        for (int i = 0; i < nodes.length; i++) {
+            addDependency(nodes[i]);
+        }
+    }
+
+    private void addDependencies(GenericsType[] types) {
+        if (types == null) return;
+        for (int i = 0; i < types.length; i++) {
+            if (types[i].isPlaceholder()) continue;
+            addDependency(types[i].getType());
+        }
+    }
+
+    private void addDependencies(Parameter[] parameters) {
+        if (parameters == null) return;
+        for (int i = 0; i < parameters.length; i++) {
+            addDependency(parameters[i].getType());
+        }
+    }
+
+    public void visitClass(ClassNode node) {
+        addDependency(node.getUnresolvedSuperClass(false));
+        addDependencies(node.getInterfaces());
+        super.visitClass(node);
+    }
+
+    public void visitAnnotations(AnnotatedNode node) {
+        for (int i = 0; i < node.getAnnotations().size(); i++) {
+            addDependency(((AnnotationNode) node.getAnnotations().get(i)).getClassNode());
+        }
+        super.visitAnnotations(node);
+    }
+
+    protected void visitConstructorOrMethod(MethodNode node, boolean isConstructor) {
+        addDependency(node.getReturnType());
+        addDependencies(node.getParameters());
+        addDependencies(node.getExceptions());
+        super.visitConstructorOrMethod(node, isConstructor);
+    }
+
+    public void visitField(FieldNode node) {
+        addDependency(node.getType());
+        super.visitField(node);
+    }
+
+    public void visitArrayExpression(ArrayExpression expression) {
+        addDependency(expression.getElementType());
+        super.visitArrayExpression(expression);
+    }
+
+    public void visitCastExpression(CastExpression expression) {
+        addDependency(expression.getType());
+        super.visitCastExpression(expression);
+    }
+
+    public void visitClassExpression(ClassExpression expression) {
+        addDependency(expression.getType());
+        super.visitClassExpression(expression);
+    }
+
+    public void visitClosureExpression(ClosureExpression expression) {
+        addDependencies(expression.getParameters());
+        super.visitClosureExpression(expression);
+    }
+
+    public void visitConstructorCallExpression(ConstructorCallExpression call) {
+        addDependency(call.getType());
+        super.visitConstructorCallExpression(call);
+    }
+
+    public void visitStaticMethodCallExpression(StaticMethodCallExpression call) {
+        addDependency(call.getOwnerType());
+        super.visitStaticMethodCallExpression(call);
+    }
+
+    public void visitVariableExpression(VariableExpression expression) {
+        addDependency(expression.getOriginType());
+        super.visitVariableExpression(expression);
+    }
+
+    public void visitCatchStatement(CatchStatement statement) {
+        addDependency(statement.getExceptionType());
+        super.visitCatchStatement(statement);
+    }
+
+    public void visitForLoop(ForStatement forLoop) {
+        addDependency(forLoop.getVariableType());
+        super.visitForLoop(forLoop);
+    }
+
+    protected SourceUnit getSourceUnit() {
+        return source;
+    }
+}
@@ -18,4 +18,41 @@ class BindingTest extends GroovyTestCase {
     	assert b.getVariable("a.b.c") == 'abc'
     	assert b["a.b.c"] == 'abc'
     }
+
+    void testLookupVariable() {
+        def b = new Binding()
+        assert b.lookupVariable("foo") == MissingPropertyException.MPE
+        b.foo = null
+        assert b.lookupVariable("foo") == null
+        b.foo = 1
+        assert b.lookupVariable("foo") == 1
+        shouldFail(MissingPropertyException) {
+            b.getVariable("bar")
+        }
+    }
+
+    void testLookupVariableUsesOverriddenGetVariable() {
+        def b = new DefaultingBinding()
+        assert b.lookupVariable("foo") == "default foo"
+        assert b.lookupVariable("missing") == MissingPropertyException.MPE
+        assert b.foo == "default foo"
+    }
+
+    void testBindingProperties() {
+        def b = new Binding()
+        assert b.variables == [:]
+        b.variables = [foo: 1]
+        assert b.foo == 1
+        assert b.variables.foo == 1
+        shouldFail(MissingPropertyException) {
+            b.bar
+        }
+    }
+}
+
+class DefaultingBinding extends Binding {
+    Object getVariable(String name) {
+        if (name == "missing") throw new MissingPropertyException(name, getClass())
+        "default $name".toString()
+    }
 }
@@ -130,9 +130,55 @@ class CategoryTest extends GroovyTestCase {
         }
       """
     }
+
+    void testCategoryIsOnlyActiveInUsingThread() {
+        def entered = new java.util.concurrent.CountDownLatch(1)
+        def done = new java.util.concurrent.CountDownLatch(1)
+        def inside = null
+        def thread = Thread.start {
+            use(UpperCaseCategory) {
+                entered.countDown()
+                done.await()
+                inside = "abc".toUpperCase()
+            }
+        }
+        entered.await()
+        try {
+            for (i in 0..<100) {
+                assert "abc".toUpperCase() == "ABC"
+            }
+        } finally {
+            done.countDown()
+            thread.join()
+        }
+        assert inside == "category"
+        assert "abc".toUpperCase() == "ABC"
+    }
+
+    void testRepeatedAndNestedUse() {
+        for (i in 0..<3) {
+            use(StringCategory) {
+                assert "ABC".lower() == "abc"
+                use(UpperCaseCategory) {
+                    assert "abc".toUpperCase() == "category"
+                    assert "ABC".lower() == "abc"
+                }
+                assert "abc".toUpperCase() == "ABC"
+            }
+            shouldFail(MissingMethodException) {
+                "ABC".lower()
+            }
+        }
+    }
     
 }
 
+class UpperCaseCategory {
+    static String toUpperCase(String string) {
+        return "category"
+    }
+}
+
 class StringCategory {
     static String lower(String string) {
         return string.toLowerCase();
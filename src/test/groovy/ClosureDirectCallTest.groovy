@@ -0,0 +1,75 @@
+/*
+ * Copyright 2003-2009 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package groovy
+
+class ClosureDirectCallTest extends GroovyTestCase {
+
+    void testDirectCallMethodsForUntypedParameters() {
+        assert directCallArities { it } == [0, 1]
+        assert directCallArities { -> 1 } == [0]
+        assert directCallArities { a -> a } == [0, 1]
+        assert directCallArities { a, b -> a } == [2]
+        assert directCallArities { a, b, c -> a } == []
+        assert directCallArities { String s -> s } == []
+        assert directCallArities { Object[] args -> args } == []
+    }
+
+    void testCallsFromJava() {
+        assert [1, 2, 3].collect { it * 2 } == [2, 4, 6]
+        assert [1, 2, 3].inject(0) { sum, value -> sum + value } == 6
+        assert [a: 1, b: 2].collect { key, value -> key + value } == ['a1', 'b2']
+
+        Closure noArgs = { -> 'none' }
+        assert noArgs.call() == 'none'
+        Closure implicit = { it }
+        assert implicit.call() == null
+        assert implicit.call('x') == 'x'
+        Closure pair = { a, b -> [b, a] }
+        assert pair.call([1, 2] as Object[]) == [2, 1]
+        assert pair.call([1, 2]) == [2, 1]
+    }
+
+    void testCustomMetaClassIsNotBypassed() {
+        def closure = { it * 2 }
+        def metaClass = new RecordingMetaClass(closure.metaClass)
+        closure.metaClass = metaClass
+        assert [1, 2].collect(closure) == [2, 4]
+        assert metaClass.calls == ['doCall', 'doCall']
+    }
+
+    void testExceptionsAreUnwrapped() {
+        shouldFail(IOException) {
+            [1].each { throw new IOException('direct') }
+        }
+    }
+
+    private directCallArities(Closure closure) {
+        closure.getClass().declaredMethods.findAll { it.name == 'directCall' }*.parameterTypes*.length.sort()
+    }
+}
+
+class RecordingMetaClass extends DelegatingMetaClass {
+    List calls = []
+
+    RecordingMetaClass(MetaClass delegate) {
+        super(delegate)
+    }
+
+    Object invokeMethod(Object object, String name, Object[] args) {
+        calls << name
+        super.invokeMethod(object, name, args)
+    }
+}
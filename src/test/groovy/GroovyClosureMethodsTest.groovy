@@ -169,4 +169,28 @@ E F G H
         assert all_lines == [["A", "B", "C", "D"], ["E", "F", "G", "H"], ["1", "2", "3", "4"]]
     }
 
+    void testSplitEachLineWithPattern() {
+        String s = "a1b22c\nd333e\n"
+        def all_lines = []
+        new StringReader(s).splitEachLine(~/\d+/) { list ->
+            all_lines << list
+        }
+        assert all_lines == [["a", "b", "c"], ["d", "e"]]
+
+        all_lines = []
+        s.splitEachLine(~/[|]/) { all_lines << it }
+        assert all_lines == [[s.readLines()[0]], [s.readLines()[1]]]
+    }
+
+    void testSplitEachLineWithLiteralSeparator() {
+        // same results as String.split
+        def lines = ["a|b||c||", "|a", "", "||", "abc", "a||b"]
+        lines.each { line ->
+            def expected = line.split(/\|/) as List
+            line.splitEachLine(/\|/) { assert it == expected }
+            line.splitEachLine(~/\|/) { assert it == expected }
+            line.replace('|', ', ').splitEachLine(', ') { assert it == expected }
+        }
+    }
+
 }
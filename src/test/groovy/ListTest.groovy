@@ -199,6 +199,21 @@ class ListTest extends GroovyTestCase {
         assert l1.intersect(l2) == [1, 2, "w"] 
     }
       
+    void testNumberAwareOperationsOnSingleElementType() {
+        def numbers = [1, 2L, 3.0G, 4.0d, 5.0f, (short) 6, 7G]
+        assert numbers.intersect([1.0, 2, 3L, (byte) 4, 5G, 8]) == [1.0, 2, 3L, (byte) 4, 5G]
+        assert numbers - [1.0G, 3, 7L] == [2L, 4.0d, 5.0f, (short) 6]
+        assert numbers.disjoint([0, 8.5, 9L])
+        assert !numbers.disjoint([0, 6.0])
+        assert ['a', 'b' as char, 99].intersect([97, 'b' as char, 'c' as char]) == [97, 'b' as char, 'c' as char]
+
+        def name = 'b'
+        def strings = ['a', "$name", 'c', null]
+        assert strings.intersect(['b', null]) == ['b', null]
+        assert strings - ['a', "c"] == ["$name", null]
+        assert !strings.disjoint(["${name}"])
+    }
+
     // GROOVY-1006
     void testListEqual() {
         assert [1, 2.0, 3L, (short)4] == [1, 2, 3, 4]
@@ -69,6 +69,24 @@ class UniqueOnCollectionTest extends GroovyTestCase {
     	assert (b == a && a == [Math.PI, "foo", 1.0, 2L])
     }
 
+    void testUniqueOnNumbersOfDifferentTypes() {
+    	def a = [1, 1L, 1.0G, 1.0d, 1.0f, (byte) 1, 1G, 2, -0.0d, 0, Double.NaN, Double.NaN]
+    	assert a.unique() == [1, 2, -0.0d, 0, Double.NaN]
+    	assert [2.5f, 2.5d, 'a' as char, 97, 97.0G].unique() == [2.5f, 'a' as char]
+    }
+
+    void testUniqueOnStrings() {
+    	def x = 'x'
+    	assert ['x', "$x", 'y', null, "${x}y", 'xy', null].unique() == ['x', 'y', null, 'xy']
+    	assert [true, false, true, Boolean.FALSE].unique() == [true, false]
+    }
+
+    void testUniqueOnLargeList() {
+    	def list = (0..<100000).collect { it % 1000 }
+    	list.addAll((0..<1000).collect { it as long })
+    	assert list.unique() == (0..<1000).toList()
+    }
+
     // GROOVY-1956
     void testUniqueOnListWithNulls() {
     	def x = [1, 2, 3, 1, 2, 3, null, 'a', null]
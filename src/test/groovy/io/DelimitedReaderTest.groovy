@@ -0,0 +1,74 @@
+/*
+ * Copyright 2003-2009 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package groovy.io
+
+class DelimitedReaderTest extends GroovyTestCase {
+
+    private List readAll(DelimitedReader reader) {
+        def lines = []
+        reader.eachLine { fields -> lines << fields.collect { it.toString() } }
+        lines
+    }
+
+    void testFieldsAndLineEndings() {
+        def reader = new DelimitedReader(new StringReader("a,b,c\nd,,f\r\ng,h,\r\n\ni"), ',' as char)
+        assert readAll(reader) == [['a', 'b', 'c'], ['d', '', 'f'], ['g', 'h', ''], [''], ['i']]
+    }
+
+    void testCarriageReturnAtBufferBoundary() {
+        def reader = new DelimitedReader(new StringReader("ab\r\ncd\r\n"), ',' as char, 3)
+        assert readAll(reader) == [['ab'], ['cd']]
+    }
+
+    void testLinesLongerThanBuffer() {
+        def line = (1..200).join('|')
+        def reader = new DelimitedReader(new StringReader("$line\n$line"), '|' as char, 16)
+        assert readAll(reader) == [line.split(/\|/) as List] * 2
+    }
+
+    void testFieldViews() {
+        def reader = new DelimitedReader(new StringReader("key;value\nother;x"), ';' as char)
+        assert reader.next()
+        assert reader.fieldCount == 2
+        CharSequence key = reader.getField(0)
+        assert key.length() == 3
+        assert key.charAt(1) == 'e' as char
+        assert key.equals('key')
+        assert key.hashCode() == 'key'.hashCode()
+        assert reader.getString(1) == 'value'
+        shouldFail(IndexOutOfBoundsException) {
+            reader.getField(2)
+        }
+        assert reader.next()
+        // views are reused for the next line
+        assert key.toString() == 'other'
+        assert !reader.next()
+        reader.close()
+    }
+
+    void testMemoryMappedFile() {
+        def file = File.createTempFile('delimited', '.txt')
+        try {
+            file.write("\u00e4\u00f6\u00fc|b\nc|\u20ac\n", 'UTF-8')
+            assert readAll(new DelimitedReader(file, 'UTF-8', '|' as char)) == [['\u00e4\u00f6\u00fc', 'b'], ['c', '\u20ac']]
+
+            file.write('', 'UTF-8')
+            assert readAll(new DelimitedReader(file, 'UTF-8', '|' as char)) == []
+        } finally {
+            file.delete()
+        }
+    }
+}
@@ -176,6 +176,87 @@ public class GroovyClassLoaderTest extends GroovyTestCase {
             System.setProperty("file.encoding", encoding)
         }
     }
+
+    public void testConcurrentCompilationOfSameSourceIsShared() {
+        def file = File.createTempFile("GroovyClassLoaderConcurrent", ".groovy")
+        file.deleteOnExit()
+        file.write "return 42"
+
+        def gcl = new GroovyClassLoader()
+        def classes = Collections.synchronizedList([])
+        def threads = (1..8).collect {
+            Thread.start { classes << gcl.parseClass(new GroovyCodeSource(file)) }
+        }
+        threads*.join()
+
+        assert classes.size() == 8
+        assert classes.unique().size() == 1
+        assert classes[0].newInstance().run() == 42
+    }
+
+    public void testConcurrentCompilationOfDifferentSources() {
+        def gcl = new GroovyClassLoader()
+        def results = Collections.synchronizedMap([:])
+        def threads = (1..8).collect { n ->
+            Thread.start {
+                results[n] = gcl.parseClass("return $n", "ConcurrentScript${n}.groovy").newInstance().run()
+            }
+        }
+        threads*.join()
+
+        assert results == (1..8).inject([:]) { map, n -> map[n] = n; map }
+    }
+
+    public void testFailedCompilationIsNotCached() {
+        def file = File.createTempFile("GroovyClassLoaderFailing", ".groovy")
+        file.deleteOnExit()
+        file.write "return ("
+
+        def gcl = new GroovyClassLoader()
+        shouldFail(CompilationFailedException) {
+            gcl.parseClass(new GroovyCodeSource(file))
+        }
+        file.write "return 1"
+        assert gcl.parseClass(new GroovyCodeSource(file)).newInstance().run() == 1
+    }
+
+    public void testResolutionCacheIsSharedByCompilations() {
+        def gcl = new GroovyClassLoader(getClass().classLoader)
+        def cache = gcl.resolutionCache
+        assert cache.loadClass("java.util.List") == List
+        assert cache.loadClass("groovy.lang.NoSuchResolutionCacheClass") == null
+        assert gcl.parseClass("new ArrayList([1, 2])").newInstance().run() == [1, 2]
+        assert gcl.parseClass("new LinkedList([3])").newInstance().run() == [3]
+    }
+
+    public void testResolutionCacheForgetsMissingClassOnceDefined() {
+        def gcl = new GroovyClassLoader(getClass().classLoader)
+        shouldFail(CompilationFailedException) {
+            gcl.parseClass("new GroovyClassLoaderTestResolved()")
+        }
+        assert gcl.resolutionCache.loadClass("GroovyClassLoaderTestResolved") == null
+
+        gcl.parseClass("class GroovyClassLoaderTestResolved { def x = 42 }")
+        assert gcl.resolutionCache.loadClass("GroovyClassLoaderTestResolved") != null
+        assert gcl.parseClass("new GroovyClassLoaderTestResolved().x").newInstance().run() == 42
+    }
+
+    public void testResolutionCacheFindsScriptAddedLater() {
+        def dir = File.createTempFile("gcl", "")
+        dir.delete()
+        dir.mkdir()
+        try {
+            def gcl = new GroovyClassLoader(getClass().classLoader, new CompilerConfiguration(minimumRecompilationInterval: 0))
+            gcl.addURL(dir.toURI().toURL())
+            assert gcl.resolutionCache.loadGroovySource("GroovyClassLoaderTestAdded") == null
+
+            new File(dir, "GroovyClassLoaderTestAdded.groovy").text = "class GroovyClassLoaderTestAdded { def x = 42 }"
+            assert gcl.resolutionCache.loadGroovySource("GroovyClassLoaderTestAdded") != null
+            assert gcl.parseClass("new GroovyClassLoaderTestAdded().x").newInstance().run() == 42
+        } finally {
+            dir.deleteDir()
+        }
+    }
 }
 
 class GroovyClassLoaderTestFoo1 {}
@@ -0,0 +1,168 @@
+package groovy.servlet
+
+import groovy.text.SimpleTemplateEngine
+import groovy.text.Template
+import groovy.text.TemplateEngine
+import java.util.concurrent.CountDownLatch
+
+class TemplateCacheTest extends GroovyTestCase {
+
+    List files = []
+
+    protected void tearDown() {
+        files*.delete()
+        super.tearDown()
+    }
+
+    private File template(String text) {
+        def file = File.createTempFile("template", ".html")
+        file.text = text
+        files << file
+        return file
+    }
+
+    void testHitsAndMisses() {
+        def cache = new TemplateCache(0, 0)
+        def engine = new SimpleTemplateEngine()
+        def file = template('hello ${name}')
+
+        def first = cache.getTemplate(file, engine)
+        assert cache.getTemplate(file, engine).is(first)
+        assert cache.missCount == 1
+        assert cache.hitCount == 1
+        assert cache.compileCount == 1
+        assert cache.size == 1
+        assert first.make(name: 'you').toString() == 'hello you'
+    }
+
+    void testChangedFileIsRecompiled() {
+        def cache = new TemplateCache(0, 0)
+        def engine = new SimpleTemplateEngine()
+        def file = template('one')
+        def first = cache.getTemplate(file, engine)
+
+        file.text = 'three'
+        file.lastModified = file.lastModified() + 2000
+        def second = cache.getTemplate(file, engine)
+        assert !second.is(first)
+        assert second.make().toString() == 'three'
+        assert cache.compileCount == 2
+    }
+
+    void testRevalidationInterval() {
+        def cache = new TemplateCache(0, 60000)
+        def engine = new SimpleTemplateEngine()
+        def file = template('one')
+        def first = cache.getTemplate(file, engine)
+
+        file.text = 'three'
+        file.lastModified = file.lastModified() + 2000
+        assert cache.getTemplate(file, engine).is(first)
+        assert cache.compileCount == 1
+    }
+
+    void testRemovedTemplateIsRecompiled() {
+        def cache = new TemplateCache(0, -1)
+        def engine = new SimpleTemplateEngine()
+        def file = template('one')
+        def first = cache.getTemplate(file, engine)
+
+        cache.remove(file)
+        def second = cache.getTemplate(file, engine)
+        assert !second.is(first)
+        assert cache.compileCount == 2
+    }
+
+    void testStaleTemplateRemovedWhileRecompiling() {
+        def cache = new TemplateCache(0, 0)
+        def engine = new SimpleTemplateEngine()
+        def file = new RemovingFile(template('one').path)
+        def first = cache.getTemplate(file, engine)
+
+        file.text = 'two'
+        file.lastModified = file.lastModified() + 2000
+        file.cache = cache
+        def second = cache.getTemplate(file, engine)
+        assert file.cache == null
+        assert !second.is(first)
+        assert second.make().toString() == 'two'
+        assert cache.size == 1
+        assert cache.getTemplate(file, engine).is(second)
+    }
+
+    void testLeastRecentlyUsedTemplatesAreEvicted() {
+        def cache = new TemplateCache(2, 0)
+        def engine = new SimpleTemplateEngine()
+        def a = template('a'), b = template('b'), c = template('c')
+        cache.getTemplate(a, engine)
+        cache.getTemplate(b, engine)
+        cache.getTemplate(a, engine)
+        cache.getTemplate(c, engine)
+        assert cache.size == 2
+        assert cache.evictionCount == 1
+
+        cache.getTemplate(a, engine)
+        assert cache.compileCount == 3
+        cache.getTemplate(b, engine)
+        assert cache.compileCount == 4
+    }
+
+    void testConcurrentRequestsShareOneCompilation() {
+        def cache = new TemplateCache(0, 0)
+        def latch = new CountDownLatch(1)
+        def engine = new CountingTemplateEngine(latch: latch)
+        def file = template('x')
+        def results = Collections.synchronizedList([])
+        def threads = (1..5).collect { Thread.start { results << cache.getTemplate(file, engine) } }
+        Thread.sleep(200)
+        latch.countDown()
+        threads*.join()
+
+        assert engine.compilations == 1
+        assert results.size() == 5
+        assert results.every { it.is(results[0]) }
+    }
+
+    void testFailedCompilationIsNotCached() {
+        def cache = new TemplateCache(0, 0)
+        def engine = new SimpleTemplateEngine()
+        def file = template('<% if ( %>')
+        shouldFail { cache.getTemplate(file, engine) }
+        assert cache.size == 0
+        assert cache.compileFailureCount == 1
+        shouldFail { cache.getTemplate(file, engine) }
+        assert cache.compileCount == 2
+    }
+}
+
+class CountingTemplateEngine extends TemplateEngine {
+    CountDownLatch latch
+    int compilations
+
+    Template createTemplate(Reader reader) {
+        compilations++
+        latch.await()
+        return new SimpleTemplateEngine().createTemplate(reader)
+    }
+}
+
+/**
+ * Removes itself from the cache when its length is read, which happens after the
+ * cache found the stale entry and before it installs the new one.
+ */
+class RemovingFile extends File {
+    TemplateCache cache
+
+    RemovingFile(String path) {
+        super(path)
+    }
+
+    long length() {
+        if (cache != null) {
+            def c = cache
+            cache = null
+            c.remove(this)
+        }
+        return super.length()
+    }
+}
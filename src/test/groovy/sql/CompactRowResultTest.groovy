@@ -0,0 +1,66 @@
+package groovy.sql
+
+/**
+ * Runs the GroovyRowResult tests against rows backed by a shared ColumnIndex.
+ */
+class CompactRowResultTest extends GroovyRowResultTest {
+
+    static final ColumnIndex COLUMNS = new ColumnIndex(
+            ["miXed", "nullMixed", "lower", "nulllower", "UPPER", "NULLUPPER"] as String[])
+
+    protected def createRow() {
+        new GroovyRowResult(new CompactRowMap(COLUMNS, ["quick", null, "brown", null, "fox", null] as Object[]))
+    }
+
+    void testSameContentAsMapBackedRow() {
+        def row = createRow()
+        def map = [miXed: "quick", nullMixed: null, lower: "brown", nulllower: null, UPPER: "fox", NULLUPPER: null]
+        assert row == map
+        assert map == row
+        assert row.hashCode() == map.hashCode()
+        assert row.toString() == map.toString()
+        assert row.keySet() as List == map.keySet() as List
+    }
+
+    void testRemoveAndPutKnownColumn() {
+        def row = createRow()
+        assert row.remove("lower") == "brown"
+        assert !row.containsKey("lower")
+        assert row.size() == 5
+        assert row[2] == null
+        assert row[4] == null
+        assert row[3] == "fox"
+
+        row.put("lower", "red")
+        assert row.lower == "red"
+        assert row.size() == 6
+    }
+
+    void testEntryIteratorRemoveAndSetValue() {
+        def row = createRow()
+        def it = row.entrySet().iterator()
+        def first = it.next()
+        first.value = "slow"
+        assert row.miXed == "slow"
+        it.next()
+        it.remove()
+        assert !row.containsKey("nullMixed")
+        assert row.keySet() as List == ["miXed", "lower", "nulllower", "UPPER", "NULLUPPER"]
+    }
+
+    void testDuplicateColumnNamesKeepFirstPosition() {
+        def columns = new ColumnIndex(["a", "b", "a"] as String[])
+        assert columns.size() == 2
+        assert columns.indexOf("a") == 0
+        assert columns.indexOf("c") == -1
+    }
+
+    void testRowsShareColumnIndex() {
+        def sql = TestHelper.makeSql()
+        def rows = sql.rows("select * from FOOD")
+        assert rows.size() == 5
+        assert rows.collect { it.@result.@columns }.unique().size() == 1
+        assert rows[0].TYPE == "cheese"
+        assert rows[0].type == "cheese"
+    }
+}
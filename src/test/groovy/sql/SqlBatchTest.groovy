@@ -0,0 +1,58 @@
+package groovy.sql
+
+class SqlBatchTest extends TestHelper {
+
+    void testWithBatchFlushesEveryBatchSizeRows() {
+        def sql = createSql()
+        def pendingCounts = []
+
+        def counts = sql.withBatch(2, "insert into FEATURE (id, name) values (?, ?)") { ps ->
+            (10..14).each {
+                ps.addBatch([it, "feature" + it])
+                pendingCounts << ps.pendingCount
+            }
+        }
+
+        assert pendingCounts == [1, 0, 1, 0, 1]
+        assert counts.size() == 5
+        assert counts.every { it == 1 || it == java.sql.Statement.SUCCESS_NO_INFO }
+        assert sql.firstRow("select count(*) as num from FEATURE where id >= 10").num == 5
+        assert sql.firstRow("select name from FEATURE where id = 14").name == "feature14"
+    }
+
+    void testWithBatchWithoutBatchSize() {
+        def sql = createSql()
+
+        def counts = sql.withBatch("insert into FOOD (type, name) values (?, ?)") { ps ->
+            ps.addBatch(["fruit", "apple"] as Object[])
+            ps.addBatch(["fruit", "pear"] as Object[])
+        }
+
+        assert counts.size() == 2
+        assert sql.rows("select name from FOOD where type = 'fruit' order by name").name == ["apple", "pear"]
+    }
+
+    void testDataSetAddInBatch() {
+        def sql = createSql()
+        def food = sql.dataSet("FOOD")
+
+        def counts = food.withBatch(3) {
+            (1..7).each { food.add(type: "snack", name: "snack" + it) }
+            food.add(name: "crisps", type: "snack")
+        }
+
+        assert counts.size() == 8
+        assert sql.firstRow("select count(*) as num from FOOD where type = 'snack'").num == 8
+
+        // outside of withBatch rows are inserted immediately again
+        food.add(type: "snack", name: "nuts")
+        assert sql.firstRow("select count(*) as num from FOOD where type = 'snack'").num == 9
+    }
+
+    void testDataSetBatchesCanNotBeNested() {
+        def food = createSql().dataSet("FOOD")
+        shouldFail(IllegalStateException) {
+            food.withBatch { food.withBatch {} }
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package groovy.sql
+
+import java.sql.ResultSet
+
+class SqlPagingTest extends TestHelper {
+
+    void testRowsWithOffsetAndMaxRows() {
+        def sql = createSql()
+
+        def rows = sql.rows("select name from FOOD order by name", 2, 2)
+        assert rows.name == ["brie", "cheddar"]
+
+        rows = sql.rows("select name from FOOD where type = ? order by name", ["cheese"], 3, 10)
+        assert rows.name == ["edam"]
+
+        assert sql.rows("select name from FOOD", 10, 2) == []
+        assert sql.rows("select name from FOOD", 1, 0).size() == 5
+    }
+
+    void testRowsWithGString() {
+        def sql = createSql()
+        def type = "drink"
+        assert sql.rows("select name from FOOD where type = $type order by name", 1, 1).name == ["beer"]
+    }
+
+    void testEachRowWithOffsetAndMaxRows() {
+        def sql = createSql()
+        def names = []
+        sql.eachRow("select firstname from PERSON order by id", 2, 5) { names << it.firstname }
+        assert names == ["Bob", "Sam"]
+
+        names = []
+        sql.eachRow("select firstname from PERSON where id > ? order by id", [0], 1, 1) { names << it.firstname }
+        assert names == ["James"]
+    }
+
+    void testPagingWithScrollableResultSet() {
+        def sql = createSql()
+        sql.resultSetType = ResultSet.TYPE_SCROLL_INSENSITIVE
+        assert sql.rows("select name from FOOD order by name", 4, 2).name == ["coffee", "edam"]
+        assert sql.rows("select name from FOOD where type = ? order by name", ["cheese"], 2, 5).name == ["cheddar", "edam"]
+        assert sql.rows("select name from FOOD order by name", 10, 2) == []
+    }
+
+    void testPagingDoesNotLimitCachedStatements() {
+        def sql = createSql()
+        sql.cacheStatements {
+            def query = "select name from FOOD order by name"
+            assert sql.rows(query, 1, 1).size() == 1
+            assert sql.rows(query, []).size() == 5
+        }
+    }
+
+    void testIterateRows() {
+        def sql = createSql()
+        sql.fetchSize = 2
+        def rows = sql.iterateRows("select name from FOOD where type = ? order by name", ["cheese"])
+        def names = []
+        for (row in rows) {
+            names << row.name
+        }
+        assert names == ["brie", "cheddar", "edam"]
+        assert rows.closed
+        assert !rows.hasNext()
+    }
+
+    void testIterateRowsClosedEarly() {
+        def sql = createSql()
+        def rows = sql.iterateRows("select * from PERSON order by id")
+        assert rows.next().firstname == "James"
+        rows.close()
+        assert !rows.hasNext()
+        shouldFail(NoSuchElementException) {
+            rows.next()
+        }
+    }
+}
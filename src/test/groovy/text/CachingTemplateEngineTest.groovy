@@ -0,0 +1,82 @@
+package groovy.text
+
+class CachingTemplateEngineTest extends GroovyTestCase {
+
+    CountingEngine counting = new CountingEngine()
+    CachingTemplateEngine engine = new CachingTemplateEngine(counting)
+
+    void testTextTemplatesAreCompiledOnce() {
+        def first = engine.createTemplate('Hello ${name}')
+        def second = engine.createTemplate('Hello ${name}')
+        assert first.is(second)
+        assert counting.compilations == 1
+        assert second.make(name: 'World').toString() == 'Hello World'
+        engine.createTemplate('Bye ${name}')
+        assert counting.compilations == 2
+        assert engine.cacheSize == 2
+    }
+
+    void testFileTemplatesAreRecompiledWhenChanged() {
+        def file = File.createTempFile("template", ".tpl")
+        try {
+            file.text = 'one ${x}'
+            def template = engine.createTemplate(file)
+            assert engine.createTemplate(file).is(template)
+            assert engine.createTemplate(file.toURI().toURL()).is(template)
+            assert counting.compilations == 1
+
+            file.text = 'two ${x} and more'
+            file.lastModified = file.lastModified() + 2000
+            def changed = engine.createTemplate(file)
+            assert counting.compilations == 2
+            assert changed.make(x: 1).toString() == 'two 1 and more'
+        } finally {
+            file.delete()
+        }
+    }
+
+    void testClearCache() {
+        engine.createTemplate('a')
+        engine.clearCache()
+        assert engine.cacheSize == 0
+        engine.createTemplate('a')
+        assert counting.compilations == 2
+    }
+
+    void testPooledScriptRendersWithFreshBinding() {
+        def template = new SimpleTemplateEngine().createTemplate('<% if (!binding.variables.containsKey("seen")) { seen = 0 } ; seen++ %>${name}:${seen}')
+        assert template.make(name: 'a').toString() == 'a:1'
+        assert template.make(name: 'b').toString() == 'b:1'
+        def sw = new StringWriter()
+        template.make(name: 'c').writeTo(new PrintWriter(sw))
+        assert sw.toString() == 'c:1'
+    }
+
+    void testNestedRenderingOfSameTemplate() {
+        def template = new SimpleTemplateEngine().createTemplate('[${level}<% if (level < 2) { out << self.make(level: level + 1, self: self) } %>]')
+        assert template.make(level: 0, self: template).toString() == '[0[1[2]]]'
+    }
+
+    void testConcurrentRendering() {
+        def template = new SimpleTemplateEngine().createTemplate('${n * 2}')
+        def results = Collections.synchronizedList([])
+        def threads = (1..8).collect { n ->
+            Thread.start {
+                100.times { results << (template.make(n: n).toString() == "${n * 2}".toString()) }
+            }
+        }
+        threads*.join()
+        assert results.size() == 800
+        assert results.every { it }
+    }
+}
+
+class CountingEngine extends TemplateEngine {
+    int compilations
+    private SimpleTemplateEngine engine = new SimpleTemplateEngine()
+
+    Template createTemplate(Reader reader) {
+        compilations++
+        engine.createTemplate(reader)
+    }
+}
@@ -0,0 +1,78 @@
+/*
+ * Copyright 2003-2009 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package groovy.util
+
+class FileResourceConnectorTest extends GroovyTestCase {
+
+    File dir
+    FileResourceConnector connector
+
+    void setUp() {
+        dir = File.createTempFile("connector", "")
+        dir.delete()
+        dir.mkdir()
+        connector = new FileResourceConnector([dir] as File[], 60000)
+    }
+
+    void tearDown() {
+        connector.close()
+        dir.deleteDir()
+    }
+
+    private File script(String name, String text) {
+        def file = new File(dir, name)
+        file.text = text
+        return file
+    }
+
+    void testChangedFilesAreReported() {
+        def file = script('Watched.groovy', "'first'")
+        def changed = []
+        connector.addResourceChangeListener({ name -> changed << name } as ResourceChangeListener)
+        connector.getResourceConnection('Watched.groovy')
+
+        connector.poll()
+        assert changed == []
+
+        file.text = "'second'"
+        file.lastModified = file.lastModified() + 2000
+        connector.poll()
+        assert changed == ['Watched.groovy']
+
+        connector.poll()
+        assert changed == ['Watched.groovy']
+    }
+
+    void testMissingResource() {
+        shouldFail(ResourceException) {
+            connector.getResourceConnection('Missing.groovy')
+        }
+    }
+
+    void testScriptEngineRecompilesReportedScripts() {
+        def file = script('WatchedScript.groovy', "'first'")
+        def gse = new GroovyScriptEngine(connector)
+        assert gse.run('WatchedScript.groovy', new Binding()) == 'first'
+        def scriptClass = gse.loadScriptByName('WatchedScript')
+
+        file.text = "'second'"
+        file.lastModified = file.lastModified() + 2000
+        connector.poll()
+
+        assert !gse.loadScriptByName('WatchedScript').is(scriptClass)
+        assert gse.run('WatchedScript.groovy', new Binding()) == 'second'
+    }
+}
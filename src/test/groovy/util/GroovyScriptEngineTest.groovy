@@ -141,6 +141,86 @@ class GroovyScriptEngineTest extends GroovyTestCase {
         assert aScript instanceof CustomBaseClass
     }
 
+    void testOnlyModifiedScriptsAndTheirDependentsAreRecompiled() {
+        File dir = new File(currentDir, 'dynamicReloadSrcToBeDeleted')
+        dir.mkdir()
+        try {
+            File base = new File(dir, 'ReloadBase.groovy')
+            base.write "class ReloadBase { static value() { 'first' } }"
+            new File(dir, 'ReloadUser.groovy').write "class ReloadUser { static value() { ReloadBase.value() } }"
+            new File(dir, 'ReloadOther.groovy').write "class ReloadOther { static value() { 'other' } }"
+
+            GroovyScriptEngine gse = new GroovyScriptEngine(dir.absolutePath)
+            gse.config = new CompilerConfiguration(minimumRecompilationInterval: 0)
+            def userClass = gse.loadScriptByName('ReloadUser')
+            def otherClass = gse.loadScriptByName('ReloadOther')
+            assert userClass.value() == 'first'
+            assert gse.loadScriptByName('ReloadUser').is(userClass)
+
+            base.write "class ReloadBase { static value() { 'second' } }"
+            base.setLastModified(System.currentTimeMillis() + 10000)
+
+            def reloaded = gse.loadScriptByName('ReloadUser')
+            assert !reloaded.is(userClass)
+            assert reloaded.value() == 'second'
+            assert gse.loadScriptByName('ReloadBase').value() == 'second'
+            assert gse.loadScriptByName('ReloadOther').is(otherClass)
+        } finally {
+            dir.deleteDir()
+        }
+    }
+
+    void testDependentScriptsAreRecompiledWithClassCacheDirectory() {
+        File dir = new File(currentDir, 'dynamicClassCacheSrcToBeDeleted')
+        File cacheDir = new File(currentDir, 'dynamicClassCacheToBeDeleted')
+        dir.mkdir()
+        try {
+            File base = new File(dir, 'CachedBase.groovy')
+            base.write "class CachedBase { static value() { 'first' } }"
+            new File(dir, 'CachedUser.groovy').write "class CachedUser { static value() { CachedBase.value() } }"
+            def config = new CompilerConfiguration(minimumRecompilationInterval: 0, classCacheDirectory: cacheDir)
+
+            GroovyScriptEngine first = new GroovyScriptEngine(dir.absolutePath)
+            first.config = config
+            assert first.loadScriptByName('CachedUser').value() == 'first'
+
+            GroovyScriptEngine gse = new GroovyScriptEngine(dir.absolutePath)
+            gse.config = config
+            def userClass = gse.loadScriptByName('CachedUser')
+            assert userClass.value() == 'first'
+
+            base.write "class CachedBase { static value() { 'second' } }"
+            base.setLastModified(System.currentTimeMillis() + 10000)
+
+            def reloaded = gse.loadScriptByName('CachedUser')
+            assert !reloaded.is(userClass)
+            assert reloaded.value() == 'second'
+        } finally {
+            dir.deleteDir()
+            if (cacheDir.exists()) cacheDir.deleteDir()
+        }
+    }
+
+    void testSourcesAreNotCheckedWithinRecompilationInterval() {
+        File dir = new File(currentDir, 'dynamicIntervalSrcToBeDeleted')
+        dir.mkdir()
+        try {
+            File script = new File(dir, 'IntervalScript.groovy')
+            script.write "'first'"
+
+            GroovyScriptEngine gse = new GroovyScriptEngine(dir.absolutePath)
+            gse.config = new CompilerConfiguration(minimumRecompilationInterval: 60000)
+            def scriptClass = gse.loadScriptByName('IntervalScript')
+
+            script.write "'second'"
+            script.setLastModified(System.currentTimeMillis() + 10000)
+
+            assert gse.loadScriptByName('IntervalScript').is(scriptClass)
+        } finally {
+            dir.deleteDir()
+        }
+    }
+
 	/*
 	 * The script passes the className of the class it's supposed to
 	 * instantiate to this method, expecting a newly instantiated object
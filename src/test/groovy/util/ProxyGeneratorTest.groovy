@@ -116,6 +116,55 @@ class ProxyGeneratorTest extends GroovyTestCase {
         assertEquals 'some string', proxy.myMethodA()
         proxy.myMethodC()
     }
+
+    void testProxyClassIsReusedForSameMethodNames() {
+        def first = generator.instantiateAggregateFromInterface([myMethodA: { 'first' }], TestInterface)
+        def second = generator.instantiateAggregateFromInterface([myMethodA: { 'second' }], TestInterface)
+        assert first.getClass() == second.getClass()
+        assert first.myMethodA() == 'first'
+        assert second.myMethodA() == 'second'
+    }
+
+    void testProxyClassDiffersForOtherMethodNames() {
+        def first = generator.instantiateAggregateFromInterface([myMethodA: { 'A' }], TestInterface)
+        def second = generator.instantiateAggregateFromInterface([myMethodC: { 'C' }], TestInterface)
+        assert first.getClass() != second.getClass()
+        assert second.myMethodC() == 'C'
+        shouldFail(UnsupportedOperationException) {
+            second.myMethodA()
+        }
+    }
+
+    void testProxyClassWithEmptyConstructorArgumentsIsReused() {
+        def first = generator.instantiateAggregateFromBaseClass([myMethodB: { 'new B' }], TestClass, [] as Object[])
+        def second = generator.instantiateAggregateFromBaseClass([myMethodB: { 'other B' }], TestClass)
+        assert first.getClass() == second.getClass()
+        assert second.myMethodB() == 'other B'
+    }
+
+    void testAggregateFromBootstrapClasses() {
+        def count = 0
+        def task = [run: { count++ }] as TimerTask
+        assert task instanceof TimerTask
+        task.run()
+        def runnable = generator.instantiateAggregateFromInterface([run: { count++ }], Runnable)
+        assert runnable instanceof Runnable
+        runnable.run()
+        assert count == 2
+    }
+
+    void testDelegateProxyClassIsReused() {
+        def first = generator.instantiateDelegate([TestInterface], new DelegateClass())
+        def second = generator.instantiateDelegate([TestInterface], new DelegateClass())
+        assert first.getClass() == second.getClass()
+        assert second.myMethodA() == 'delegate A'
+    }
+}
+
+class DelegateClass {
+    def myMethodA() { 'delegate A' }
+    def myMethodC() { 'delegate C' }
+    def myMethodD() { 'delegate D' }
 }
 
 class TestClass {
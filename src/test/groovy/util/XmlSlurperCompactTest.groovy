@@ -0,0 +1,85 @@
+package groovy.util
+
+import groovy.xml.TraversalTestSupport
+import groovy.xml.GpathSyntaxTestSupport
+import groovy.xml.MixedMarkupTestSupport
+import groovy.xml.StreamingMarkupBuilder
+
+class XmlSlurperCompactTest extends GroovyTestCase {
+
+    def getRoot = { xml -> createSlurper().parseText(xml) }
+
+    private XmlSlurper createSlurper() {
+        def slurper = new XmlSlurper()
+        slurper.compact = true
+        return slurper
+    }
+
+    void testElement() {
+        GpathSyntaxTestSupport.checkElement(getRoot)
+        GpathSyntaxTestSupport.checkFindElement(getRoot)
+        GpathSyntaxTestSupport.checkElementTypes(getRoot)
+        GpathSyntaxTestSupport.checkElementClosureInteraction(getRoot)
+    }
+
+    void testAttribute() {
+        GpathSyntaxTestSupport.checkAttribute(getRoot)
+        GpathSyntaxTestSupport.checkAttributes(getRoot)
+    }
+
+    void testNavigation() {
+        GpathSyntaxTestSupport.checkChildren(getRoot)
+        GpathSyntaxTestSupport.checkParent(getRoot)
+        GpathSyntaxTestSupport.checkNestedSizeExpressions(getRoot)
+    }
+
+    void testTraversal() {
+        TraversalTestSupport.checkDepthFirst(getRoot)
+        TraversalTestSupport.checkBreadthFirst(getRoot)
+    }
+
+    void testMixedMarkup() {
+        MixedMarkupTestSupport.checkMixedMarkup(getRoot)
+    }
+
+    void testPathSteps() {
+        def xml = getRoot('''
+            <feed>
+                <head>title</head>
+                <item id="1">a<b>x</b></item>
+                <other/>
+                <item id="2">b</item>
+                <nested><item id="3"/></nested>
+            </feed>''')
+        assert xml.item.size() == 2
+        assert xml.item.collect { it.@id.text() } == ['1', '2']
+        assert xml.item[0].text() == 'ax'
+        assert xml.item.b.text() == 'x'
+        assert xml.nested.item.@id.text() == '3'
+        assert xml.'*'.item.@id.text() == '3'
+        assert xml.missing.size() == 0
+        assert xml.text() == 'titleaxb'
+    }
+
+    void testChangesAreKept() {
+        def xml = getRoot('<doc><sec>Hello<p>World</p></sec></doc>')
+        xml.sec.p = 'Groovy'
+        xml.sec.@lang = 'en'
+        assert xml.text() == 'HelloGroovy'
+        assert xml.sec.@lang.text() == 'en'
+        assert xml.sec.p.text() == 'Groovy'
+
+        xml.sec.replaceNode { node -> t { delegate.mkp.yield node.getBody() } }
+        def output = new StreamingMarkupBuilder().bind { mkp.yield xml }
+        assert output.toString() == '<doc><t>Hello<p>Groovy</p></t></doc>'
+    }
+
+    void testWhitespace() {
+        def xml = '<doc> <a> x </a> </doc>'
+        assert getRoot(xml).text() == ' x '
+
+        def slurper = createSlurper()
+        slurper.keepWhitespace = true
+        assert slurper.parseText(xml).text() == '  x  '
+    }
+}
@@ -0,0 +1,46 @@
+package org.codehaus.groovy.benchmarks
+
+/**
+ * Times unique, intersect, disjoint and minus for several list sizes and
+ * element types. Element types which can be hashed number aware take the
+ * linear path, the mixed list of numbers and strings still uses the comparator
+ * and is therefore only run for the smaller sizes.
+ */
+class CollectionOperationsPerfTest extends GroovyTestCase {
+    static final List SIZES = [1000, 10000, 100000]
+    static final int MAX_COMPARATOR_SIZE = 10000
+
+    static final Map ELEMENTS = [
+            'Integer'        : { int i -> i },
+            'mixed numbers'  : { int i -> i % 3 == 0 ? (long) i : i % 3 == 1 ? new BigDecimal(i) : i },
+            'String'         : { int i -> "id-$i".toString() },
+            'numbers/strings': { int i -> i % 2 == 0 ? i : "id-$i".toString() }
+    ]
+
+    List createList(Closure element, int size) {
+        // about half of the values are duplicates
+        (0..<size).collect { element(it % (size / 2 as int)) }
+    }
+
+    long time(Closure c) {
+        c() // warm up
+        long start = System.nanoTime()
+        c()
+        (System.nanoTime() - start) / 1000000
+    }
+
+    void testCollectionOperations() {
+        ELEMENTS.each { String type, Closure element ->
+            SIZES.each { int size ->
+                if (type == 'numbers/strings' && size > MAX_COMPARATOR_SIZE) return
+                def list = createList(element, size)
+                def other = createList(element, size / 2 as int)
+                println "$type, $size elements"
+                println "  unique:    ${time { new ArrayList(list).unique() }} ms"
+                println "  intersect: ${time { list.intersect(other) }} ms"
+                println "  disjoint:  ${time { list.disjoint(other) }} ms"
+                println "  minus:     ${time { list - other }} ms"
+            }
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package org.codehaus.groovy.benchmarks
+
+/**
+ * Compares dispatch of a call site that always sees the same overload with
+ * call sites alternating between overloads of the same method name.
+ * Run it against builds before and after a change to method selection caching.
+ */
+class OverloadDispatchPerfTest extends GroovyTestCase {
+    static final int ITERATIONS = 200000
+
+    def monomorphic(StringBuilder sb) {
+        for (int i = 0; i < ITERATIONS; i++) {
+            sb.append("a")
+            if (sb.length() > 1000) sb.setLength(0)
+        }
+    }
+
+    def alternating(StringBuilder sb, List args) {
+        for (int i = 0; i < ITERATIONS; i++) {
+            sb.append(args[i % args.size()])
+            if (sb.length() > 1000) sb.setLength(0)
+        }
+    }
+
+    def invokeMethodAlternating(StringBuilder sb, List args) {
+        for (int i = 0; i < ITERATIONS; i++) {
+            sb.invokeMethod("append", args[i % args.size()])
+            if (sb.length() > 1000) sb.setLength(0)
+        }
+    }
+
+    long time(Closure c) {
+        c() // warm up
+        long start = System.nanoTime()
+        c()
+        (System.nanoTime() - start) / 1000000
+    }
+
+    void testOverloadDispatch() {
+        def sb = new StringBuilder()
+        def two = ["a", 1]
+        def four = ["a", 1, 'c' as char, 1.5d]
+
+        println "Overload dispatch, $ITERATIONS calls each"
+        println "  same overload:          ${time { monomorphic(sb) }} ms"
+        println "  2 alternating overloads: ${time { alternating(sb, two) }} ms"
+        println "  4 alternating overloads: ${time { alternating(sb, four) }} ms"
+        println "  invokeMethod, 4 overloads: ${time { invokeMethodAlternating(sb, four) }} ms"
+    }
+}
@@ -0,0 +1,29 @@
+// ---------------------------------------------------------------------
+// Compares a for loop over a range literal, which is compiled to a
+// counted loop, with a loop over the same range going through its
+// iterator. Run it with the number of iterations as argument.
+// ---------------------------------------------------------------------
+
+long countedLoop(int n) {
+    long sum = 0
+    for (i in 0..<n) sum += i
+    sum
+}
+
+long iteratorLoop(int n) {
+    long sum = 0
+    def range = 0..<n
+    for (i in range) sum += i
+    sum
+}
+
+long time(Closure c) {
+    c() // warm up
+    long start = System.nanoTime()
+    c()
+    (System.nanoTime() - start) / 1000000
+}
+
+int n = args ? Integer.parseInt(args[0]) : 1000000
+println "counted loop: ${time { countedLoop(n) }} ms"
+println "iterator:     ${time { iteratorLoop(n) }} ms"
@@ -0,0 +1,236 @@
+package org.codehaus.groovy.classgen
+
+class RangeForLoopTest extends GroovyTestCase {
+
+    List collect(range) {
+        def result = []
+        for (i in range) result << i
+        result
+    }
+
+    void testInclusiveAndExclusive() {
+        def result = []
+        for (i in 1..5) result << i
+        assertEquals([1, 2, 3, 4, 5], result)
+
+        result = []
+        for (i in 1..<5) result << i
+        assertEquals([1, 2, 3, 4], result)
+
+        result = []
+        for (i in 3..3) result << i
+        assertEquals([3], result)
+
+        result = []
+        for (i in 3..<3) result << i
+        assertEquals([], result)
+    }
+
+    void testReverse() {
+        def result = []
+        for (i in 5..1) result << i
+        assertEquals([5, 4, 3, 2, 1], result)
+
+        result = []
+        for (i in 5..<1) result << i
+        assertEquals([5, 4, 3, 2], result)
+
+        result = []
+        for (i in -1..-3) result << i
+        assertEquals([-1, -2, -3], result)
+    }
+
+    void testSameValuesAsIterator() {
+        int from = 0
+        int to = 0
+        for (a in -3..3) {
+            for (b in -3..3) {
+                from = a
+                to = b
+                def result = []
+                for (i in from..to) result << i
+                assertEquals collect(a..b), result
+
+                result = []
+                for (i in from..<to) result << i
+                assertEquals collect(a..<b), result
+            }
+        }
+    }
+
+    void testStep() {
+        def result = []
+        for (i in (0..10).step(3)) result << i
+        assertEquals([0, 3, 6, 9], result)
+        assertEquals((0..10).step(3), result)
+
+        result = []
+        for (i in (10..0).step(3)) result << i
+        assertEquals((10..0).step(3), result)
+
+        result = []
+        for (i in (0..10).step(-3)) result << i
+        assertEquals((0..10).step(-3), result)
+
+        result = []
+        for (i in (0..<10).step(5)) result << i
+        assertEquals([0, 5], result)
+
+        int step = 2
+        result = []
+        for (i in (0..5).step(step)) result << i
+        assertEquals([0, 2, 4], result)
+    }
+
+    void testTypedIntRange() {
+        IntRange range = 1..4
+        def result = []
+        for (i in range) result << i
+        assertEquals([1, 2, 3, 4], result)
+
+        range = 4..1
+        result = []
+        for (i in range) result << i
+        assertEquals([4, 3, 2, 1], result)
+
+        range = 0..<3
+        result = []
+        for (int i in range) result << i
+        assertEquals([0, 1, 2], result)
+
+        range = 10..0
+        result = []
+        for (i in range.step(4)) result << i
+        assertEquals(range.step(4), result)
+
+        range = null
+        result = []
+        for (i in range) result << i
+        assertEquals([], result)
+    }
+
+    void testIntRangeParameter() {
+        assertEquals 10, sum(1..4)
+        assertEquals 10, sum(4..1)
+    }
+
+    private int sum(IntRange range) {
+        int total = 0
+        for (i in range) total += i
+        total
+    }
+
+    void testBoundsEvaluatedOnce() {
+        def calls = 0
+        def bound = { calls++; 3 }
+        def result = []
+        for (i in 1..bound()) result << i
+        assertEquals([1, 2, 3], result)
+        assertEquals 1, calls
+    }
+
+    void testDynamicBounds() {
+        def from = 1
+        def to = 4
+        def result = []
+        for (i in from..to) result << i
+        assertEquals([1, 2, 3, 4], result)
+
+        result = []
+        for (i in 'a'..'d') result << i
+        assertEquals(['a', 'b', 'c', 'd'], result)
+
+        result = []
+        for (c in ('a' as char)..('c' as char)) result << c
+        assertEquals(['a' as char, 'b' as char, 'c' as char], result)
+        assertEquals Character, result[0].class
+
+        result = []
+        for (i in 1L..3L) result << i
+        assertEquals([1L, 2L, 3L], result)
+        assertEquals Long, result[0].class
+
+        result = []
+        for (i in ('a'..'e').step(2)) result << i
+        assertEquals(['a', 'c', 'e'], result)
+
+        from = 1
+        to = 3
+        result = []
+        for (i in (from..to).step(2)) result << i
+        assertEquals([1, 3], result)
+    }
+
+    void testLoopVariable() {
+        def result = []
+        for (i in 1..3) {
+            assertEquals Integer, i.class
+            i = i * 10
+            result << i
+        }
+        assertEquals([10, 20, 30], result)
+
+        result = []
+        for (i in 1..3) {
+            i = "x$i"
+            result << i
+        }
+        assertEquals(['x1', 'x2', 'x3'], result)
+
+        result = []
+        for (int i in 1..3) {
+            i++
+            result << i
+        }
+        assertEquals([2, 3, 4], result)
+
+        result = []
+        for (long i in 1..3) result << i
+        assertEquals([1L, 2L, 3L], result)
+        assertEquals Long, result[0].class
+    }
+
+    void testClosureCapture() {
+        def closures = []
+        for (i in 1..3) closures << { i }
+        assertEquals([3, 3, 3], closures*.call())
+
+        def sum = 0
+        for (i in 1..4) [1].each { sum += i }
+        assertEquals 10, sum
+    }
+
+    void testBreakAndContinue() {
+        def result = []
+        for (i in 1..10) {
+            if (i % 2) continue
+            if (i > 6) break
+            result << i
+        }
+        assertEquals([2, 4, 6], result)
+
+        result = []
+        outer:
+        for (i in 1..3) {
+            for (j in 1..3) {
+                if (j == 2) continue outer
+                result << "$i$j"
+            }
+        }
+        assertEquals(['11', '21', '31'], result)
+    }
+
+    void testExtremeBounds() {
+        def result = []
+        for (i in (Integer.MAX_VALUE - 2)..Integer.MAX_VALUE) result << i
+        assertEquals([Integer.MAX_VALUE - 2, Integer.MAX_VALUE - 1, Integer.MAX_VALUE], result)
+
+        result = []
+        for (i in (Integer.MIN_VALUE + 2)..Integer.MIN_VALUE) result << i
+        assertEquals([Integer.MIN_VALUE + 2, Integer.MIN_VALUE + 1, Integer.MIN_VALUE], result)
+
+        shouldFail(IllegalArgumentException) {
+            for (i in 0..Integer.MAX_VALUE) break
+        }
+    }
+}
@@ -0,0 +1,134 @@
+package org.codehaus.groovy.classgen
+
+class UnboxedLocalVariableTest extends GroovyTestCase {
+
+    void testIntArithmetic() {
+        int a = 7
+        int b = 3
+        int c = a * b + a - b
+        assertEquals 25, c
+        assertEquals Integer, c.class
+        assertEquals 2, a.intdiv(b)
+        assertEquals 1, a % b
+        assertEquals 56, a << b
+        assertEquals 7 & 3, a & b
+    }
+
+    void testIntegralDivisionStaysDynamic() {
+        int a = 7
+        int b = 2
+        assertEquals 3.5G, a / b
+        long c = 7
+        assertEquals 3.5G, c / b
+    }
+
+    void testMixedTypes() {
+        int i = 2
+        long l = 3
+        double d = 0.5d
+        assertEquals 6L, i * l
+        assertEquals Long, (i * l).class
+        assertEquals 3.5d, l + d
+        assertEquals Double, (i + d).class
+        assertEquals 1.0d, i / 2.0d
+    }
+
+    void testAssignments() {
+        int sum = 0
+        for (int i = 0; i < 10; i++) {
+            sum += i
+        }
+        assertEquals 45, sum
+
+        long acc = 1
+        for (int i = 1; i <= 10; i = i + 1) {
+            acc = acc * i
+        }
+        assertEquals 3628800L, acc
+
+        int x = 5
+        int y = (x = x + 2)
+        assertEquals 7, y
+        assertEquals 14, (x += 7)
+        assertEquals 14, x
+    }
+
+    void testConversionOnAssignment() {
+        int x = 2.7
+        assertEquals 2, x
+        x += 1.5d
+        assertEquals 3, x
+        double d = 3
+        assertEquals 3.0d, d
+        assertEquals Double, d.class
+    }
+
+    void testDeclarationWithoutValue() {
+        int i
+        long l
+        double d
+        assertNull i
+        assertNull l
+        assertNull d
+        i = 3
+        assertEquals 3, i
+    }
+
+    void testNullValues() {
+        int x = null
+        assertNull x
+        x = 1
+        assertEquals 2, x + 1
+
+        int y = 5
+        y = null
+        assertNull y
+
+        def map = [:]
+        int z = map.missing
+        assertNull z
+
+        int copy = 1
+        copy = x
+        assertEquals 1, copy
+        x = null
+        copy = x
+        assertNull copy
+    }
+
+    void testClosureSharedVariable() {
+        int count = 0
+        [1, 2, 3].each { count += it }
+        assertEquals 6, count
+    }
+
+    void testParameters() {
+        assertEquals 10, hypot2(1, 3)
+        assertEquals 3L, fib(4L)
+    }
+
+    void testModifiedNumberMethodIsHonoured() {
+        try {
+            Long.metaClass.minus = { Long other -> 42L }
+            def shell = new GroovyShell()
+            assertEquals 42L, shell.evaluate("long a = 5; long b = 3; a - b")
+        } finally {
+            GroovySystem.metaClassRegistry.removeMetaClass Long
+        }
+    }
+
+    private int hypot2(int a, int b) {
+        a * a + b * b
+    }
+
+    private long fib(long n) {
+        long a = 0
+        long b = 1
+        for (int i = 0; i < n; i++) {
+            long t = a + b
+            a = b
+            b = t
+        }
+        a
+    }
+}
@@ -0,0 +1,89 @@
+/*
+ * Copyright 2003-2009 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.codehaus.groovy.control
+
+class ParallelCompilationTest extends GroovyTestCase {
+
+    def sources = [
+        A: "interface A { def a() }",
+        B: "class B implements A { def a() { [1, 2].collect { it * 2 } } }",
+        C: "class C extends B { def c() { a() + 'c' } }",
+        D: "new C().c()"
+    ]
+
+    private compile(int parallelism, Map sources) {
+        def config = new CompilerConfiguration()
+        config.parallelism = parallelism
+        def unit = new CompilationUnit(config)
+        sources.each { name, text ->
+            unit.addSource("${name}.groovy", new ByteArrayInputStream(text.getBytes("UTF-8")))
+        }
+        unit.compile(Phases.CLASS_GENERATION)
+        return unit.classes
+    }
+
+    private errors(int parallelism, Map sources) {
+        try {
+            compile(parallelism, sources)
+        } catch (MultipleCompilationErrorsException e) {
+            return e.message
+        }
+        fail("compilation should have failed")
+    }
+
+    void testParallelCompilationGeneratesTheSameClasses() {
+        def sequential = compile(1, sources)
+        def parallel = compile(4, sources)
+        assert parallel*.name == sequential*.name
+        assert parallel*.name.containsAll(["A", "B", "C", "D"])
+
+        def loader = new GroovyClassLoader(getClass().classLoader)
+        parallel.each { loader.defineClass(it.name, it.bytes) }
+        assert loader.loadClass("D").newInstance().run() == [2, 4, 'c']
+    }
+
+    void testSyntaxErrorsAreReportedInSourceOrder() {
+        def broken = [
+            First: "class First { def x( }",
+            Second: "class Second { def y() { } }",
+            Third: "class Third { def z) }"
+        ]
+        assert errors(4, broken) == errors(1, broken)
+    }
+
+    void testSemanticErrorsAreReportedInSourceOrder() {
+        def broken = [
+            First: "class First extends Missing {}",
+            Second: "class Second { def y() { } }",
+            Third: "class Third implements AlsoMissing {}"
+        ]
+        def message = errors(4, broken)
+        assert message == errors(1, broken)
+        assert message.indexOf("Missing") < message.indexOf("AlsoMissing")
+    }
+
+    void testParallelismConfiguration() {
+        def config = new CompilerConfiguration()
+        assert config.parallelism == 1
+        config.parallelism = 0
+        assert config.parallelism == Runtime.runtime.availableProcessors()
+
+        def props = new Properties()
+        props.setProperty("groovy.compile.parallelism", "3")
+        assert new CompilerConfiguration(props).parallelism == 3
+        assert new CompilerConfiguration(new CompilerConfiguration(props)).parallelism == 3
+    }
+}
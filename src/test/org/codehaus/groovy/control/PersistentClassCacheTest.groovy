@@ -0,0 +1,126 @@
+/*
+ * Copyright 2003-2009 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.codehaus.groovy.control
+
+import java.security.CodeSource
+import java.util.zip.ZipEntry
+import java.util.zip.ZipOutputStream
+
+class PersistentClassCacheTest extends GroovyTestCase {
+
+    File cacheDir
+    CompilerConfiguration config
+
+    protected void setUp() {
+        super.setUp()
+        cacheDir = File.createTempFile("classcache", "")
+        cacheDir.delete()
+        config = new CompilerConfiguration()
+        config.classCacheDirectory = cacheDir
+    }
+
+    protected void tearDown() {
+        if (cacheDir.exists()) cacheDir.deleteDir()
+        super.tearDown()
+    }
+
+    void testClassesAreDefinedFromCacheWithoutCompiling() {
+        def script = "def twice = { it * 2 }; [1, 2, 3].collect(twice)"
+
+        def first = new CountingLoader(config)
+        assert first.parseClass(script, "CachedScript.groovy").newInstance().run() == [2, 4, 6]
+        assert first.compilations == 1
+        assert cacheDir.listFiles().findAll { it.name.endsWith(".gcc") }.size() == 1
+
+        def second = new CountingLoader(config)
+        def cls = second.parseClass(script, "CachedScript.groovy")
+        assert second.compilations == 0
+        assert cls.name == "CachedScript"
+        assert cls.newInstance().run() == [2, 4, 6]
+    }
+
+    void testChangedSourceIsCompiledAgain() {
+        def first = new CountingLoader(config)
+        assert first.parseClass("1 + 1", "ChangingScript.groovy").newInstance().run() == 2
+
+        def second = new CountingLoader(config)
+        assert second.parseClass("2 + 2", "ChangingScript.groovy").newInstance().run() == 4
+        assert second.compilations == 1
+    }
+
+    void testChangedClasspathIsCompiledAgain() {
+        def jar = File.createTempFile("classcache", ".jar")
+        writeJar(jar, "a.txt")
+        try {
+            def first = new CountingLoader(config)
+            first.addURL(jar.toURI().toURL())
+            first.parseClass("3 + 3", "ClasspathScript.groovy")
+
+            def second = new CountingLoader(config)
+            second.addURL(jar.toURI().toURL())
+            second.parseClass("3 + 3", "ClasspathScript.groovy")
+            assert second.compilations == 0
+
+            writeJar(jar, "a.txt", "b.txt")
+            def third = new CountingLoader(config)
+            third.addURL(jar.toURI().toURL())
+            assert third.parseClass("3 + 3", "ClasspathScript.groovy").newInstance().run() == 6
+            assert third.compilations == 1
+        } finally {
+            jar.delete()
+        }
+    }
+
+    private void writeJar(File jar, String... entries) {
+        jar.withOutputStream { out ->
+            def zip = new ZipOutputStream(out)
+            entries.each {
+                zip.putNextEntry(new ZipEntry(it))
+                zip.write(it.bytes)
+                zip.closeEntry()
+            }
+            zip.finish()
+        }
+    }
+
+    void testCorruptEntryIsIgnored() {
+        new CountingLoader(config).parseClass("'a' * 3", "CorruptScript.groovy")
+        cacheDir.listFiles().each { it.bytes = [1, 2, 3] as byte[] }
+
+        def second = new CountingLoader(config)
+        assert second.parseClass("'a' * 3", "CorruptScript.groovy").newInstance().run() == 'aaa'
+        assert second.compilations == 1
+    }
+
+    void testCacheIsDisabledByDefault() {
+        assert new CompilerConfiguration().classCacheDirectory == null || System.getProperty("groovy.classcache.directory")
+        def copy = new CompilerConfiguration(config)
+        assert copy.classCacheDirectory == cacheDir
+    }
+}
+
+class CountingLoader extends GroovyClassLoader {
+    int compilations
+
+    CountingLoader(CompilerConfiguration config) {
+        super(PersistentClassCacheTest.classLoader, config)
+    }
+
+    protected CompilationUnit createCompilationUnit(CompilerConfiguration config, CodeSource source) {
+        compilations++
+        return super.createCompilationUnit(config, source)
+    }
+}
@@ -0,0 +1,55 @@
+/*
+ * Copyright 2003-2009 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.codehaus.groovy.reflection
+
+import org.codehaus.groovy.runtime.DefaultGroovyMethods
+
+class GeneratedMetaMethodTest extends GroovyTestCase {
+
+    void testIndexMatchesGeneratedClasses() {
+        def records = GeneratedMetaMethod.DgmMethodRecord.loadDgmInfo()
+        assert records
+        records.eachWithIndex { record, i ->
+            assert record.className == 'org.codehaus.groovy.runtime.dgm$' + i
+            assert DefaultGroovyMethods.getMethod(record.methodName, record.parameters).returnType == record.returnType
+        }
+    }
+
+    void testProxyLoadsGeneratedClassOnFirstInvocation() {
+        def record = GeneratedMetaMethod.DgmMethodRecord.loadDgmInfo().find {
+            it.methodName == 'reverse' && it.parameters == [String] as Class[]
+        }
+        def proxy = new GeneratedMetaMethod.Proxy(record.className, 'reverse',
+                ReflectionCache.getCachedClass(String), String, [] as Class[])
+        assert !proxy.isLoaded()
+        assert proxy.name == 'reverse'
+        assert proxy.declaringClass.theClass == String
+        assert proxy.isValidMethod([] as Class[])
+        assert !proxy.isLoaded()
+
+        assert proxy.invoke('groovy', [] as Object[]) == 'yvoorg'
+        assert proxy.isLoaded()
+        assert proxy.proxy().class.name == record.className
+        assert proxy.doMethodInvoke('abc', [] as Object[]) == 'cba'
+    }
+
+    void testRegistryUsesProxies() {
+        def methods = GroovySystem.metaClassRegistry.instanceMethods.toList()
+        assert methods.any { it instanceof GeneratedMetaMethod.Proxy }
+        assert 'abc'.reverse() == 'cba'
+        assert 3.plus(4) == 7
+    }
+}
@@ -0,0 +1,49 @@
+package org.codehaus.groovy.runtime
+
+import org.codehaus.groovy.runtime.metaclass.MetaMethodIndex
+
+class MethodSelectionCacheTest extends GroovyTestCase {
+
+    void testAlternatingOverloadsSelectRightMethod() {
+        def target = new OverloadTarget()
+        def args = ["s", 1, 2L, 'c' as char, 1.5d, [1]]
+        def expected = ["String", "int", "long", "char", "double", "Object"]
+        3.times {
+            args.eachWithIndex { arg, i ->
+                assertEquals expected[i], target.pick(arg)
+                assertEquals expected[i], target.invokeMethod("pick", [arg] as Object[])
+            }
+        }
+    }
+
+    void testAlternatingStaticOverloads() {
+        3.times {
+            assertEquals "String", OverloadTarget.staticPick("s")
+            assertEquals "int", OverloadTarget.staticPick(1)
+            assertEquals "Object", OverloadTarget.staticPick([])
+        }
+    }
+
+    void testCacheIsBounded() {
+        def head = null
+        10.times {
+            head = MetaMethodIndex.CacheEntry.prepend(head, [Integer] as Class[], null)
+        }
+        int length = 0
+        for (def e = head; e != null; e = e.next) length++
+        assertEquals MetaMethodIndex.MAX_CACHE_ENTRIES, length
+    }
+}
+
+class OverloadTarget {
+    def pick(String s) { "String" }
+    def pick(int i) { "int" }
+    def pick(long l) { "long" }
+    def pick(char c) { "char" }
+    def pick(double d) { "double" }
+    def pick(Object o) { "Object" }
+
+    static staticPick(String s) { "String" }
+    static staticPick(int i) { "int" }
+    static staticPick(Object o) { "Object" }
+}
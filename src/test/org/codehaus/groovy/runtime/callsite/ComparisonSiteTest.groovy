@@ -0,0 +1,72 @@
+package org.codehaus.groovy.runtime.callsite
+
+import org.codehaus.groovy.runtime.ScriptBytecodeAdapter
+
+class ComparisonSiteTest extends GroovyTestCase {
+
+    private CallSiteArray newArray() {
+        new CallSiteArray(ComparisonSiteTest, ["compareTo"] as String[])
+    }
+
+    void testSpecializesOnOperandClasses() {
+        def array = newArray()
+        assertTrue ComparisonSite.compareLessThan(array.array[0], 1, 2)
+        assertEquals ComparisonSite.name + '$IntegerIntegerSite', array.array[0].class.name
+        def site = array.array[0]
+        assertFalse ComparisonSite.compareGreaterThanEqual(array.array[0], 1, 2)
+        assertTrue ComparisonSite.compareEqual(array.array[0], 1000, 1000)
+        assertSame site, array.array[0]
+
+        array = newArray()
+        assertEquals(-1, ComparisonSite.compareTo(array.array[0], "a", "b"))
+        assertEquals ComparisonSite.name + '$StringStringSite', array.array[0].class.name
+
+        array = newArray()
+        assertTrue ComparisonSite.compareGreaterThan(array.array[0], new Date(10), new Date(5))
+        assertEquals ComparisonSite.name + '$ComparableSite', array.array[0].class.name
+    }
+
+    void testFallsBackToGenericComparison() {
+        def array = newArray()
+        assertTrue ComparisonSite.compareLessThan(array.array[0], 1, 2)
+        assertTrue ComparisonSite.compareLessThan(array.array[0], 1, 2.5G)
+        assertTrue ComparisonSite.compareEqual(array.array[0], 'a' as Character, 'a')
+        assertEquals ComparisonSite, array.array[0].class
+        assertTrue ComparisonSite.compareLessThan(array.array[0], 1L, 2)
+        assertEquals ComparisonSite, array.array[0].class
+    }
+
+    void testNullOperandsDoNotChangeSite() {
+        def array = newArray()
+        assertTrue ComparisonSite.compareEqual(array.array[0], null, null)
+        assertFalse ComparisonSite.compareEqual(array.array[0], "a", null)
+        assertTrue ComparisonSite.compareNotEqual(array.array[0], null, 1)
+        assertTrue ComparisonSite.compareLessThan(array.array[0], null, 1)
+        assertFalse array.array[0] instanceof ComparisonSite
+
+        assertTrue ComparisonSite.compareEqual(array.array[0], 3L, 3L)
+        def site = array.array[0]
+        assertEquals ComparisonSite.name + '$LongLongSite', site.class.name
+        assertFalse ComparisonSite.compareEqual(array.array[0], 3L, null)
+        assertSame site, array.array[0]
+    }
+
+    void testSpecializedSitesAgreeWithGenericComparison() {
+        def pairs = [[1, 2], [2, 1], [5, 5], [3L, 7L], [7L, 7L], [1.5d, -0.5d], [0.0d, -0.0d], [Double.NaN, Double.NaN],
+                ["abc", "abd"], ["x", "x"], [new Date(1), new Date(1)], [Thread.State.NEW, Thread.State.RUNNABLE]]
+        pairs.each { l, r ->
+            assertEquals ScriptBytecodeAdapter.compareTo(l, r), ComparisonSite.compareTo(newArray().array[0], l, r)
+            assertEquals ScriptBytecodeAdapter.compareEqual(l, r), ComparisonSite.compareEqual(newArray().array[0], l, r)
+        }
+    }
+
+    void testCompiledComparisons() {
+        def values = [3, 1, 2, "b", "a", 2.5G, 1L]
+        def numbers = values.findAll { it instanceof Number }
+        assertEquals 2, numbers.count { it < 2 }
+        assertEquals 3, numbers.count { it >= 2 }
+        assertEquals 1, values.count { it == "a" }
+        assertEquals 6, values.count { it != "a" }
+        assertEquals([-1, 0, 1], [1 <=> 2, "a" <=> "a", 2.5G <=> 2])
+    }
+}
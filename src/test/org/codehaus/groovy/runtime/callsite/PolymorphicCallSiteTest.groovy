@@ -0,0 +1,67 @@
+package org.codehaus.groovy.runtime.callsite
+
+class PolymorphicCallSiteTest extends GroovyTestCase {
+
+    void testPolymorphicPojoReceivers() {
+        def array = new CallSiteArray(PolymorphicCallSiteTest, ["toUpperCase", "size"] as String[])
+
+        def site = array.array[1]
+        assertEquals 3, site.call("abc")
+        assertEquals 2, array.array[1].call([1, 2])
+        assertEquals 1, array.array[1].call([a: 1])
+
+        def pic = array.array[1]
+        assertTrue pic instanceof PolymorphicCallSite
+        assertEquals 3, pic.entryCount
+        assertFalse pic.megamorphic
+
+        5.times {
+            assertEquals 3, array.array[1].call("xyz")
+            assertEquals 4, array.array[1].call([1, 2, 3, 4])
+        }
+        assertSame pic, array.array[1]
+        assertEquals 10, pic.hitCount
+        assertEquals 1, pic.promotionCount
+    }
+
+    void testMonomorphicSiteIsNotWrapped() {
+        def array = new CallSiteArray(PolymorphicCallSiteTest, ["toUpperCase"] as String[])
+        3.times {
+            assertEquals "ABC", array.array[0].call("abc")
+        }
+        assertFalse array.array[0] instanceof PolymorphicCallSite
+    }
+
+    void testMegamorphicFallback() {
+        def array = new CallSiteArray(PolymorphicCallSiteTest, ["size"] as String[])
+        def receivers = ["a", [1], [a: 1], [1] as Set, new LinkedList([1, 2]), new TreeMap([b: 2]), new Vector([1, 2, 3])]
+        2.times {
+            receivers.each { r ->
+                assertEquals r.size(), array.array[0].call(r)
+            }
+        }
+
+        def pic = array.array[0]
+        assertTrue pic instanceof PolymorphicCallSite
+        assertTrue pic.megamorphic
+        assertEquals PolymorphicCallSite.MAX_ENTRIES, pic.entryCount
+        assertEquals 2, pic.promotionCount
+    }
+
+    void testMetaClassChangeRefreshesEntry() {
+        def array = new CallSiteArray(PolymorphicCallSiteTest, ["pic"] as String[])
+        try {
+            String.metaClass.pic = { -> "string" }
+            ArrayList.metaClass.pic = { -> "list" }
+            assertEquals "string", array.array[0].call("abc")
+            assertEquals "list", array.array[0].call([])
+
+            String.metaClass.pic = { -> "changed" }
+            assertEquals "changed", array.array[0].call("abc")
+            assertEquals "list", array.array[0].call([])
+        } finally {
+            GroovySystem.metaClassRegistry.removeMetaClass String
+            GroovySystem.metaClassRegistry.removeMetaClass ArrayList
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package org.codehaus.groovy.runtime.callsite
+
+class ScriptVariableGetPropertySiteTest extends GroovyTestCase {
+
+    def evaluate(String text, Binding binding) {
+        new GroovyShell(binding).evaluate(text)
+    }
+
+    void testBindingVariables() {
+        def binding = new Binding(a: 1, b: null)
+        assertEquals([1, null, 3], evaluate("def r = []; for (i in 1..2) r << a; [a, b, a + 2]", binding))
+    }
+
+    void testVariableChangesAreSeen() {
+        def binding = new Binding(a: 1)
+        def script = new GroovyShell(binding).parse("def r = []; for (v in values) { a = v; r << a }; r")
+        binding.values = [1, 2, 3]
+        assertEquals([1, 2, 3], script.run())
+    }
+
+    void testMissingVariableFallsBackToProperty() {
+        assertEquals "prop", evaluate("def getFoo() { 'prop' }; foo", new Binding())
+        shouldFail(MissingPropertyException) {
+            evaluate("undefinedVariable", new Binding())
+        }
+    }
+
+    void testCustomBinding() {
+        def binding = new FixedVariableBinding()
+        assertEquals 42, evaluate("x", binding)
+        shouldFail(MissingPropertyException) {
+            evaluate("y", binding)
+        }
+    }
+
+    void testBoundClosureCalledAsMethod() {
+        def binding = new Binding(twice: { it * 2 })
+        assertEquals 4, evaluate("twice(2)", binding)
+        shouldFail(MissingMethodException) {
+            evaluate("thrice(2)", binding)
+        }
+    }
+
+    void testPrintToOutVariable() {
+        def binding = new Binding()
+        def out = new StringWriter()
+        binding.out = new PrintWriter(out)
+        evaluate("println 'hello'; print 'world'", binding)
+        assertEquals "hello" + System.getProperty("line.separator") + "world", out.toString()
+    }
+}
+
+class FixedVariableBinding extends Binding {
+    Object getVariable(String name) {
+        if (name == "x") return 42
+        super.getVariable(name)
+    }
+}
@@ -0,0 +1,78 @@
+package org.codehaus.groovy.runtime.callsite
+
+class SetPropertyCallSiteTest extends GroovyTestCase {
+
+    void testPogoSetterAndField() {
+        def beans = [new SetPropertyBean(), new SetPropertyBean()]
+        beans.each { bean ->
+            bean.name = "groovy"
+            bean.count = 42
+        }
+        beans.each { bean ->
+            assertEquals "GROOVY", bean.name
+            assertEquals 42, bean.count
+        }
+    }
+
+    void testReceiverTypeChangesAtSameSite() {
+        def receivers = [new SetPropertyBean(), [:], new Date(), new SetPropertyBean()]
+        receivers.each { it.time = 0L }
+        assertEquals 0L, receivers[0].time
+        assertEquals 0L, receivers[1].time
+        assertEquals 0L, receivers[2].time
+        assertEquals 0L, receivers[3].time
+    }
+
+    void testMetaClassChangeIsSeen() {
+        def bean = new SetPropertyBean()
+        def assign = { it.name = "x" }
+        assign(bean)
+        assertEquals "X", bean.name
+
+        def emc = new ExpandoMetaClass(SetPropertyBean, false, true)
+        emc.setName = { String n -> delegate.count = n.size() }
+        emc.initialize()
+        bean.metaClass = emc
+        assign(bean)
+        assertEquals "X", bean.name
+        assertEquals 1, bean.count
+    }
+
+    void testCategorySetter() {
+        def date = new Date()
+        def assign = { it.time = 5L }
+        assign(date)
+        assertEquals 5L, date.time
+        use(SetPropertyCategory) {
+            assign(date)
+        }
+        assertEquals 10L, date.time
+    }
+
+    void testSafeAndReadOnly() {
+        def bean = null
+        bean?.name = "x"
+
+        bean = new SetPropertyBean()
+        shouldFail(ReadOnlyPropertyException) {
+            bean.constant = 1
+        }
+    }
+}
+
+class SetPropertyBean {
+    String name
+    int count
+    long time
+    final int constant = 0
+
+    void setName(String name) {
+        this.name = name.toUpperCase()
+    }
+}
+
+class SetPropertyCategory {
+    static void setTime(Date self, long value) {
+        self.setTime(value * 2)
+    }
+}